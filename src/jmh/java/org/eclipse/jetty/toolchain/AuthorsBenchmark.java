@@ -0,0 +1,79 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Look up the authors of commits by email, with as many unknown emails (contributors) as known ones,
+ * and add the unknown ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorsBenchmark
+{
+    private Authors authors;
+    private String[] emails;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        authors = Authors.load();
+        List<String> all = new ArrayList<>();
+        for (Author author : authors)
+        {
+            for (String email : author.emails())
+            {
+                all.add(email);
+                all.add("contributor-" + all.size() + "@users.noreply.github.com");
+            }
+        }
+        emails = all.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public void find(Blackhole blackhole)
+    {
+        for (String email : emails)
+        {
+            blackhole.consume(authors.find(email));
+        }
+    }
+
+    @Benchmark
+    public Authors addIfAbsent()
+    {
+        Authors added = new Authors();
+        for (String email : emails)
+        {
+            added.addIfAbsent(new Author(email).email(email));
+        }
+        return added;
+    }
+
+    @Benchmark
+    public void isCommitter(Blackhole blackhole)
+    {
+        for (String email : emails)
+        {
+            blackhole.consume(authors.isCommitter(email));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * Fixture data for the benchmarks, from the recorded GitHub responses in {@code src/test/resources/github}.
+ */
+public class BenchmarkFixtures
+{
+    private static final String[] GITHUB_FIXTURES = {
+        "commit.json",
+        "issue-5675-events.json",
+        "issue-eclipse-jetty.project-5675.json",
+        "issue-eclipse-jetty.project-5676.json",
+        "pull-request-5676.json",
+        "pull-request-5676-commits.json"
+    };
+    private static final Set<String> MESSAGE_KEYS = Set.of("message", "title", "body");
+
+    /**
+     * The commit messages, issue titles and bodies found in the recorded GitHub responses,
+     * or the messages of the file named by the {@code jmh.corpus} system property, if set.
+     * <p>
+     * The {@code jmh.corpus} file holds messages separated by NUL, eg: from {@code git log -z --format=%B}.
+     * </p>
+     */
+    public static List<String> loadMessages() throws IOException
+    {
+        String corpus = System.getProperty("jmh.corpus");
+        if ((corpus != null) && !corpus.isBlank())
+        {
+            String content = Files.readString(Path.of(corpus), StandardCharsets.UTF_8);
+            return Arrays.stream(content.split("\0"))
+                .filter((message) -> !message.isBlank())
+                .collect(Collectors.toList());
+        }
+
+        List<String> messages = new ArrayList<>();
+        for (String fixture : GITHUB_FIXTURES)
+        {
+            try (Reader reader = new InputStreamReader(open(fixture), StandardCharsets.UTF_8))
+            {
+                collectMessages(JsonParser.parseReader(reader), messages);
+            }
+        }
+        messages.add(new String(open("dependabot-issue-body.txt").readAllBytes(), StandardCharsets.UTF_8));
+        return messages;
+    }
+
+    public static InputStream open(String githubFixture) throws IOException
+    {
+        InputStream in = BenchmarkFixtures.class.getClassLoader().getResourceAsStream("github/" + githubFixture);
+        if (in == null)
+            throw new IOException("Fixture not found: github/" + githubFixture);
+        return in;
+    }
+
+    private static void collectMessages(JsonElement element, List<String> messages)
+    {
+        if (element.isJsonArray())
+        {
+            element.getAsJsonArray().forEach((child) -> collectMessages(child, messages));
+        }
+        else if (element.isJsonObject())
+        {
+            for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet())
+            {
+                JsonElement value = entry.getValue();
+                if (MESSAGE_KEYS.contains(entry.getKey()) && value.isJsonPrimitive())
+                    messages.add(value.getAsString());
+                else
+                    collectMessages(value, messages);
+            }
+        }
+    }
+}
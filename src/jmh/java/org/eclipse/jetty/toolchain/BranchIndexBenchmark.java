@@ -0,0 +1,137 @@
+package org.eclipse.jetty.toolchain;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ListBranchCommand;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@link ReachabilityIndex} of the {@link #commits} most recent commits against the previous implementation,
+ * a {@code git branch --contains} per commit.
+ * <p>
+ * The index is built for all the commits at once, while {@link #branchContains()} is a single commit,
+ * so the cost of the previous implementation is {@link #commits} times its score.
+ * Without a {@link #repo}, a synthetic repository with 6 release branches of 3,000 commits each is generated at setup.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BranchIndexBenchmark
+{
+    private static final int BRANCHES = 6;
+    private static final int COMMITS_PER_BRANCH = 3000;
+
+    @Param({"500"})
+    public int commits;
+
+    /**
+     * The repository to index the most recent commits of {@code HEAD} of, or empty for a synthetic one.
+     */
+    @Param({""})
+    public String repo;
+
+    private List<ObjectId> range;
+    private ChangelogTool changelog;
+    private Git git;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        Path repoDir;
+        if (repo.isEmpty())
+        {
+            repoDir = MavenTestingUtils.getTargetTestingPath(BranchIndexBenchmark.class.getSimpleName());
+            FS.ensureEmpty(repoDir);
+            SyntheticRepository synthetic = new SyntheticRepository(repoDir, 42);
+            synthetic.init(2, 5);
+            // Each release branch continues from the previous one (as merged forward),
+            // with an older maintenance branch forked off each one
+            for (int b = 0; b < BRANCHES; b++)
+            {
+                for (int i = 0; i < COMMITS_PER_BRANCH; i++)
+                {
+                    synthetic.commit(1, "Change " + b + "." + i);
+                }
+                synthetic.updateRef(String.format("refs/remotes/origin/jetty-%d.0.x", 7 + b));
+            }
+            List<ObjectId> all = synthetic.getCommits();
+            ObjectId tip = all.get(all.size() - 1);
+            for (int b = 0; b < BRANCHES; b++)
+            {
+                synthetic.resetHead(all.get((b + 1) * COMMITS_PER_BRANCH - 100));
+                synthetic.commit(1, "Maintenance " + b);
+                synthetic.updateRef(String.format("refs/remotes/origin/jetty-%d.1.x", 7 + b));
+            }
+            synthetic.resetHead(tip);
+            synthetic.getRepository().close();
+            range = new ArrayList<>(all.subList(all.size() - commits, all.size()));
+        }
+        else
+        {
+            repoDir = Path.of(repo);
+            try (Git log = Git.open(repoDir.toFile()))
+            {
+                range = StreamSupport.stream(log.log().setMaxCount(commits).call().spliterator(), false)
+                    .map(ObjectId::toObjectId)
+                    .collect(Collectors.toList());
+            }
+        }
+
+        changelog = new ChangelogTool(repoDir);
+        git = Git.open(repoDir.toFile());
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        git.close();
+    }
+
+    @Benchmark
+    public ReachabilityIndex index() throws Exception
+    {
+        return changelog.newBranchIndex(range);
+    }
+
+    @Benchmark
+    public Set<String> branchContains() throws Exception
+    {
+        ObjectId commit = range.get(next++ % range.size());
+        return git.branchList()
+            .setListMode(ListBranchCommand.ListMode.ALL)
+            .setContains(commit.getName())
+            .call()
+            .stream()
+            .map(Ref::getName)
+            .filter((name) -> name.startsWith("refs/remotes/origin/jetty-"))
+            .filter((name) -> name.endsWith(".x"))
+            .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,158 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.eclipse.jetty.toolchain.github.Cache;
+import org.eclipse.jetty.toolchain.github.StubGitHubServer;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A changelog of a {@link SyntheticProject} generated at setup, with its GitHub resources served by a {@link StubGitHubServer}.
+ * <p>
+ * The full run starts from an empty cache. The rerun starts from the state saved by a full run,
+ * with {@link #newCommits} more commits, all the cached GitHub resources being revalidated.
+ * A {@link #graphqlBatchSize} of 0 only uses the REST API, and the {@link #latency} (in ms) is added to every GitHub response.
+ * </p>
+ * <p>
+ * Run with {@code -Djmh.includes=ChangelogBenchmark}, the time of each stage being in the {@link ChangelogMetrics} of a run.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChangelogBenchmark
+{
+    private static final String RERUN_TAG = "jetty-99.0.0";
+
+    @Param({"10000"})
+    public int commits;
+
+    @Param({"0", "50"})
+    public int graphqlBatchSize;
+
+    @Param({"0"})
+    public int latency;
+
+    @Param({"100"})
+    public int newCommits;
+
+    private Path testDir;
+    private Path gitDir;
+    private SyntheticProject project;
+    private String oldTag;
+    private String newTag;
+    private StubGitHubServer server;
+    private int runs;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        testDir = MavenTestingUtils.getTargetTestingPath(ChangelogBenchmark.class.getSimpleName() + "-" + commits + "-" + graphqlBatchSize);
+        FS.ensureEmpty(testDir);
+        gitDir = testDir.resolve("repo");
+
+        project = new SyntheticProject(gitDir, 42);
+        project.setCommits(commits);
+        project.setReleaseBranches(4);
+        project.setTags(10);
+        project.setContributors(200);
+        project.generate();
+        oldTag = project.getOldTag();
+        newTag = project.getNewTag();
+
+        server = new StubGitHubServer();
+        server.addResources(project.getGitHubResources());
+        server.setLatency(Duration.ofMillis(latency));
+        // Not paced by the rate limit, see RateLimiterBenchmark
+        server.setRateLimit(Integer.MAX_VALUE / 2, Duration.ofHours(1));
+
+        // The state and cache of a full run, for the reruns
+        Cache cache = new Cache(testDir.resolve("cache"));
+        ChangelogTool changelog = newChangelog(cache);
+        run(changelog, cache, newTag);
+        changelog.saveState(testDir.resolve("state.json"));
+        project.generateMore(newCommits, RERUN_TAG);
+        server.addResources(project.getGitHubResources());
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        server.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void nextRun()
+    {
+        runs++;
+    }
+
+    @Benchmark
+    public ChangelogTool fullRun() throws Exception
+    {
+        Cache cache = new Cache(testDir.resolve("cache-" + runs));
+        ChangelogTool changelog = newChangelog(cache);
+        run(changelog, cache, newTag);
+        return changelog;
+    }
+
+    @Benchmark
+    public ChangelogTool rerun() throws Exception
+    {
+        Cache cache = new Cache(testDir.resolve("cache"));
+        for (String resourceType : List.of("issues", "issue-events", "pulls", "pull-commits"))
+        {
+            cache.setTimeToLive(resourceType, Duration.ZERO);
+        }
+        ChangelogTool changelog = newChangelog(cache);
+        changelog.loadState(testDir.resolve("state.json"));
+        run(changelog, cache, RERUN_TAG);
+        return changelog;
+    }
+
+    private void run(ChangelogTool changelog, Cache cache, String tag) throws Exception
+    {
+        changelog.resolveCommits(oldTag, tag);
+        changelog.resolveAuthors();
+        changelog.resolveUnknownIssues();
+        changelog.resolvePullRequestCommits();
+        changelog.writeMarkdown(testDir.resolve("changelog-" + runs + ".md"));
+        cache.close();
+    }
+
+    private ChangelogTool newChangelog(Cache cache) throws IOException
+    {
+        ChangelogTool changelog = new ChangelogTool(gitDir);
+        changelog.setGithubRepo(SyntheticProject.OWNER, SyntheticProject.REPO_NAME);
+        changelog.setGitHubApi(server.newGitHubApi(cache));
+        changelog.setGraphqlBatchSize(graphqlBatchSize);
+        changelog.setBranch(project.getBranch());
+        changelog.setOnelineOutput(true);
+        changelog.addLogFilter(Predicate.not(GitCommit::isMerge));
+        changelog.addCommitPathExclusion(PathRule.contains("/src/test/"));
+        changelog.addCommitPathExclusion(PathRule.suffix(".md"));
+        return changelog;
+    }
+}
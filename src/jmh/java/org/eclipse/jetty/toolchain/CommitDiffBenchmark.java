@@ -0,0 +1,179 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Diff the commits of a {@link SyntheticRepository} generated at setup, or the most recent commits of
+ * the {@link #repo} if set: one {@code git diff} at a time (the original implementation), resolving {@code sha^}
+ * with a reused {@link DiffFormatter}, with a {@link CommitDiffer},
+ * and the diff stage of {@link ChangelogTool#collectPathsInCommits(java.util.Collection)} at each {@link Concurrency}.
+ * <p>
+ * Run with {@code -Djmh.includes=CommitDiffBenchmark}, and {@code -prof gc} for the allocations of each.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommitDiffBenchmark
+{
+    /**
+     * The number of commits to diff.
+     */
+    @Param({"1000"})
+    public int commits;
+
+    /**
+     * The repository to diff the commits of, or empty for a synthetic one.
+     */
+    @Param({""})
+    public String repo;
+
+    @State(Scope.Benchmark)
+    public static class Concurrency
+    {
+        @Param({"1", "2", "4"})
+        public int concurrency;
+    }
+
+    private List<String> shas;
+    private ChangelogTool changelog;
+    private Git git;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        Path repoDir;
+        if (repo.isEmpty())
+        {
+            repoDir = MavenTestingUtils.getTargetTestingPath(CommitDiffBenchmark.class.getSimpleName() + "-" + commits);
+            FS.ensureEmpty(repoDir);
+            SyntheticRepository synthetic = new SyntheticRepository(repoDir, 42);
+            synthetic.init(40, 250);
+            for (int i = 0; i < commits; i++)
+            {
+                synthetic.commit(1 + (i % 20), "Change " + i);
+            }
+            synthetic.getRepository().close();
+            shas = synthetic.getCommits().stream().skip(1).map(ObjectId::getName).collect(Collectors.toList());
+        }
+        else
+        {
+            repoDir = Path.of(repo);
+            try (Git log = Git.open(repoDir.toFile()))
+            {
+                shas = StreamSupport.stream(log.log().setMaxCount(commits).call().spliterator(), false)
+                    .filter((commit) -> commit.getParentCount() > 0)
+                    .map((commit) -> commit.getId().getName())
+                    .collect(Collectors.toList());
+            }
+        }
+
+        changelog = new ChangelogTool(repoDir);
+        changelog.addCommitPathExclusionFilter((filename) -> filename.contains("/src/test/"));
+        changelog.addCommitPathExclusionFilter((filename) -> filename.endsWith(".md"));
+        git = Git.open(repoDir.toFile());
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        git.close();
+    }
+
+    @Benchmark
+    public void gitDiff(Blackhole blackhole) throws Exception
+    {
+        Repository repository = git.getRepository();
+        for (String sha : shas)
+        {
+            blackhole.consume(git.diff()
+                .setOldTree(newTreeParser(repository, sha + "^"))
+                .setNewTree(newTreeParser(repository, sha))
+                .call());
+        }
+    }
+
+    @Benchmark
+    public void resolveParent(Blackhole blackhole) throws IOException
+    {
+        Repository repository = git.getRepository();
+        try (ObjectReader reader = repository.newObjectReader();
+             RevWalk walk = new RevWalk(reader);
+             DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE))
+        {
+            diffFormatter.setReader(reader, repository.getConfig());
+            for (String sha : shas)
+            {
+                CanonicalTreeParser oldTree = new CanonicalTreeParser();
+                oldTree.reset(reader, walk.parseCommit(repository.resolve(sha + "^")).getTree());
+                CanonicalTreeParser newTree = new CanonicalTreeParser();
+                newTree.reset(reader, walk.parseCommit(repository.resolve(sha)).getTree());
+                blackhole.consume(diffFormatter.scan(oldTree, newTree));
+            }
+        }
+    }
+
+    @Benchmark
+    public void commitDiffer(Blackhole blackhole) throws IOException
+    {
+        try (CommitDiffer differ = changelog.newCommitDiffer())
+        {
+            for (String sha : shas)
+            {
+                blackhole.consume(differ.diff(differ.parseCommit(ObjectId.fromString(sha))));
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, Set<String>> collectPathsInCommits(Concurrency concurrency) throws Exception
+    {
+        changelog.setDiffConcurrency(concurrency.concurrency);
+        return changelog.collectPathsInCommits(shas);
+    }
+
+    private static CanonicalTreeParser newTreeParser(Repository repository, String revision) throws IOException
+    {
+        try (ObjectReader reader = repository.newObjectReader();
+             RevWalk walk = new RevWalk(reader))
+        {
+            CanonicalTreeParser parser = new CanonicalTreeParser();
+            parser.reset(reader, walk.parseCommit(repository.resolve(revision)).getTree());
+            return parser;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jgit.lib.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Collect the paths of the commits of a {@link SyntheticRepository} generated at setup,
+ * excluding test sources, webapps, markdown and properties files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommitPathsBenchmark
+{
+    private static final int COMMITS = 50;
+
+    /**
+     * The number of files changed per commit.
+     */
+    @Param({"10", "1000"})
+    public int changes;
+
+    private List<ObjectId> commits;
+    private ChangelogTool changelog;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        Path repoDir = MavenTestingUtils.getTargetTestingPath(CommitPathsBenchmark.class.getSimpleName() + "-" + changes);
+        FS.ensureEmpty(repoDir);
+        SyntheticRepository synthetic = new SyntheticRepository(repoDir, 42);
+        synthetic.init(40, 250);
+        for (int i = 0; i < COMMITS; i++)
+        {
+            synthetic.commit(changes, "Change " + i);
+        }
+        synthetic.getRepository().close();
+        commits = synthetic.getCommits().subList(1, synthetic.getCommits().size());
+
+        changelog = new ChangelogTool(repoDir);
+        changelog.addCommitPathExclusion(PathRule.contains("/src/test/"));
+        changelog.addCommitPathExclusion(PathRule.contains("/src/main/webapp/"));
+        changelog.addCommitPathExclusion(PathRule.suffix(".md"));
+        changelog.addCommitPathExclusion(PathRule.suffix(".properties"));
+    }
+
+    @Benchmark
+    public void collectPathsInCommit(Blackhole blackhole) throws IOException
+    {
+        try (CommitDiffer differ = changelog.newCommitDiffer())
+        {
+            for (ObjectId id : commits)
+            {
+                blackhole.consume(changelog.collectPathsInCommit(differ, differ.parseCommit(id)));
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ChangelogTool#resolveCommits(String, String)} of a large range of a {@link SyntheticProject} generated at setup,
+ * building the table of the commits and the issues referencing them.
+ * <p>
+ * Run with {@code -Djmh.includes=CommitTableBenchmark}, and {@code -prof gc} for the allocations of the table.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CommitTableBenchmark
+{
+    @Param({"10000"})
+    public int commits;
+
+    private Path gitDir;
+    private String oldTag;
+    private String newTag;
+    private String branch;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath(CommitTableBenchmark.class.getSimpleName() + "-" + commits);
+        FS.ensureEmpty(testDir);
+        gitDir = testDir.resolve("repo");
+
+        SyntheticProject project = new SyntheticProject(gitDir, 42);
+        project.setCommits(commits);
+        project.setReleaseBranches(4);
+        project.setTags(10);
+        project.setContributors(200);
+        project.generate();
+        project.getRepository().getRepository().close();
+        oldTag = project.getOldTag();
+        newTag = project.getNewTag();
+        branch = project.getBranch();
+    }
+
+    @Benchmark
+    public ChangelogTool resolveCommits() throws Exception
+    {
+        ChangelogTool changelog = new ChangelogTool(gitDir);
+        changelog.setBranch(branch);
+        changelog.setOnelineOutput(true);
+        changelog.addLogFilter(Predicate.not(GitCommit::isMerge));
+        changelog.resolveCommits(oldTag, newTag);
+        return changelog;
+    }
+}
@@ -0,0 +1,83 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import org.eclipse.jetty.toolchain.github.GitHubApi;
+import org.eclipse.jetty.toolchain.github.IssueEvents;
+import org.eclipse.jetty.toolchain.github.PullRequest;
+import org.eclipse.jetty.toolchain.github.PullRequestCommits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Decode recorded GitHub responses with the {@link Gson} of {@link GitHubApi#newGson()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GitHubDecodeBenchmark
+{
+    private Gson gson;
+    private byte[] pullRequest;
+    private byte[] pullRequestCommits;
+    private byte[] issueEvents;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        gson = GitHubApi.newGson();
+        pullRequest = read("pull-request-5676.json");
+        pullRequestCommits = read("pull-request-5676-commits.json");
+        issueEvents = read("issue-5675-events.json");
+    }
+
+    private static byte[] read(String fixture) throws IOException
+    {
+        try (InputStream in = BenchmarkFixtures.open(fixture))
+        {
+            return in.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public PullRequest decodePullRequest()
+    {
+        return decode(pullRequest, PullRequest.class);
+    }
+
+    @Benchmark
+    public PullRequestCommits decodePullRequestCommits()
+    {
+        return decode(pullRequestCommits, PullRequestCommits.class);
+    }
+
+    @Benchmark
+    public IssueEvents decodeIssueEvents()
+    {
+        return decode(issueEvents, IssueEvents.class);
+    }
+
+    private <T> T decode(byte[] json, Type type)
+    {
+        return gson.fromJson(new InputStreamReader(new ByteArrayInputStream(json), UTF_8), type);
+    }
+}
@@ -0,0 +1,93 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Scan a corpus of Jetty commit messages and issue bodies for issue references,
+ * comparing {@link IssueScanner} against the previous regular expression implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IssueScannerBenchmark
+{
+    private String[] messages;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        messages = BenchmarkFixtures.loadMessages().toArray(new String[0]);
+    }
+
+    @Benchmark
+    public void scanSet(Blackhole blackhole)
+    {
+        for (String message : messages)
+        {
+            blackhole.consume(IssueScanner.scan(message));
+        }
+    }
+
+    @Benchmark
+    public void scanSink(Blackhole blackhole)
+    {
+        for (String message : messages)
+        {
+            IssueScanner.scan(message, blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void scanRegex(Blackhole blackhole)
+    {
+        for (String message : messages)
+        {
+            blackhole.consume(regexScan(message));
+        }
+    }
+
+    /**
+     * The previous implementation of {@link IssueScanner#scan(String)}, as a baseline.
+     */
+    private static Set<Integer> regexScan(String message)
+    {
+        if (message.contains("@dependabot"))
+            return Set.of();
+
+        Set<Integer> issueNums = new HashSet<>();
+        regexScan(issueNums, message, "s*#([0-9]{4,6})");
+        regexScan(issueNums, message, "Issue ([0-9]{4,6})");
+        return issueNums;
+    }
+
+    private static void regexScan(Set<Integer> issueNums, String message, String regex)
+    {
+        Matcher matcher = Pattern.compile(regex).matcher(message);
+        int offset = 0;
+        while (matcher.find(offset))
+        {
+            issueNums.add(Integer.parseInt(matcher.group(1)));
+            offset = matcher.end();
+        }
+    }
+}
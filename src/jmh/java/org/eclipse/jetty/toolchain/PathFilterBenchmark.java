@@ -0,0 +1,97 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jgit.lib.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compare excluding paths with {@link Predicate}s after the diff against {@link PathRule}s applied during the diff,
+ * as a TreeFilter, on commits of a {@link SyntheticRepository} touching thousands of files.
+ * <p>
+ * Run with {@code -prof gc} for the allocations of each.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathFilterBenchmark
+{
+    @Param({"predicates", "rules"})
+    public String exclusions;
+
+    @Param({"100"})
+    public int commits;
+
+    /**
+     * The number of files changed per commit.
+     */
+    @Param({"2000"})
+    public int changes;
+
+    private List<ObjectId> ids;
+    private ChangelogTool changelog;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        Path repoDir = MavenTestingUtils.getTargetTestingPath(PathFilterBenchmark.class.getSimpleName() + "-" + exclusions);
+        FS.ensureEmpty(repoDir);
+        SyntheticRepository synthetic = new SyntheticRepository(repoDir, 42);
+        synthetic.init(40, 250);
+        for (int i = 0; i < commits; i++)
+        {
+            synthetic.commit(changes, "Change " + i);
+        }
+        synthetic.getRepository().close();
+        ids = synthetic.getCommits().subList(1, synthetic.getCommits().size());
+
+        changelog = new ChangelogTool(repoDir);
+        if ("predicates".equals(exclusions))
+        {
+            changelog.addCommitPathExclusionFilter((filename) -> filename.contains("/src/test/"));
+            changelog.addCommitPathExclusionFilter((filename) -> filename.contains("/src/main/webapp/"));
+            changelog.addCommitPathExclusionFilter((filename) -> filename.endsWith(".md"));
+            changelog.addCommitPathExclusionFilter((filename) -> filename.endsWith(".properties"));
+        }
+        else
+        {
+            changelog.addCommitPathExclusion(PathRule.contains("/src/test/"));
+            changelog.addCommitPathExclusion(PathRule.contains("/src/main/webapp/"));
+            changelog.addCommitPathExclusion(PathRule.suffix(".md"));
+            changelog.addCommitPathExclusion(PathRule.suffix(".properties"));
+        }
+    }
+
+    @Benchmark
+    public void collectPathsInCommit(Blackhole blackhole) throws IOException
+    {
+        try (CommitDiffer differ = changelog.newCommitDiffer())
+        {
+            for (ObjectId id : ids)
+            {
+                blackhole.consume(changelog.collectPathsInCommit(differ, differ.parseCommit(id)));
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import org.eclipse.jetty.toolchain.gson.EntriesWriter;
+import org.eclipse.jetty.toolchain.gson.GitCommitTypeAdapter;
+import org.eclipse.jetty.toolchain.gson.IssueTypeAdapter;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jgit.lib.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Load the commits and issues of a {@link ChangelogSnapshot}, against the Gson parsing of
+ * the same commits and issues from {@code commits.json} and {@code issues.json}, generated at setup.
+ * <p>
+ * Run with {@code -Djmh.includes=SnapshotBenchmark}, and {@code -prof gc} for the allocations of each.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotBenchmark
+{
+    private static final Type COMMITS_TYPE = new TypeToken<List<GitCommit>>() {}.getType();
+    private static final Type ISSUES_TYPE = new TypeToken<List<Issue>>() {}.getType();
+
+    @Param({"100000"})
+    public int commits;
+
+    private Path commitsJson;
+    private Path issuesJson;
+    private Path snapshotFile;
+    private Gson gson;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath(SnapshotBenchmark.class.getSimpleName() + "-" + commits);
+        FS.ensureEmpty(testDir);
+        commitsJson = testDir.resolve("commits.json");
+        issuesJson = testDir.resolve("issues.json");
+        snapshotFile = testDir.resolve("changelog.snapshot");
+
+        List<GitCommit> generatedCommits = new ArrayList<>();
+        List<Issue> generatedIssues = new ArrayList<>();
+        generate(commits, generatedCommits, generatedIssues);
+        write(commitsJson, generatedCommits, new GitCommitTypeAdapter());
+        write(issuesJson, generatedIssues, new IssueTypeAdapter());
+        ChangelogSnapshot.write(snapshotFile, generatedCommits, generatedIssues);
+
+        gson = new GsonBuilder()
+            .registerTypeAdapter(GitCommit.class, new GitCommitTypeAdapter())
+            .registerTypeAdapter(Issue.class, new IssueTypeAdapter())
+            .create();
+    }
+
+    @Benchmark
+    public void parseJson(Blackhole blackhole) throws IOException
+    {
+        try (BufferedReader reader = Files.newBufferedReader(commitsJson, UTF_8))
+        {
+            blackhole.consume(gson.fromJson(reader, COMMITS_TYPE));
+        }
+        try (BufferedReader reader = Files.newBufferedReader(issuesJson, UTF_8))
+        {
+            blackhole.consume(gson.fromJson(reader, ISSUES_TYPE));
+        }
+    }
+
+    @Benchmark
+    public ChangelogSnapshot loadSnapshot() throws IOException
+    {
+        return ChangelogSnapshot.load(snapshotFile);
+    }
+
+    /**
+     * Commits touching files of a few thousand paths, by a few hundred authors, on a few branches,
+     * with an issue for every few commits.
+     */
+    private static void generate(int commitCount, List<GitCommit> commits, List<Issue> issues)
+    {
+        Random random = new Random(42);
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+        {
+            paths.add(String.format("jetty-module-%d/src/main/java/org/eclipse/jetty/module%d/Class%d.java", i % 60, i % 60, i));
+        }
+        List<Author> authors = new ArrayList<>();
+        for (int i = 0; i < 300; i++)
+        {
+            authors.add(new Author("Contributor " + i).github("contributor" + i).email("contributor" + i + "@example.com"));
+        }
+        List<String> branches = List.of("origin/jetty-9.4.x", "origin/jetty-10.0.x", "origin/jetty-11.0.x", "origin/jetty-12.0.x");
+
+        Issue issue = null;
+        for (int i = 0; i < commitCount; i++)
+        {
+            if ((issue == null) || random.nextInt(5) == 0)
+            {
+                issue = new Issue(1000 + issues.size());
+                issue.setTitle("Issue #" + issue.getNum() + " - fix the module " + random.nextInt(60));
+                issue.setBody("Description of the issue " + issue.getNum() + "\n\n".repeat(3) + "Steps to reproduce: ...");
+                issue.setType(random.nextBoolean() ? Issue.Type.PULL_REQUEST : Issue.Type.ISSUE);
+                issue.setBaseRef(branches.get(random.nextInt(branches.size())).substring("origin/".length()));
+                issue.addLabels(List.of("Bug", "Enhancement").subList(0, 1 + random.nextInt(2)));
+                issue.addReferencedIssues(List.of(1000 + random.nextInt(issues.size() + 1)));
+                issues.add(issue);
+            }
+
+            GitCommit commit = new GitCommit(ObjectId.fromString(String.format("%040x", (long)i * 0x9E3779B97F4A7C15L).substring(0, 40)));
+            commit.setAuthor(authors.get(random.nextInt(authors.size())));
+            commit.setTitle(issue.getTitle() + " (part " + i + ")");
+            commit.setBody("Signed-off-by: " + commit.getAuthor().name() + " <" + commit.getAuthor().emails().get(0) + ">");
+            commit.setCommitTime(ZonedDateTime.ofInstant(Instant.ofEpochSecond(1_600_000_000L + i * 600L), ZoneOffset.UTC));
+            List<String> files = new ArrayList<>();
+            for (int f = random.nextInt(8); f >= 0; f--)
+            {
+                files.add(paths.get(random.nextInt(paths.size())));
+            }
+            commit.setFiles(files);
+            commit.setBranches(branches.subList(random.nextInt(branches.size()), branches.size()));
+            commit.addIssueRef(issue.getNum());
+            commit.addPullRequestRef(issue.getNum());
+            issue.addCommit(commit);
+            commits.add(commit);
+        }
+    }
+
+    private static <T> void write(Path file, List<T> entries, TypeAdapter<T> adapter) throws IOException
+    {
+        try (EntriesWriter<T> writer = new EntriesWriter<>(Files.newBufferedWriter(file, UTF_8), adapter, false))
+        {
+            for (T entry : entries)
+            {
+                writer.write(entry);
+            }
+        }
+    }
+}
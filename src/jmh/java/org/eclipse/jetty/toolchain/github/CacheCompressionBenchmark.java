@@ -0,0 +1,115 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Decode the cached bodies, raw or compressed by {@link CacheCompression}, with the {@link Gson} of {@link GitHubApi#newGson()}.
+ * <p>
+ * The bodies are the {@code .json} files of the {@link #cacheDir}, eg: {@code -p cacheDir=$HOME/.cache/api.github.com},
+ * or the recorded GitHub responses if empty. The size of the bodies, compressed with and without the dictionary,
+ * is printed at setup.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheCompressionBenchmark
+{
+    @Param({""})
+    public String cacheDir;
+
+    private Gson gson;
+    private CacheCompression compression;
+    private List<byte[]> bodies;
+    private List<byte[]> compressed;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        Path dir = cacheDir.isEmpty() ? MavenTestingUtils.getTestResourcesPath().resolve("github") : Paths.get(cacheDir);
+        bodies = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(dir))
+        {
+            for (Path file : files.filter((f) -> f.getFileName().toString().endsWith(".json")).collect(Collectors.toList()))
+            {
+                byte[] body = Files.readAllBytes(file);
+                // Skip the not-found entries
+                if (body.length > 1)
+                    bodies.add(body);
+            }
+        }
+
+        gson = GitHubApi.newGson();
+        compression = CacheCompression.load();
+        CacheCompression noDictionary = new CacheCompression(new byte[0], Deflater.DEFAULT_COMPRESSION);
+        compressed = new ArrayList<>();
+        long rawSize = 0;
+        long compressedSize = 0;
+        long noDictionarySize = 0;
+        for (byte[] body : bodies)
+        {
+            byte[] c = compression.compress(body);
+            compressed.add(c);
+            rawSize += body.length;
+            compressedSize += c.length;
+            noDictionarySize += noDictionary.compress(body).length;
+        }
+        System.out.printf("%n%,d entries from %s: %,d bytes, deflate %,d bytes (%.1f%%), deflate+dictionary %,d bytes (%.1f%%)%n",
+            bodies.size(), dir, rawSize, noDictionarySize, 100.0 * noDictionarySize / rawSize, compressedSize, 100.0 * compressedSize / rawSize);
+    }
+
+    @Benchmark
+    public void decodeRaw(Blackhole blackhole)
+    {
+        for (byte[] body : bodies)
+        {
+            blackhole.consume(gson.fromJson(new String(body, UTF_8), JsonElement.class));
+        }
+    }
+
+    @Benchmark
+    public void decodeCompressed(Blackhole blackhole) throws IOException
+    {
+        for (byte[] c : compressed)
+        {
+            try (InputStream in = compression.decompress(c);
+                 Reader reader = new InputStreamReader(in, UTF_8))
+            {
+                blackhole.consume(gson.fromJson(reader, JsonElement.class));
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare the directory and pack cache stores, filled at setup with the recorded GitHub responses,
+ * on open time (with a first read) and random-read latency.
+ * <p>
+ * The disk footprint of the store is printed at setup, the allocated size counting whole 4 KB blocks per file.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheStoreBenchmark
+{
+    private static final int BLOCK_SIZE = 4096;
+
+    @Param({"directory", "pack"})
+    public String store;
+
+    @Param({"50000"})
+    public int entries;
+
+    private Path storePath;
+    private List<String> paths;
+    private CacheStore opened;
+    private Random random;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        Path testDir = MavenTestingUtils.getTargetTestingPath(CacheStoreBenchmark.class.getSimpleName() + "-" + store);
+        FS.ensureEmpty(testDir);
+        storePath = testDir.resolve("directory".equals(store) ? "dir" : "cache.pack");
+
+        List<byte[]> bodies = new ArrayList<>();
+        for (String fixture : List.of("issue-eclipse-jetty.project-5675.json", "issue-eclipse-jetty.project-5676.json",
+            "pull-request-5676.json", "pull-request-5676-commits.json", "issue-5675-events.json", "commit.json"))
+        {
+            bodies.add(Files.readAllBytes(MavenTestingUtils.getTestResourcePathFile("github/" + fixture)));
+        }
+        paths = new ArrayList<>();
+        for (int i = 0; i < entries; i++)
+        {
+            paths.add(String.format("/repos/eclipse/jetty.project/%s/%d", (i % 2 == 0) ? "issues" : "pulls", 1000 + i));
+        }
+
+        try (CacheStore cacheStore = open())
+        {
+            for (int i = 0; i < paths.size(); i++)
+            {
+                cacheStore.put(paths.get(i), new CacheStore.Record(bodies.get(i % bodies.size()), Map.of("etag", "W/\"" + i + "\"", "fetched", "1000")));
+            }
+        }
+        printFootprint();
+
+        opened = open();
+        random = new Random(42);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        opened.close();
+    }
+
+    private CacheStore open() throws IOException
+    {
+        return "directory".equals(store) ? new DirectoryCacheStore(storePath) : new PackCacheStore(storePath);
+    }
+
+    @Benchmark
+    public CacheStore.Record openAndRead() throws IOException
+    {
+        try (CacheStore cacheStore = open())
+        {
+            return cacheStore.get(paths.get(0));
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public CacheStore.Record randomRead() throws IOException
+    {
+        return opened.get(paths.get(random.nextInt(paths.size())));
+    }
+
+    private void printFootprint() throws IOException
+    {
+        long files = 0;
+        long bytes = 0;
+        long allocated = 0;
+        try (Stream<Path> walk = Files.walk(storePath))
+        {
+            for (Path file : walk.filter(Files::isRegularFile).collect(Collectors.toList()))
+            {
+                long size = Files.size(file);
+                files++;
+                bytes += size;
+                allocated += ((size + BLOCK_SIZE - 1) / BLOCK_SIZE) * BLOCK_SIZE;
+            }
+        }
+        System.out.printf("%n%s: %,d entries in %,d files, %,d bytes, ~%,d bytes allocated%n", store, entries, files, bytes, allocated);
+    }
+}
@@ -0,0 +1,121 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Concurrent requests through the {@link RateLimiter} against the {@link StubGitHubServer}
+ * with the 5000 requests per hour budget of GitHub, the hour being compressed into {@link #window} seconds.
+ * <p>
+ * At best, a run takes as long as the budget allows: a window for each 5000 requests after the first 5000,
+ * which are sent at once (eg: 20 seconds for the default 12000 requests).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class RateLimiterBenchmark
+{
+    private static final int LIMIT = 5000;
+
+    @Param({"12000"})
+    public int requests;
+
+    @Param({"10"})
+    public int window;
+
+    @Param({"8"})
+    public int concurrency;
+
+    @Param({"0"})
+    public int latency;
+
+    private StubGitHubServer server;
+    private Path cacheDir;
+    private GitHubApi github;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        String issue = Files.readString(MavenTestingUtils.getTestResourcePathFile("github/issue-eclipse-jetty.project-5675.json"), UTF_8);
+        server = new StubGitHubServer();
+        for (int i = 1; i <= requests; i++)
+        {
+            server.addResource("/repos/eclipse/jetty.project/issues/" + i, issue);
+        }
+        server.setLatency(Duration.ofMillis(latency));
+        cacheDir = MavenTestingUtils.getTargetTestingPath(RateLimiterBenchmark.class.getSimpleName());
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        server.close();
+    }
+
+    /**
+     * A new window, and an empty cache for all the requests to be sent.
+     */
+    @Setup(Level.Invocation)
+    public void reset()
+    {
+        FS.ensureEmpty(cacheDir);
+        server.setRateLimit(LIMIT, Duration.ofSeconds(window));
+        github = server.newGitHubApi(new Cache(cacheDir));
+    }
+
+    @Benchmark
+    public void issues() throws Exception
+    {
+        List<Callable<Issue>> tasks = new ArrayList<>();
+        for (int i = 1; i <= requests; i++)
+        {
+            int issueNum = i;
+            tasks.add(() -> github.issue("eclipse", "jetty.project", issueNum));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try
+        {
+            for (Future<Issue> result : executor.invokeAll(tasks))
+            {
+                result.get();
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        github.getCache().close();
+    }
+}
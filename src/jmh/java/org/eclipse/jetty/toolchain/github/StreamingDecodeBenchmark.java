@@ -0,0 +1,117 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Request and decode a large {@code pulls/N/commits} response, the recorded commits repeated,
+ * via an intermediate {@code String} (the old path) vs streaming from the response body.
+ * <p>
+ * Every request goes to a local server, not revalidated from the cache.
+ * Run with {@code -Djmh.includes=StreamingDecodeBenchmark}, and {@code -prof gc} for the allocations of each.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamingDecodeBenchmark
+{
+    private static final String PATH = "/repos/eclipse/jetty.project/pulls/5676/commits";
+
+    @Param({"250"})
+    public int commits;
+
+    private Gson gson;
+    private HttpServer server;
+    private GitHubApi github;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        gson = GitHubApi.newGson();
+        JsonArray recorded = gson.fromJson(Files.readString(MavenTestingUtils.getTestResourcePathFile("github/pull-request-5676-commits.json"), UTF_8), JsonArray.class);
+        JsonArray large = new JsonArray();
+        for (int i = 0; large.size() < commits; i++)
+        {
+            large.add(recorded.get(i % recorded.size()).deepCopy());
+        }
+        byte[] body = gson.toJson(large).getBytes(UTF_8);
+
+        // No ETag, so that every response is a 200 with the full body
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/rate_limit", (exchange) ->
+        {
+            long reset = (System.currentTimeMillis() / 1000) + 3600;
+            String rate = String.format("{\"limit\":5000000,\"used\":0,\"remaining\":5000000,\"reset\":%d}", reset);
+            respond(exchange, String.format("{\"resources\":{\"core\":%s},\"rate\":%s}", rate, rate).getBytes(UTF_8));
+        });
+        server.createContext(PATH, (exchange) -> respond(exchange, body));
+        server.start();
+
+        Path cacheDir = MavenTestingUtils.getTargetTestingPath(StreamingDecodeBenchmark.class.getSimpleName());
+        FS.ensureEmpty(cacheDir);
+        Cache cache = new Cache(cacheDir);
+        cache.setTimeToLive("pull-commits", Duration.ZERO);
+        github = new GitHubApi(URI.create("http://localhost:" + server.getAddress().getPort() + "/"), "test-token", cache);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        github.getCache().close();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public PullRequestCommits viaString() throws IOException, InterruptedException
+    {
+        String json = github.raw(PATH, (builder) -> builder.GET().build());
+        return gson.fromJson(json, PullRequestCommits.class);
+    }
+
+    @Benchmark
+    public PullRequestCommits streaming() throws IOException, InterruptedException
+    {
+        return github.pullRequestCommits("eclipse", "jetty.project", 5676);
+    }
+
+    private static void respond(HttpExchange exchange, byte[] buf) throws IOException
+    {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, buf.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(buf);
+        }
+    }
+}
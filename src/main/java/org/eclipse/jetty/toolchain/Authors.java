@@ -4,104 +4,199 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.lang.reflect.Type;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonWriter;
+import org.eclipse.jetty.toolchain.gson.AuthorTypeAdapter;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-public class Authors extends ArrayList<Author>
+/**
+ * The known authors, indexed by their (case insensitive) emails and GitHub logins.
+ * <p>
+ * Authors are indexed when they are added, so adding one does not depend on how many are known.
+ * Lookups and additions are safe from concurrent threads, without a lock.
+ * An author is found by the emails and login it had when it was added, or by an email added with
+ * {@link #addEmail(Author, String)}.
+ * </p>
+ */
+public class Authors implements Iterable<Author>
 {
+    private static final Type AUTHOR_LIST = new TypeToken<List<Author>>() {}.getType();
+
     public static Authors load() throws IOException
     {
         URL url = Authors.class.getClassLoader().getResource("authors.json");
         try (InputStream in = url.openStream();
              InputStreamReader reader = new InputStreamReader(in, UTF_8))
         {
-            Gson gson = new Gson();
-            Authors authors = gson.fromJson(reader, Authors.class);
+            List<Author> loaded = newGson().fromJson(reader, AUTHOR_LIST);
+            Authors authors = new Authors();
+            loaded.forEach(authors::add);
             return authors;
         }
     }
 
-    private Map<String, Integer> emailMap = new HashMap<>();
-
-    public Authors()
+    private static Gson newGson()
     {
-//        add(new Author("Greg Wilkins").committer(true).email("gregw@webtide.com"));
-//        add(new Author("Jan Bartel").committer(true).email("janb@webtide.com"));
-//        add(new Author("Simone Bordet").committer(true).email("simone.bordet@gmail.com"));
-//        add(new Author("Jesse McConnell").committer(true).email("jesse.mcconnell@gmail.com"));
-
-//        add("gregw@webtide.com", "Greg Wilkins", true);
-//        add("janb@webtide.com", "Jan Bartel", true);
-//        add("simone.bordet@gmail.com", "Simone Bordet", true);
-//        add("jesse.mcconnell@gmail.com", "Jesse McConnell", true);
-        /*
-        add("oliver.lamy@gmail.com", "Olivier Lamy", true);
-        add("olamy@webtide.com", "Olivier Lamy", true);
-        add("olamy@apache.org", "Olivier Lamy", true);
-        add("ctwalker@gmail.com", "Chris Walker", true);
-        add("lachlan@webtide.com", "Lachlan Roberts", true);
-        add("lorban@bitronix.be", "Ludovic Orban", true);
-         */
+        return new GsonBuilder().setPrettyPrinting()
+            .registerTypeAdapter(Author.class, new AuthorTypeAdapter())
+            .create();
     }
 
-    @Override
+    // In the order added, for the saved authors
+    private final Queue<Author> authors = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<String, Author> emailIndex = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Author> githubIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Add the author, the latest author added for an email or login being the one found for it.
+     *
+     * @param author the author
+     * @return true
+     */
     public boolean add(Author author)
     {
-        boolean ret = super.add(author);
-        updateEmailMap();
-        return ret;
+        authors.add(author);
+        for (String email : author.emails())
+        {
+            emailIndex.put(normalize(email), author);
+        }
+        if (author.github() != null)
+            githubIndex.put(normalize(author.github()), author);
+        return true;
     }
 
-    public Author find(String email)
+    /**
+     * Add the author, unless an author is already known for its first email,
+     * as done concurrently for the unknown author of a commit.
+     *
+     * @param author the author, with at least an email
+     * @return the author known for the email, either the given one or the one added before it
+     */
+    public Author addIfAbsent(Author author)
     {
-        Integer idx = emailMap.get(email);
-        if (idx == null)
-            return null;
-        return get(idx);
+        Author known = emailIndex.putIfAbsent(normalize(author.emails().get(0)), author);
+        if (known != null)
+            return known;
+        authors.add(author);
+        for (String email : author.emails())
+        {
+            emailIndex.putIfAbsent(normalize(email), author);
+        }
+        if (author.github() != null)
+            githubIndex.putIfAbsent(normalize(author.github()), author);
+        return author;
     }
 
-    private void updateEmailMap()
+    /**
+     * Add another email to a known author, such as the email of a commit by a known GitHub login.
+     *
+     * @param author the known author
+     * @param email the other email
+     */
+    public void addEmail(Author author, String email)
     {
-        emailMap.clear();
-        int size = this.size();
-        for (int i = 0; i < size; i++)
+        if (emailIndex.putIfAbsent(normalize(email), author) == null)
+        {
+            // The emails are only read once all the authors are added, by save()
+            synchronized (author)
+            {
+                author.email(email);
+            }
+        }
+    }
+
+    /**
+     * Set the GitHub login resolved for an author added without one, merging it into the author
+     * already known for the login, if any.
+     *
+     * @param author the author added without a login
+     * @param login the GitHub login of the author
+     * @return the author for the login, either the given one or the one it was merged into
+     */
+    public Author setGithub(Author author, String login)
+    {
+        Author known = githubIndex.putIfAbsent(normalize(login), author);
+        if ((known == null) || (known == author))
+        {
+            author.github(login);
+            return author;
+        }
+
+        authors.remove(author);
+        for (String email : author.emails())
         {
-            Author author = this.get(i);
-            for (String email : author.emails())
+            if (emailIndex.replace(normalize(email), author, known))
             {
-                emailMap.put(email, i);
+                synchronized (known)
+                {
+                    known.email(email);
+                }
             }
         }
+        return known;
+    }
+
+    public Author find(String email)
+    {
+        if (email == null)
+            return null;
+        return emailIndex.get(normalize(email));
+    }
+
+    public Author findByGithub(String login)
+    {
+        if (login == null)
+            return null;
+        return githubIndex.get(normalize(login));
+    }
+
+    public int size()
+    {
+        return authors.size();
+    }
+
+    @Override
+    public Iterator<Author> iterator()
+    {
+        return authors.iterator();
     }
 
     public void save(Path outputFile) throws IOException
     {
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        Gson gson = newGson();
         try (BufferedWriter writer = Files.newBufferedWriter(outputFile, UTF_8);
              JsonWriter jsonWriter = gson.newJsonWriter(writer))
         {
-            gson.toJson(this, Authors.class, jsonWriter);
+            gson.toJson(new ArrayList<>(authors), AUTHOR_LIST, jsonWriter);
         }
     }
 
     public boolean isCommitter(String email)
     {
-        Integer idx = emailMap.get(email);
-        if (idx == null)
-            return false;
-        Author author = get(idx);
+        Author author = find(email);
         if (author == null)
             return false;
         return author.committer();
     }
+
+    private static String normalize(String key)
+    {
+        return key.toLowerCase(Locale.US);
+    }
 }
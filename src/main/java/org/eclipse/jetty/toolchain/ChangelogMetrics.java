@@ -0,0 +1,313 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import org.eclipse.jetty.toolchain.github.Cache;
+import org.eclipse.jetty.toolchain.github.GitHubApi;
+import org.eclipse.jetty.toolchain.github.RateLimiter;
+import org.eclipse.jetty.toolchain.github.RequestStats;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Where the time of a {@link ChangelogTool} run goes: the wall and CPU time of each stage,
+ * the stages of the commit walk, and the requests, cache and rate limiter of the {@link GitHubApi}.
+ * <p>
+ * Exposed via JMX once {@link #register() registered}, and written as a JSON report by {@link #writeReport(Path)}.
+ * The CPU time of a stage is the CPU time of the whole process (all threads) while it runs,
+ * so the nested stages are included in the stage running them.
+ * </p>
+ */
+public class ChangelogMetrics implements ChangelogMetricsMXBean
+{
+    public static final String OBJECT_NAME = "org.eclipse.jetty.toolchain:type=ChangelogMetrics";
+
+    /**
+     * A run of a stage, timed until closed, along with the number of items (eg: commits, issues) it handled.
+     */
+    public class Stage implements AutoCloseable
+    {
+        private final String name;
+        private final long startNanos = System.nanoTime();
+        private final long startCpuNanos = getProcessCpuNanos();
+        private long items;
+
+        private Stage(String name)
+        {
+            this.name = name;
+        }
+
+        /**
+         * Count items handled by the run.
+         */
+        public void addItems(long items)
+        {
+            this.items += items;
+        }
+
+        @Override
+        public void close()
+        {
+            long wallNanos = System.nanoTime() - startNanos;
+            long cpuNanos = getProcessCpuNanos() - startCpuNanos;
+            synchronized (stages)
+            {
+                StageTotals totals = stages.computeIfAbsent(name, (key) -> new StageTotals());
+                totals.runs++;
+                totals.items += items;
+                totals.wallNanos += wallNanos;
+                totals.cpuNanos += cpuNanos;
+            }
+        }
+    }
+
+    private static class StageTotals
+    {
+        private long runs;
+        private long items;
+        private long wallNanos;
+        private long cpuNanos;
+    }
+
+    // In the order first run
+    private final Map<String, StageTotals> stages = new LinkedHashMap<>();
+    private final Supplier<GitHubApi> github;
+    private volatile List<CommitPipeline.Stage> walkStages = List.of();
+
+    /**
+     * @param github the API used by the run, null until connected
+     */
+    public ChangelogMetrics(Supplier<GitHubApi> github)
+    {
+        this.github = github;
+    }
+
+    /**
+     * Time a run of a stage, the runs of the same stage adding up.
+     *
+     * @param name the name of the stage
+     * @return the run, to close at the end of the stage
+     */
+    public Stage stage(String name)
+    {
+        return new Stage(name);
+    }
+
+    /**
+     * The stages of the pipeline of the commit walk, in which the time of the walk is spent.
+     */
+    public void setWalkStages(List<CommitPipeline.Stage> walkStages)
+    {
+        this.walkStages = List.copyOf(walkStages);
+    }
+
+    /**
+     * Register with the platform MBean server, replacing the metrics of a previous run.
+     */
+    public void register() throws JMException
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name))
+            server.unregisterMBean(name);
+        server.registerMBean(this, name);
+    }
+
+    @Override
+    public Map<String, Long> getStageWallMillis()
+    {
+        return getStageMillis((totals) -> totals.wallNanos);
+    }
+
+    @Override
+    public Map<String, Long> getStageCpuMillis()
+    {
+        return getStageMillis((totals) -> totals.cpuNanos);
+    }
+
+    private Map<String, Long> getStageMillis(ToLongFunction<StageTotals> nanos)
+    {
+        Map<String, Long> millis = new LinkedHashMap<>();
+        synchronized (stages)
+        {
+            stages.forEach((name, totals) -> millis.put(name, TimeUnit.NANOSECONDS.toMillis(nanos.applyAsLong(totals))));
+        }
+        return millis;
+    }
+
+    @Override
+    public Map<String, Long> getRequestCounts()
+    {
+        return getRequestStat(RequestStats.Endpoint::getRequests);
+    }
+
+    @Override
+    public Map<String, Long> getRequestP90Millis()
+    {
+        return getRequestStat((endpoint) -> endpoint.getPercentileMillis(90));
+    }
+
+    private Map<String, Long> getRequestStat(ToLongFunction<RequestStats.Endpoint> stat)
+    {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        GitHubApi api = github.get();
+        if (api != null)
+            api.getRequestStats().getEndpoints().forEach((name, endpoint) -> stats.put(name, stat.applyAsLong(endpoint)));
+        return stats;
+    }
+
+    @Override
+    public long getCacheHits()
+    {
+        GitHubApi api = github.get();
+        return (api == null) ? 0 : api.getCache().getHits();
+    }
+
+    @Override
+    public long getCacheMisses()
+    {
+        GitHubApi api = github.get();
+        return (api == null) ? 0 : api.getCache().getMisses();
+    }
+
+    @Override
+    public double getCacheHitRatio()
+    {
+        GitHubApi api = github.get();
+        return (api == null) ? 0 : api.getCache().getHitRatio();
+    }
+
+    @Override
+    public long getRateLimitDelayedMillis()
+    {
+        GitHubApi api = github.get();
+        return (api == null) ? 0 : api.getRateLimiter().getDelayedMillis();
+    }
+
+    @Override
+    public String getReport()
+    {
+        return new GsonBuilder().setPrettyPrinting().create().toJson(toJson());
+    }
+
+    /**
+     * Write the report of the run so far.
+     */
+    public void writeReport(Path output) throws IOException
+    {
+        try (BufferedWriter writer = Files.newBufferedWriter(output, UTF_8))
+        {
+            new GsonBuilder().setPrettyPrinting().create().toJson(toJson(), writer);
+        }
+    }
+
+    public JsonObject toJson()
+    {
+        JsonObject report = new JsonObject();
+
+        JsonObject stagesJson = new JsonObject();
+        synchronized (stages)
+        {
+            stages.forEach((name, totals) ->
+            {
+                JsonObject stage = new JsonObject();
+                stage.addProperty("runs", totals.runs);
+                stage.addProperty("items", totals.items);
+                stage.addProperty("wallMs", TimeUnit.NANOSECONDS.toMillis(totals.wallNanos));
+                stage.addProperty("cpuMs", TimeUnit.NANOSECONDS.toMillis(totals.cpuNanos));
+                stagesJson.add(name, stage);
+            });
+        }
+        report.add("stages", stagesJson);
+
+        JsonObject walkJson = new JsonObject();
+        for (CommitPipeline.Stage walkStage : walkStages)
+        {
+            JsonObject stage = new JsonObject();
+            stage.addProperty("commits", walkStage.getItems());
+            stage.addProperty("busyMs", TimeUnit.NANOSECONDS.toMillis(walkStage.getBusyNanos()));
+            stage.addProperty("blockedMs", TimeUnit.NANOSECONDS.toMillis(walkStage.getBlockedNanos()));
+            walkJson.add(walkStage.getName(), stage);
+        }
+        report.add("commitWalk", walkJson);
+
+        GitHubApi api = github.get();
+        if (api != null)
+            report.add("github", toJson(api));
+        return report;
+    }
+
+    private static JsonObject toJson(GitHubApi api)
+    {
+        JsonObject githubJson = new JsonObject();
+
+        JsonObject requestsJson = new JsonObject();
+        api.getRequestStats().getEndpoints().forEach((name, endpoint) ->
+        {
+            JsonObject endpointJson = new JsonObject();
+            endpointJson.addProperty("requests", endpoint.getRequests());
+            endpointJson.addProperty("failures", endpoint.getFailures());
+            endpointJson.addProperty("totalMs", endpoint.getTotalMillis());
+            endpointJson.addProperty("p50Ms", endpoint.getPercentileMillis(50));
+            endpointJson.addProperty("p90Ms", endpoint.getPercentileMillis(90));
+            endpointJson.addProperty("p99Ms", endpoint.getPercentileMillis(99));
+            endpointJson.addProperty("maxMs", endpoint.getMaxMillis());
+            // The number of requests up to each bound, in millis
+            JsonObject histogramJson = new JsonObject();
+            long[] histogram = endpoint.getHistogram();
+            for (int i = 0; i < histogram.length; i++)
+            {
+                String bound = (i < RequestStats.LATENCY_BOUNDS_MS.length) ? String.valueOf(RequestStats.LATENCY_BOUNDS_MS[i]) : "+Inf";
+                histogramJson.addProperty(bound, histogram[i]);
+            }
+            endpointJson.add("latencyMs", histogramJson);
+            requestsJson.add(name, endpointJson);
+        });
+        githubJson.add("requests", requestsJson);
+
+        Cache cache = api.getCache();
+        JsonObject cacheJson = new JsonObject();
+        cacheJson.addProperty("hits", cache.getHits());
+        cacheJson.addProperty("revalidations", cache.getRevalidations());
+        cacheJson.addProperty("notModified", cache.getNotModified());
+        cacheJson.addProperty("misses", cache.getMisses());
+        cacheJson.addProperty("hitRatio", cache.getHitRatio());
+        cacheJson.addProperty("lookupMs", cache.getLookupMillis());
+        githubJson.add("cache", cacheJson);
+
+        RateLimiter rateLimiter = api.getRateLimiter();
+        JsonObject rateLimiterJson = new JsonObject();
+        rateLimiterJson.addProperty("delayedRequests", rateLimiter.getDelayedRequests());
+        rateLimiterJson.addProperty("delayedMs", rateLimiter.getDelayedMillis());
+        githubJson.add("rateLimiter", rateLimiterJson);
+
+        return githubJson;
+    }
+
+    /**
+     * @return the CPU time of all the threads of the process, or 0 if not supported by the JVM
+     */
+    private static long getProcessCpuNanos()
+    {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean)
+            return ((com.sun.management.OperatingSystemMXBean)os).getProcessCpuTime();
+        return 0;
+    }
+}
@@ -0,0 +1,45 @@
+package org.eclipse.jetty.toolchain;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the {@link ChangelogMetrics} of a run.
+ */
+public interface ChangelogMetricsMXBean
+{
+    /**
+     * @return the wall time of each stage run so far, in millis
+     */
+    Map<String, Long> getStageWallMillis();
+
+    /**
+     * @return the CPU time of the process during each stage run so far, in millis
+     */
+    Map<String, Long> getStageCpuMillis();
+
+    /**
+     * @return the number of GitHub API requests sent, per endpoint
+     */
+    Map<String, Long> getRequestCounts();
+
+    /**
+     * @return the 90th percentile of the latency of the GitHub API requests, per endpoint, in millis
+     */
+    Map<String, Long> getRequestP90Millis();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getCacheHitRatio();
+
+    /**
+     * @return the total time the GitHub API requests were held back by the rate limiter, in millis
+     */
+    long getRateLimitDelayedMillis();
+
+    /**
+     * @return the full report, as JSON
+     */
+    String getReport();
+}
@@ -0,0 +1,487 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A compact binary snapshot of the commits and issues of a changelog, with the authors of the commits,
+ * to post-process or re-render them without parsing the JSON output.
+ * <p>
+ * Every string is stored once in a string table, and referenced by its index. The SHAs are stored
+ * once, as 20 bytes, in a sorted SHA table. The sets of issue numbers and of issue commits are sorted int arrays.
+ * A loaded snapshot has the same JSON form as the written commits and issues.
+ * </p>
+ * <p>
+ * Snapshot file layout (ints are big endian, a string, author or array of -1 is null):
+ * </p>
+ * <pre>
+ *   header:  "CLSN" (4 bytes), version (int)
+ *   strings: count (int), then per string: length (int), utf8
+ *   shas:    count (int), then per sha: 20 bytes
+ *   authors: count (int), then per author: github (string), name (string), committer (byte), emails (string array)
+ *   commits: count (int), then per commit: sha (sha index), author (author index), title (string), body (string),
+ *            flags (byte), [epoch second (long), nano (int), offset seconds (int) if it has a commit time],
+ *            files (string array), branches (string array), issue refs (int array), pull request refs (int array)
+ *   issues:  count (int), then per issue: num (int), title (string), body (string), base ref (string), type (byte),
+ *            skip (byte), referenced issues (int array), commits (sha index array), labels (string array)
+ *   arrays:  length (int), then the ints
+ * </pre>
+ */
+public class ChangelogSnapshot
+{
+    private static final byte[] MAGIC = {'C', 'L', 'S', 'N'};
+    private static final int VERSION = 1;
+    private static final int SHA_LENGTH = 20;
+    private static final int FLAG_MERGE = 0x01;
+    private static final int FLAG_SKIPPED = 0x02;
+    private static final int FLAG_COMMIT_TIME = 0x04;
+
+    private final List<GitCommit> commits;
+    private final List<Issue> issues;
+    private final List<Author> authors;
+
+    private ChangelogSnapshot(List<GitCommit> commits, List<Issue> issues, List<Author> authors)
+    {
+        this.commits = commits;
+        this.issues = issues;
+        this.authors = authors;
+    }
+
+    /**
+     * @return the commits, in the order written
+     */
+    public List<GitCommit> getCommits()
+    {
+        return commits;
+    }
+
+    /**
+     * @return the issues, in the order written
+     */
+    public List<Issue> getIssues()
+    {
+        return issues;
+    }
+
+    /**
+     * @return the distinct authors of the commits, each shared by its commits
+     */
+    public List<Author> getAuthors()
+    {
+        return authors;
+    }
+
+    /**
+     * Write a snapshot, replacing the snapshot file only once it is completely written.
+     *
+     * @param snapshotFile the snapshot file
+     * @param commits the commits, in the order to load them back
+     * @param issues the issues, in the order to load them back
+     */
+    public static void write(Path snapshotFile, Collection<GitCommit> commits, Collection<Issue> issues) throws IOException
+    {
+        Map<AnyObjectId, Integer> shaIndex = new HashMap<>();
+        Map<Author, Integer> authorIndex = new IdentityHashMap<>();
+        List<Author> authors = new ArrayList<>();
+        for (GitCommit commit : commits)
+        {
+            shaIndex.put(commit, -1);
+            Author author = commit.getAuthor();
+            if ((author != null) && (authorIndex.putIfAbsent(author, authors.size()) == null))
+                authors.add(author);
+        }
+        for (Issue issue : issues)
+        {
+            issue.getCommits().forEach((commitId) -> shaIndex.put(commitId, -1));
+        }
+        AnyObjectId[] shas = shaIndex.keySet().toArray(new AnyObjectId[0]);
+        Arrays.sort(shas);
+        for (int i = 0; i < shas.length; i++)
+        {
+            shaIndex.put(shas[i], i);
+        }
+
+        // The sections are buffered while they add to the string table, that is written before them
+        Sections sections = new Sections(shaIndex, authorIndex);
+        sections.writeAuthors(authors);
+        sections.writeCommits(commits);
+        sections.writeIssues(issues);
+
+        Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 64 * 1024)))
+        {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sections.stringTable.size());
+            for (String string : sections.stringTable)
+            {
+                byte[] bytes = string.getBytes(UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(shas.length);
+            byte[] raw = new byte[SHA_LENGTH];
+            for (AnyObjectId sha : shas)
+            {
+                sha.copyRawTo(raw, 0);
+                out.write(raw);
+            }
+            sections.buffer.writeTo(out);
+        }
+        Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load a snapshot, memory-mapping the snapshot file.
+     *
+     * @param snapshotFile the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file is not a snapshot (or of another version), or is truncated
+     */
+    public static ChangelogSnapshot load(Path snapshotFile) throws IOException
+    {
+        ByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(snapshotFile))
+        {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try
+        {
+            byte[] magic = new byte[MAGIC.length];
+            buf.get(magic);
+            if (!Arrays.equals(MAGIC, magic) || (buf.getInt() != VERSION))
+                throw new IOException("Not a changelog snapshot (or unsupported version): " + snapshotFile);
+            return new Loader(buf).load();
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException e)
+        {
+            throw new IOException("Truncated changelog snapshot: " + snapshotFile, e);
+        }
+    }
+
+    /**
+     * Write the sections after the tables, adding the strings to the string table as they are written.
+     */
+    private static class Sections
+    {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+        private final DataOutputStream out = new DataOutputStream(buffer);
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final List<String> stringTable = new ArrayList<>();
+        private final Map<AnyObjectId, Integer> shaIndex;
+        private final Map<Author, Integer> authorIndex;
+
+        private Sections(Map<AnyObjectId, Integer> shaIndex, Map<Author, Integer> authorIndex)
+        {
+            this.shaIndex = shaIndex;
+            this.authorIndex = authorIndex;
+        }
+
+        private void writeAuthors(List<Author> authors) throws IOException
+        {
+            out.writeInt(authors.size());
+            for (Author author : authors)
+            {
+                writeString(author.github());
+                writeString(author.name());
+                out.writeByte(author.committer() ? 1 : 0);
+                writeStrings(author.emails());
+            }
+        }
+
+        private void writeCommits(Collection<GitCommit> commits) throws IOException
+        {
+            out.writeInt(commits.size());
+            for (GitCommit commit : commits)
+            {
+                out.writeInt(shaIndex.get(commit));
+                out.writeInt(commit.getAuthor() == null ? -1 : authorIndex.get(commit.getAuthor()));
+                writeString(commit.getTitle());
+                writeString(commit.getBody());
+                ZonedDateTime commitTime = commit.getCommitTime();
+                int flags = (commit.isMerge() ? FLAG_MERGE : 0) |
+                    (commit.isSkipped() ? FLAG_SKIPPED : 0) |
+                    (commitTime != null ? FLAG_COMMIT_TIME : 0);
+                out.writeByte(flags);
+                if (commitTime != null)
+                {
+                    out.writeLong(commitTime.toEpochSecond());
+                    out.writeInt(commitTime.getNano());
+                    out.writeInt(commitTime.getOffset().getTotalSeconds());
+                }
+                writeStrings(commit.getFiles());
+                writeStrings(commit.getBranches());
+                writeSortedInts(commit.getIssueRefs());
+                writeSortedInts(commit.getPullRequestRefs());
+            }
+        }
+
+        private void writeIssues(Collection<Issue> issues) throws IOException
+        {
+            out.writeInt(issues.size());
+            for (Issue issue : issues)
+            {
+                out.writeInt(issue.getNum());
+                writeString(issue.getTitle());
+                writeString(issue.getBody());
+                writeString(issue.getBaseRef());
+                out.writeByte(issue.getType().ordinal());
+                out.writeByte(issue.isSkipped() ? 1 : 0);
+                writeSortedInts(issue.getReferencedIssues());
+                int[] commits = new int[issue.getCommits().size()];
+                int i = 0;
+                // The SHA table is sorted, as are the commits of the issue
+                for (AnyObjectId commitId : issue.getCommits())
+                {
+                    commits[i++] = shaIndex.get(commitId);
+                }
+                writeInts(commits);
+                writeStrings(issue.getLabels());
+            }
+        }
+
+        private void writeString(String string) throws IOException
+        {
+            if (string == null)
+            {
+                out.writeInt(-1);
+                return;
+            }
+            Integer index = strings.get(string);
+            if (index == null)
+            {
+                index = stringTable.size();
+                strings.put(string, index);
+                stringTable.add(string);
+            }
+            out.writeInt(index);
+        }
+
+        private void writeStrings(Collection<String> values) throws IOException
+        {
+            if (values == null)
+            {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(values.size());
+            for (String value : values)
+            {
+                writeString(value);
+            }
+        }
+
+        private void writeSortedInts(Collection<Integer> values) throws IOException
+        {
+            if (values == null)
+            {
+                out.writeInt(-1);
+                return;
+            }
+            int[] sorted = values.stream().mapToInt(Integer::intValue).sorted().toArray();
+            writeInts(sorted);
+        }
+
+        private void writeInts(int[] values) throws IOException
+        {
+            out.writeInt(values.length);
+            for (int value : values)
+            {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    /**
+     * Read the sections from the memory-mapped snapshot, the strings and SHAs decoded once each.
+     */
+    private static class Loader
+    {
+        private final ByteBuffer buf;
+        private String[] strings;
+        // The commits replace their ids, for the issues to reference them
+        private AnyObjectId[] shas;
+        private Author[] authors;
+
+        private Loader(ByteBuffer buf)
+        {
+            this.buf = buf;
+        }
+
+        private ChangelogSnapshot load() throws IOException
+        {
+            strings = new String[buf.getInt()];
+            byte[] bytes = new byte[1024];
+            for (int i = 0; i < strings.length; i++)
+            {
+                int length = buf.getInt();
+                if (bytes.length < length)
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                buf.get(bytes, 0, length);
+                strings[i] = new String(bytes, 0, length, UTF_8);
+            }
+
+            shas = new AnyObjectId[buf.getInt()];
+            byte[] raw = new byte[SHA_LENGTH];
+            for (int i = 0; i < shas.length; i++)
+            {
+                buf.get(raw);
+                shas[i] = ObjectId.fromRaw(raw);
+            }
+
+            authors = new Author[buf.getInt()];
+            for (int i = 0; i < authors.length; i++)
+            {
+                authors[i] = readAuthor();
+            }
+
+            int commitCount = buf.getInt();
+            List<GitCommit> commits = new ArrayList<>(commitCount);
+            for (int i = 0; i < commitCount; i++)
+            {
+                commits.add(readCommit());
+            }
+
+            int issueCount = buf.getInt();
+            List<Issue> issues = new ArrayList<>(issueCount);
+            for (int i = 0; i < issueCount; i++)
+            {
+                issues.add(readIssue());
+            }
+            return new ChangelogSnapshot(commits, issues, Arrays.asList(authors));
+        }
+
+        private Author readAuthor()
+        {
+            Author author = new Author();
+            author.github(readString());
+            author.name(readString());
+            author.committer(buf.get() != 0);
+            List<String> emails = readStrings();
+            if (emails != null)
+                author.emails().addAll(emails);
+            return author;
+        }
+
+        private GitCommit readCommit()
+        {
+            int sha = buf.getInt();
+            GitCommit commit = new GitCommit(shas[sha]);
+            shas[sha] = commit;
+            int author = buf.getInt();
+            if (author >= 0)
+                commit.setAuthor(authors[author]);
+            commit.setTitle(readString());
+            commit.setBody(readString());
+            int flags = buf.get();
+            commit.setMerge((flags & FLAG_MERGE) != 0);
+            commit.setSkipped((flags & FLAG_SKIPPED) != 0);
+            if ((flags & FLAG_COMMIT_TIME) != 0)
+            {
+                Instant instant = Instant.ofEpochSecond(buf.getLong(), buf.getInt());
+                commit.setCommitTime(ZonedDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds(buf.getInt())));
+            }
+            commit.setFiles(readStrings());
+            commit.setBranches(readStrings());
+            // An empty set of references is not the same as none
+            int[] issueRefs = readInts();
+            if (issueRefs != null)
+                commit.addIssueRefs(toList(issueRefs));
+            int[] pullRequestRefs = readInts();
+            if (pullRequestRefs != null)
+                commit.addPullRequestRefs(toList(pullRequestRefs));
+            return commit;
+        }
+
+        private Issue readIssue() throws IOException
+        {
+            Issue issue = new Issue(buf.getInt());
+            issue.setTitle(readString());
+            issue.setBody(readString());
+            issue.setBaseRef(readString());
+            issue.setType(Issue.Type.values()[buf.get()]);
+            issue.setSkip(buf.get() != 0);
+            // Unlike the references of a commit, those of an issue are never written as none
+            int[] referencedIssues = readInts();
+            if (referencedIssues == null)
+                throw new IOException("Corrupted changelog snapshot: no referenced issues for issue #" + issue.getNum());
+            issue.addReferencedIssues(toList(referencedIssues));
+            int[] commits = readInts();
+            if (commits == null)
+                throw new IOException("Corrupted changelog snapshot: no commits for issue #" + issue.getNum());
+            for (int sha : commits)
+            {
+                issue.addCommit(shas[sha]);
+            }
+            List<String> labels = readStrings();
+            if (labels == null)
+                throw new IOException("Corrupted changelog snapshot: no labels for issue #" + issue.getNum());
+            issue.addLabels(labels);
+            return issue;
+        }
+
+        private String readString()
+        {
+            int index = buf.getInt();
+            return index < 0 ? null : strings[index];
+        }
+
+        private List<String> readStrings()
+        {
+            int length = buf.getInt();
+            if (length < 0)
+                return null;
+            String[] values = new String[length];
+            for (int i = 0; i < length; i++)
+            {
+                values[i] = readString();
+            }
+            return Arrays.asList(values);
+        }
+
+        private static List<Integer> toList(int[] values)
+        {
+            List<Integer> list = new ArrayList<>(values.length);
+            for (int value : values)
+            {
+                list.add(value);
+            }
+            return list;
+        }
+
+        private int[] readInts()
+        {
+            int length = buf.getInt();
+            if (length < 0)
+                return null;
+            int[] values = new int[length];
+            buf.asIntBuffer().get(values);
+            buf.position(buf.position() + (length * Integer.BYTES));
+            return values;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.eclipse.jetty.toolchain.gson.AuthorTypeAdapter;
+import org.eclipse.jetty.toolchain.gson.GitCommitTypeAdapter;
+import org.eclipse.jetty.toolchain.gson.ISO8601TypeAdapter;
+import org.eclipse.jetty.toolchain.gson.IssueTypeAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The commits and issues of a changelog run, persisted so that a later run on the same range
+ * (with more commits) only processes the new commits, and the issues that changed on GitHub.
+ * <p>
+ * The authors of the commits are written once, before the commits, which reference them by index.
+ * </p>
+ * <p>
+ * The state is only reused with the same {@link #getSettings() settings}. Filters given as
+ * predicates cannot be compared, so the state file must be deleted when those change.
+ * </p>
+ */
+public class ChangelogState
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ChangelogState.class);
+    private static final int VERSION = 2;
+
+    /**
+     * The distinct authors of the commits, read and written by the commits as their index in the table.
+     */
+    private static class AuthorTable
+    {
+        private final List<Author> authors = new ArrayList<>();
+        private final Map<Author, Integer> index = new IdentityHashMap<>();
+
+        private void add(Author author)
+        {
+            if ((author != null) && (index.putIfAbsent(author, authors.size()) == null))
+                authors.add(author);
+        }
+
+        private TypeAdapter<AuthorTable> newTableAdapter()
+        {
+            AuthorTypeAdapter authorAdapter = new AuthorTypeAdapter();
+            return new TypeAdapter<>()
+            {
+                @Override
+                public void write(JsonWriter out, AuthorTable table) throws IOException
+                {
+                    out.beginArray();
+                    for (Author author : table.authors)
+                    {
+                        authorAdapter.write(out, author);
+                    }
+                    out.endArray();
+                }
+
+                @Override
+                public AuthorTable read(JsonReader in) throws IOException
+                {
+                    in.beginArray();
+                    while (in.hasNext())
+                    {
+                        add(authorAdapter.read(in));
+                    }
+                    in.endArray();
+                    return AuthorTable.this;
+                }
+            };
+        }
+
+        private TypeAdapter<Author> newIndexAdapter()
+        {
+            return new TypeAdapter<>()
+            {
+                @Override
+                public void write(JsonWriter out, Author author) throws IOException
+                {
+                    out.value(index.get(author));
+                }
+
+                @Override
+                public Author read(JsonReader in) throws IOException
+                {
+                    if (in.peek() == JsonToken.NULL)
+                    {
+                        in.nextNull();
+                        return null;
+                    }
+                    int i = in.nextInt();
+                    if ((i < 0) || (i >= authors.size()))
+                        throw new JsonParseException("Unknown author " + i + " at " + in.getPath());
+                    return authors.get(i);
+                }
+            };
+        }
+    }
+
+    private int version = VERSION;
+    private String settings;
+    private String oldCommit;
+    private String newCommit;
+    private Map<String, String> branchTips;
+    // Before the commits, so that it is read first
+    private AuthorTable authors = new AuthorTable();
+    private List<GitCommit> commits = new ArrayList<>();
+    private List<Issue> issues = new ArrayList<>();
+    private Map<Integer, Long> issueResolvedAt = new HashMap<>();
+
+    private static Gson newGson(AuthorTable authors)
+    {
+        return new GsonBuilder()
+            .registerTypeAdapter(ZonedDateTime.class, new ISO8601TypeAdapter())
+            .registerTypeAdapter(AuthorTable.class, authors.newTableAdapter())
+            .registerTypeAdapter(GitCommit.class, new GitCommitTypeAdapter(authors.newIndexAdapter()))
+            .registerTypeAdapter(Issue.class, new IssueTypeAdapter())
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .create();
+    }
+
+    /**
+     * Load the state.
+     *
+     * @param stateFile the state file
+     * @return the state, or null if there is no state file, or it is from another version
+     */
+    public static ChangelogState load(Path stateFile) throws IOException
+    {
+        if (!Files.isRegularFile(stateFile))
+            return null;
+
+        ChangelogState state;
+        try (BufferedReader reader = Files.newBufferedReader(stateFile, UTF_8))
+        {
+            state = newGson(new AuthorTable()).fromJson(reader, ChangelogState.class);
+        }
+        catch (JsonParseException e)
+        {
+            LOG.warn("Ignoring unreadable state {}", stateFile, e);
+            return null;
+        }
+        if ((state == null) || (state.version != VERSION))
+        {
+            LOG.info("Ignoring state {} from another version", stateFile);
+            return null;
+        }
+        return state;
+    }
+
+    /**
+     * Save the state, replacing the state file only once it is completely written.
+     *
+     * @param stateFile the state file
+     */
+    public void save(Path stateFile) throws IOException
+    {
+        authors = new AuthorTable();
+        for (GitCommit commit : commits)
+        {
+            authors.add(commit.getAuthor());
+        }
+
+        Path tempFile = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, UTF_8))
+        {
+            newGson(authors).toJson(this, writer);
+        }
+        Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the description of the settings that the commits and issues depend on (branch, exclusions)
+     */
+    public String getSettings()
+    {
+        return settings;
+    }
+
+    public void setSettings(String settings)
+    {
+        this.settings = settings;
+    }
+
+    /**
+     * @return the start of the range of commits (excluded)
+     */
+    public String getOldCommit()
+    {
+        return oldCommit;
+    }
+
+    public void setOldCommit(String oldCommit)
+    {
+        this.oldCommit = oldCommit;
+    }
+
+    /**
+     * @return the last processed commit, the end of the range
+     */
+    public String getNewCommit()
+    {
+        return newCommit;
+    }
+
+    public void setNewCommit(String newCommit)
+    {
+        this.newCommit = newCommit;
+    }
+
+    /**
+     * @return the branch tips that the branches of the commits were computed against, or null if not computed
+     */
+    public Map<String, String> getBranchTips()
+    {
+        return branchTips;
+    }
+
+    public void setBranchTips(Map<String, String> branchTips)
+    {
+        this.branchTips = branchTips;
+    }
+
+    /**
+     * @return the distinct authors of the commits, each shared by its commits
+     */
+    public List<Author> getAuthors()
+    {
+        return authors.authors;
+    }
+
+    public List<GitCommit> getCommits()
+    {
+        return commits;
+    }
+
+    public void setCommits(List<GitCommit> commits)
+    {
+        this.commits = commits;
+    }
+
+    public List<Issue> getIssues()
+    {
+        return issues;
+    }
+
+    public void setIssues(List<Issue> issues)
+    {
+        this.issues = issues;
+    }
+
+    /**
+     * @return the time (in epoch millis) each issue was resolved against GitHub
+     */
+    public Map<Integer, Long> getIssueResolvedAt()
+    {
+        return issueResolvedAt;
+    }
+
+    public void setIssueResolvedAt(Map<Integer, Long> issueResolvedAt)
+    {
+        this.issueResolvedAt = issueResolvedAt;
+    }
+}
@@ -10,45 +10,59 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import javax.management.JMException;
 
-import com.google.gson.FieldNamingPolicy;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.stream.JsonWriter;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.jetty.toolchain.github.Commit;
+import org.eclipse.jetty.toolchain.github.CommitAuthorFetcher;
 import org.eclipse.jetty.toolchain.github.GitHubApi;
+import org.eclipse.jetty.toolchain.github.GitHubApiException;
 import org.eclipse.jetty.toolchain.github.GitHubResourceNotFoundException;
+import org.eclipse.jetty.toolchain.github.IssueBatchFetcher;
 import org.eclipse.jetty.toolchain.github.IssueEvents;
 import org.eclipse.jetty.toolchain.github.Label;
 import org.eclipse.jetty.toolchain.github.PullRequestCommits;
-import org.eclipse.jetty.toolchain.gson.ISO8601TypeAdapter;
+import org.eclipse.jetty.toolchain.gson.EntriesWriter;
+import org.eclipse.jetty.toolchain.gson.GitCommitTypeAdapter;
+import org.eclipse.jetty.toolchain.gson.IssueTypeAdapter;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.ListBranchCommand;
 import org.eclipse.jgit.api.LogCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.treewalk.AbstractTreeIterator;
-import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,18 +71,25 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class ChangelogTool
 {
     private static final Logger LOG = LoggerFactory.getLogger(ChangelogTool.class);
+    // The details of each commit walked, logged asynchronously to a file by logback.xml
+    private static final Logger COMMITS_LOG = LoggerFactory.getLogger("org.eclipse.jetty.toolchain.commits");
 
     private static final String TAG_OLD_VER = "jetty-10.0.0";
     private static final String TAG_NEW_VER = "jetty-11.0.0";
     private static final String BRANCH_REF = "jetty-11.0.x";
+    private static final String RELEASE_BRANCH_PREFIX = "refs/remotes/origin/jetty-";
+    private static final Predicate<String> RELEASE_BRANCH_FILTER = (name) -> name.endsWith(".x");
+    // The waves an issue may fail to resolve in, before it is left unknown
+    private static final int MAX_RESOLVE_ATTEMPTS = 3;
 
-    public static void main(String[] args) throws IOException, GitAPIException
+    public static void main(String[] args) throws IOException, GitAPIException, InterruptedException, JMException
     {
         Path localRepo = Paths.get("/home/joakim/code/jetty/jetty.project-alt");
 
         ChangelogTool changelog = new ChangelogTool(localRepo);
+        changelog.getMetrics().register();
         changelog.setGithubRepo("eclipse", "jetty.project");
-        changelog.onelineOutput = true;
+        changelog.setOnelineOutput(true);
 
         changelog.addLabelExclusion("test");
         changelog.addLabelExclusion("documentation");
@@ -76,55 +97,47 @@ public class ChangelogTool
 
         changelog.addLogFilter(Predicate.not(GitCommit::isMerge));
         changelog.addCommitPathExclusionFilter((filename) -> StringUtils.isBlank(filename));
-        changelog.addCommitPathExclusionFilter((filename) -> filename.contains("/src/test/"));
-        changelog.addCommitPathExclusionFilter((filename) -> filename.contains("/src/main/webapp/"));
-        changelog.addCommitPathExclusionFilter((filename) -> filename.startsWith(".git"));
-        changelog.addCommitPathExclusionFilter((filename) -> filename.startsWith("/dev/"));
-        changelog.addCommitPathExclusionFilter((filename) -> filename.startsWith("Jenkins"));
-        changelog.addCommitPathExclusionFilter((filename) -> filename.endsWith(".md"));
-        changelog.addCommitPathExclusionFilter((filename) -> filename.endsWith(".txt"));
-        changelog.addCommitPathExclusionFilter((filename) -> filename.endsWith(".adoc"));
-        changelog.addCommitPathExclusionFilter((filename) -> filename.endsWith(".properties"));
-        changelog.addCommitPathExclusionFilter((filename) -> filename.endsWith(".jpg"));
-        changelog.addCommitPathExclusionFilter((filename) -> filename.endsWith(".png"));
+        changelog.addCommitPathExclusion(PathRule.contains("/src/test/"));
+        changelog.addCommitPathExclusion(PathRule.contains("/src/main/webapp/"));
+        changelog.addCommitPathExclusion(PathRule.prefix(".git"));
+        changelog.addCommitPathExclusion(PathRule.prefix("Jenkins"));
+        changelog.addCommitPathExclusion(PathRule.suffix(".md"));
+        changelog.addCommitPathExclusion(PathRule.suffix(".txt"));
+        changelog.addCommitPathExclusion(PathRule.suffix(".adoc"));
+        changelog.addCommitPathExclusion(PathRule.suffix(".properties"));
+        changelog.addCommitPathExclusion(PathRule.suffix(".jpg"));
+        changelog.addCommitPathExclusion(PathRule.suffix(".png"));
 
         changelog.addBranchExclusion((branch) ->
             branch.endsWith("/jetty-9.4.x") ||
                 branch.endsWith("/jetty-10.0.x"));
 
         changelog.setBranch(BRANCH_REF);
+        Path stateFile = Paths.get("target/changelog-state.json");
+        changelog.loadState(stateFile);
         changelog.resolveCommits(TAG_OLD_VER, TAG_NEW_VER);
+        changelog.resolveAuthors();
         changelog.resolveUnknownIssues();
         changelog.resolvePullRequestCommits();
+        changelog.saveState(stateFile);
 
         System.out.printf("Found %,d commit entries%n", changelog.commitMap.size());
         System.out.printf("Found %,d issue/pr references%n", changelog.issueMap.size());
         changelog.authors.save(Paths.get("target/authors-scan.json"));
 
-        Gson gson = new GsonBuilder().setPrettyPrinting()
-            .registerTypeAdapter(ZonedDateTime.class, new ISO8601TypeAdapter())
-            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-            .create();
-
-        Path issueLog = Paths.get("target/issues.json");
-        try (BufferedWriter writer = Files.newBufferedWriter(issueLog, UTF_8);
-             JsonWriter jsonWriter = gson.newJsonWriter(writer))
-        {
-            gson.toJson(changelog.issueMap.values(), Set.class, jsonWriter);
-        }
-
-        Path commitsLog = Paths.get("target/commits.json");
-        try (BufferedWriter writer = Files.newBufferedWriter(commitsLog, UTF_8);
-             JsonWriter jsonWriter = gson.newJsonWriter(writer))
-        {
-            gson.toJson(changelog.commitMap.values(), Set.class, jsonWriter);
-        }
+        // Newline delimited JSON, for large ranges
+        boolean ndjson = Boolean.getBoolean("changelog.ndjson");
+        changelog.setNdjsonOutput(ndjson);
+        String jsonExtension = ndjson ? ".ndjson" : ".json";
+        changelog.writeIssuesJson(Paths.get("target/issues" + jsonExtension));
+        changelog.writeCommitsJson(Paths.get("target/commits" + jsonExtension));
+        changelog.writeSnapshot(Paths.get("target/changelog.snapshot"));
 
         Path changedFilesLog = Paths.get("target/changed-files.log");
         try (BufferedWriter writer = Files.newBufferedWriter(changedFilesLog))
         {
             Set<String> changedFiles = new HashSet<>();
-            for (GitCommit commit : changelog.commitMap.values())
+            for (GitCommit commit : changelog.commitMap)
             {
                 if (commit.isSkipped())
                     continue;
@@ -141,6 +154,16 @@ public class ChangelogTool
 
         Path markdownOutput = Paths.get("target/changelog.md");
         changelog.writeMarkdown(markdownOutput);
+
+        if (changelog.github != null)
+            System.out.printf("GitHub %s%n", changelog.github.getCache());
+
+        Path metricsReport = Paths.get("target/changelog-metrics.json");
+        changelog.getMetrics().writeReport(metricsReport);
+        LOG.info("Wrote the metrics of the run to {}", metricsReport);
+
+        if (changelog.github != null)
+            changelog.github.getCache().close();
     }
 
     private final Git git;
@@ -151,13 +174,28 @@ public class ChangelogTool
     private GitHubApi github;
     private String branch;
     private boolean onelineOutput = false;
+    private boolean ndjsonOutput = false;
     private boolean includeMergeCommits = false;
-    private Map<Integer, Issue> issueMap = new HashMap<>();
-    private Map<String, GitCommit> commitMap = new HashMap<>();
+    private int resolveConcurrency = 8;
+    private int graphqlBatchSize = IssueBatchFetcher.DEFAULT_BATCH_SIZE;
+    private int scanConcurrency = Runtime.getRuntime().availableProcessors();
+    private int diffConcurrency = Runtime.getRuntime().availableProcessors();
+    private Map<Integer, Issue> issueMap = new ConcurrentHashMap<>();
+    // Keyed by the binary commit id, without a String per commit
+    private ObjectIdOwnerMap<GitCommit> commitMap = new ObjectIdOwnerMap<>();
+    private Map<Integer, Long> issueResolvedAt = new ConcurrentHashMap<>();
+    // The authors added for the unknown emails of the commits, with their first commit
+    private Map<Author, ObjectId> unresolvedAuthors = new ConcurrentHashMap<>();
+    private ChangelogState previousState;
+    private String oldCommit;
+    private String newCommit;
+    private Map<String, String> branchTips;
     private List<Predicate<GitCommit>> logFilters = new ArrayList<>();
     private List<Predicate<String>> branchExclusion = new ArrayList<>();
     private List<Predicate<String>> commitPathExclusionFilters = new ArrayList<>();
+    private List<PathRule> commitPathExclusionRules = new ArrayList<>();
     private Set<String> excludedLabels = new HashSet<>();
+    private final ChangelogMetrics metrics = new ChangelogMetrics(() -> github);
 
     public ChangelogTool(Path localGitRepo) throws IOException
     {
@@ -172,19 +210,104 @@ public class ChangelogTool
         this.githubRepoName = repoName;
     }
 
-    private void setBranch(String branch)
+    /**
+     * Use this GitHub API, instead of connecting to GitHub on first use.
+     */
+    public synchronized void setGitHubApi(GitHubApi github)
+    {
+        this.github = github;
+    }
+
+    /**
+     * Log a single line per commit found, instead of the commit details.
+     */
+    public void setOnelineOutput(boolean onelineOutput)
+    {
+        this.onelineOutput = onelineOutput;
+    }
+
+    /**
+     * Write the issues and commits as NDJSON (one JSON object per line), instead of a JSON array.
+     */
+    public void setNdjsonOutput(boolean ndjsonOutput)
+    {
+        this.ndjsonOutput = ndjsonOutput;
+    }
+
+    /**
+     * The branch the pull requests of the changelog are merged into (eg: {@code jetty-11.0.x}).
+     */
+    public void setBranch(String branch)
     {
         this.branch = branch;
     }
 
     /**
-     * Only include Commits passing this predicate.
+     * Only include Commits passing this predicate, the others are still walked but marked as skipped.
      */
     public void addLogFilter(Predicate<GitCommit> predicate)
     {
         this.logFilters.add(predicate);
     }
 
+    /**
+     * The maximum number of issues / pull requests to resolve against GitHub at the same time.
+     * The effective concurrency of each resolve wave is further limited by the remaining GitHub rate.
+     */
+    public void setResolveConcurrency(int resolveConcurrency)
+    {
+        if (resolveConcurrency < 1)
+            throw new IllegalArgumentException("Invalid resolve concurrency: " + resolveConcurrency);
+        this.resolveConcurrency = resolveConcurrency;
+    }
+
+    /**
+     * The number of issues / pull requests to prefetch, and of commit authors to resolve, per GraphQL request,
+     * or 0 to only use the REST API.
+     */
+    public void setGraphqlBatchSize(int graphqlBatchSize)
+    {
+        if (graphqlBatchSize < 0)
+            throw new IllegalArgumentException("Invalid GraphQL batch size: " + graphqlBatchSize);
+        this.graphqlBatchSize = graphqlBatchSize;
+    }
+
+    /**
+     * The number of threads scanning the messages of the walked commits for issue references.
+     */
+    public void setScanConcurrency(int scanConcurrency)
+    {
+        if (scanConcurrency < 1)
+            throw new IllegalArgumentException("Invalid scan concurrency: " + scanConcurrency);
+        this.scanConcurrency = scanConcurrency;
+    }
+
+    /**
+     * The number of commits to diff at the same time.
+     */
+    public void setDiffConcurrency(int diffConcurrency)
+    {
+        if (diffConcurrency < 1)
+            throw new IllegalArgumentException("Invalid diff concurrency: " + diffConcurrency);
+        this.diffConcurrency = diffConcurrency;
+    }
+
+    /**
+     * @return the timing of the stages of the run so far, and the metrics of its GitHub API
+     */
+    public ChangelogMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * @return the known authors, along with the community authors of the commits
+     */
+    public Authors getAuthors()
+    {
+        return authors;
+    }
+
     public void addLabelExclusion(String label)
     {
         this.excludedLabels.add(label);
@@ -193,6 +316,10 @@ public class ChangelogTool
     /**
      * Exclude paths on commit with this predicate.
      * If the resulting commit is devoid of paths as a result, it is flagged as skipped.
+     * <p>
+     * Prefer {@link #addCommitPathExclusion(PathRule)}, as the predicate can only be applied
+     * to the paths after the whole commit has been diffed.
+     * </p>
      */
     public void addCommitPathExclusionFilter(Predicate<String> predicate)
     {
@@ -200,6 +327,19 @@ public class ChangelogTool
         this.commitPathExclusionFilters.add(predicate);
     }
 
+    /**
+     * Exclude paths on commit with this rule.
+     * If the resulting commit is devoid of paths as a result, it is flagged as skipped.
+     * <p>
+     * The rules are applied during the diff, so excluded directories are never walked.
+     * </p>
+     */
+    public void addCommitPathExclusion(PathRule rule)
+    {
+        Objects.requireNonNull(rule, "rule");
+        this.commitPathExclusionRules.add(rule);
+    }
+
     /**
      * If commit has specific branch, do not include it in the results.
      */
@@ -208,66 +348,140 @@ public class ChangelogTool
         this.branchExclusion.add(predicate);
     }
 
-    public void resolveCommits(String oldTag, String newTag) throws IOException, GitAPIException
+    /**
+     * Load the state of a previous run, so that only the new commits and the changed issues are processed.
+     * <p>
+     * Must be called before {@link #resolveCommits(String, String)}. The state is only used for the same
+     * start of the range and settings, and if its last commit is still in the new range.
+     * </p>
+     *
+     * @param stateFile the state file, from {@link #saveState(Path)}
+     * @return true if a state was loaded
+     */
+    public boolean loadState(Path stateFile) throws IOException
     {
-        RevCommit commitOld = findCommitForTag(oldTag);
-        RevCommit commitNew = findCommitForTag(newTag);
-        System.out.println("Ref (old): " + commitOld);
-        System.out.println("Ref (new): " + commitNew);
-
-        Predicate<GitCommit> predicateLog = getGitCommitPredicate(logFilters);
-
-        LogCommand logCommand = git.log().addRange(commitOld, commitNew);
-
-        for (RevCommit commit : logCommand.call())
-        {
-            Author author = getAuthor(authors, commit);
+        previousState = ChangelogState.load(stateFile);
+        return previousState != null;
+    }
 
-            GitCommit gitCommit = getCommit(commit.getId().getName());
+    /**
+     * Save the commits and issues (with their files and branches) of this run, for a later {@link #loadState(Path)}.
+     *
+     * @param stateFile the state file
+     */
+    public void saveState(Path stateFile) throws IOException
+    {
+        ChangelogState state = new ChangelogState();
+        state.setSettings(getSettings());
+        state.setOldCommit(oldCommit);
+        state.setNewCommit(newCommit);
+        state.setBranchTips(branchTips);
+        List<GitCommit> commits = new ArrayList<>(commitMap.size());
+        commitMap.forEach(commits::add);
+        state.setCommits(commits);
+        state.setIssues(new ArrayList<>(issueMap.values()));
+        state.setIssueResolvedAt(new HashMap<>(issueResolvedAt));
+        state.save(stateFile);
+        LOG.info("Saved state of {} commits and {} issues to {}", commitMap.size(), issueMap.size(), stateFile);
+    }
 
-            gitCommit.setCommitTime(ZonedDateTime.ofInstant(Instant.ofEpochMilli(commit.getCommitTime()), ZoneId.systemDefault()));
-            gitCommit.setAuthor(author);
-            gitCommit.setTitle(commit.getShortMessage());
-            gitCommit.setBody(commit.getFullMessage());
-            gitCommit.setMerge(isMergeCommit(commit));
+    private String getSettings()
+    {
+        return String.format("branch=%s, excludedLabels=%s, commitPathExclusions=%s",
+            branch, new TreeSet<>(excludedLabels), commitPathExclusionRules);
+    }
 
-            collectIssueReferences(gitCommit);
+    /**
+     * Continue from the commits and issues of the previous state, if it applies to the range.
+     *
+     * @return the last commit of the previous state, or null if it does not apply
+     */
+    private ObjectId applyPreviousState(RevCommit commitOld, RevCommit commitNew) throws IOException
+    {
+        ChangelogState state = previousState;
+        previousState = null;
+        if (state == null)
+            return null;
 
-            if (predicateLog.test(gitCommit))
-            {
-                gitCommit.setSkipped(true);
-            }
+        if (!commitOld.getName().equals(state.getOldCommit()) || !getSettings().equals(state.getSettings()))
+        {
+            LOG.info("Ignoring the previous state, for another range or settings");
+            return null;
+        }
 
-            if (onelineOutput)
-            {
-                System.out.printf("Commit: [%s] %s - %s%n", commit.getId().getName(), author.toNiceName(), commit.getShortMessage());
-            }
-            else
+        ObjectId previousCommit = ObjectId.fromString(state.getNewCommit());
+        try (RevWalk walk = new RevWalk(repository))
+        {
+            if (!walk.isMergedInto(walk.parseCommit(previousCommit), walk.parseCommit(commitNew)))
             {
-                System.out.println("----------------");
-                System.out.printf("Commit: %s (%s)%n", commit.getShortMessage(), commit.getId().getName());
-                System.out.printf("Author: %s%n", commit.getAuthorIdent());
-                System.out.printf("Committer: %s%n", commit.getCommitterIdent());
-                System.out.printf("Parents: %s%n", Stream.of(commit.getParents()).map((rc) -> rc.getId().getName()).collect(Collectors.joining(", ")));
-                System.out.printf("Branches: %s%n", String.join(", ", gitCommit.getBranches()));
-                System.out.printf("%s%n", commit.getFullMessage());
+                LOG.info("Ignoring the previous state, {} is not in the range", previousCommit.getName());
+                return null;
             }
         }
+        catch (MissingObjectException e)
+        {
+            LOG.info("Ignoring the previous state, {} no longer exists", previousCommit.getName());
+            return null;
+        }
 
-        System.out.println();
+        // The authors of the previous commits are known again, shared with the new commits
+        Map<Author, Author> knownAuthors = new IdentityHashMap<>();
+        for (Author author : state.getAuthors())
+        {
+            Author known = author.emails().isEmpty() ? author : authors.addIfAbsent(author);
+            knownAuthors.put(author, known);
+        }
+        for (GitCommit commit : state.getCommits())
+        {
+            if (commit.getAuthor() != null)
+                commit.setAuthor(knownAuthors.get(commit.getAuthor()));
+            commitMap.add(commit);
+        }
+        for (Issue issue : state.getIssues())
+        {
+            issueMap.put(issue.getNum(), issue);
+        }
+        issueResolvedAt.putAll(state.getIssueResolvedAt());
+        branchTips = state.getBranchTips();
+        LOG.info("Continuing from the previous state of {} commits and {} issues, up to {}",
+            commitMap.size(), issueMap.size(), previousCommit.getName());
+        return previousCommit;
     }
 
-    private GitCommit getCommit(String sha)
+    public void resolveCommits(String oldTag, String newTag) throws IOException, GitAPIException, InterruptedException
     {
-        String lowerSha = sha.toLowerCase(Locale.US);
-        GitCommit commit = commitMap.get(lowerSha);
-        if (commit == null)
+        try (ChangelogMetrics.Stage stage = metrics.stage("resolveCommits"))
         {
-            commit = new GitCommit();
-            commit.setSha(lowerSha);
-            commitMap.put(lowerSha, commit);
+            RevCommit commitOld = findCommitForTag(oldTag);
+            RevCommit commitNew = findCommitForTag(newTag);
+            System.out.println("Ref (old): " + commitOld);
+            System.out.println("Ref (new): " + commitNew);
+            oldCommit = commitOld.getName();
+            newCommit = commitNew.getName();
+
+            Predicate<GitCommit> predicateLog = getGitCommitPredicate(logFilters);
+
+            LogCommand logCommand = git.log().addRange(commitOld, commitNew);
+            // Only the commits since the previous run
+            ObjectId previousCommit = applyPreviousState(commitOld, commitNew);
+            if (previousCommit != null)
+                logCommand.not(previousCommit);
+
+            // Walk, scan the messages of the commits in parallel, and add them to the tables in the order of the walk
+            CommitPipeline<WalkedCommit> pipeline = new CommitPipeline<>(scanConcurrency);
+            try (ProgressReporter progress = new ProgressReporter("resolveCommits"))
+            {
+                ProgressReporter.Stage walked = progress.stage("commits walked");
+                pipeline.run(logCommand.call(), (commit) -> walkCommit(commit, predicateLog), (commit) ->
+                {
+                    addWalkedCommit(commit);
+                    walked.increment();
+                });
+                stage.addItems(walked.getCount());
+            }
+            LOG.info("Resolved commits: {}", pipeline);
+            metrics.setWalkStages(pipeline.getStages());
         }
-        return commit;
     }
 
     private static Predicate<GitCommit> getGitCommitPredicate(Collection<Predicate<GitCommit>> filters)
@@ -290,103 +504,413 @@ public class ChangelogTool
         return predicate;
     }
 
-    private void collectIssueReferences(GitCommit commit)
+    /**
+     * A commit of the walk, with the issues it references and its details, as built by a worker of the pipeline.
+     */
+    private static class WalkedCommit
     {
-        Set<Integer> issueNums = new HashSet<>();
-        issueNums.addAll(IssueScanner.scan(commit.getTitle()));
-        issueNums.addAll(IssueScanner.scan(commit.getBody()));
-        for (int issueNum : issueNums)
+        private final GitCommit commit;
+        private final int[] issueNums;
+        private final String output;
+
+        private WalkedCommit(GitCommit commit, int[] issueNums, String output)
         {
-            Issue issue = issueMap.get(issueNum);
-            if (issue == null)
-            {
-                issue = new Issue(issueNum);
-                issueMap.put(issueNum, issue);
-            }
-            issue.addCommit(commit.getSha());
+            this.commit = commit;
+            this.issueNums = issueNums;
+            this.output = output;
         }
     }
 
-    public void resolveUnknownIssues()
+    /**
+     * Build a commit of the walk, without touching the commit and issue tables, called concurrently.
+     */
+    private WalkedCommit walkCommit(RevCommit commit, Predicate<GitCommit> predicateLog)
     {
-        boolean done = false;
+        Author author = getAuthor(commit);
+
+        GitCommit gitCommit = new GitCommit(commit);
+
+        gitCommit.setCommitTime(ZonedDateTime.ofInstant(Instant.ofEpochMilli(commit.getCommitTime()), ZoneId.systemDefault()));
+        gitCommit.setAuthor(author);
+        gitCommit.setTitle(commit.getShortMessage());
+        gitCommit.setBody(commit.getFullMessage());
+        gitCommit.setMerge(isMergeCommit(commit));
 
-        while (!done)
+        IntStream.Builder issueNums = IntStream.builder();
+        IssueScanner.scan(gitCommit.getTitle(), issueNums);
+        IssueScanner.scan(gitCommit.getBody(), issueNums);
+
+        if (!predicateLog.test(gitCommit))
         {
-            List<Issue> unknownIssues = issueMap.values().stream()
-                .filter((issue) -> issue.getType() == Issue.Type.UNKNOWN)
-                .collect(Collectors.toList());
+            gitCommit.setSkipped(true);
+        }
 
-            if (unknownIssues.isEmpty())
-                done = true;
+        // Only formatted when logged
+        boolean details = COMMITS_LOG.isInfoEnabled();
+        String output = null;
+        if (details && onelineOutput)
+        {
+            output = String.format("Commit: [%s] %s - %s", commit.getId().getName(), author.toNiceName(), commit.getShortMessage());
+        }
+        else if (details)
+        {
+            output = String.format("----------------%n") +
+                String.format("Commit: %s (%s)%n", commit.getShortMessage(), commit.getId().getName()) +
+                String.format("Author: %s%n", commit.getAuthorIdent()) +
+                String.format("Committer: %s%n", commit.getCommitterIdent()) +
+                String.format("Parents: %s%n", Stream.of(commit.getParents()).map((rc) -> rc.getId().getName()).collect(Collectors.joining(", "))) +
+                String.format("Branches: %s%n", String.join(", ", gitCommit.getBranches())) +
+                commit.getFullMessage();
+        }
+
+        return new WalkedCommit(gitCommit, issueNums.build().toArray(), output);
+    }
+
+    /**
+     * Add a commit of the walk to the commit and issue tables, only called by the thread running the pipeline.
+     */
+    private void addWalkedCommit(WalkedCommit walked)
+    {
+        // The commits of the previous state are excluded from the walk, so the commit is a new one
+        GitCommit commit = commitMap.addIfAbsent(walked.commit);
+        for (int issueNum : walked.issueNums)
+        {
+            issueMap.computeIfAbsent(issueNum, Issue::new).addCommit(commit);
+        }
+        if (walked.output != null)
+            COMMITS_LOG.info(walked.output);
+    }
+
+    /**
+     * Resolve the GitHub logins of the authors added for the unknown emails of the commits,
+     * by the first commit of each, in GraphQL batches of {@link #setGraphqlBatchSize(int)} commits
+     * (or else REST requests, {@link #setResolveConcurrency(int)} at a time).
+     * <p>
+     * An author whose login is already known is merged into the known author, for all their commits.
+     * </p>
+     */
+    public void resolveAuthors() throws IOException, InterruptedException
+    {
+        try (ChangelogMetrics.Stage stage = metrics.stage("resolveAuthors"))
+        {
+            if (unresolvedAuthors.isEmpty())
+                return;
+
+            Map<String, Author> byCommit = new LinkedHashMap<>();
+            unresolvedAuthors.forEach((author, commitId) -> byCommit.put(commitId.getName(), author));
+            unresolvedAuthors.clear();
+            stage.addItems(byCommit.size());
+            System.out.printf("Resolving %,d unknown authors ...%n", byCommit.size());
+
+            Map<String, String> logins = new ConcurrentHashMap<>();
+            if (graphqlBatchSize > 0)
+            {
+                CommitAuthorFetcher fetcher = new CommitAuthorFetcher(getGitHubApi(), githubOwner, githubRepoName, graphqlBatchSize);
+                logins.putAll(fetcher.get(byCommit.keySet()));
+            }
             else
             {
-                int issuesLeft = unknownIssues.size();
-                for (Issue unknownIssue : unknownIssues)
+                List<Callable<Void>> tasks = new ArrayList<>();
+                for (String commitId : byCommit.keySet())
                 {
-                    LOG.info("Need to resolve {} more issues ...", issuesLeft--);
-                    resolveUnknownIssue(unknownIssue);
+                    tasks.add(() ->
+                    {
+                        try
+                        {
+                            Commit ghCommit = getGitHubApi().commit(githubOwner, githubRepoName, commitId);
+                            if ((ghCommit != null) && (ghCommit.getAuthor() != null))
+                                logins.put(commitId, ghCommit.getAuthor().getLogin());
+                        }
+                        catch (GitHubResourceNotFoundException e)
+                        {
+                            System.out.printf("Not a valid commit id: %s%n", commitId);
+                        }
+                        return null;
+                    });
                 }
+                invokeAll(tasks, resolveConcurrency, "Unable to resolve author");
+            }
+
+            Map<Author, Author> merged = new IdentityHashMap<>();
+            for (Map.Entry<String, Author> entry : byCommit.entrySet())
+            {
+                String login = logins.get(entry.getKey());
+                if (login == null)
+                {
+                    System.out.printf("Has no author: %s%n", entry.getKey());
+                    continue;
+                }
+                Author author = authors.setGithub(entry.getValue(), login);
+                if (author != entry.getValue())
+                    merged.put(entry.getValue(), author);
+            }
+
+            if (!merged.isEmpty())
+            {
+                for (GitCommit commit : commitMap)
+                {
+                    Author author = merged.get(commit.getAuthor());
+                    if (author != null)
+                        commit.setAuthor(author);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolve all UNKNOWN issues against GitHub.
+     * <p>
+     * Issues are resolved in waves, each wave being the set of UNKNOWN issues at the start of the wave.
+     * The issues in a wave are resolved concurrently, and any issue discovered during a wave
+     * is resolved in the next wave. An issue that fails to resolve in {@value #MAX_RESOLVE_ATTEMPTS}
+     * waves is left unknown, to be resolved again by the next run.
+     * </p>
+     */
+    public void resolveUnknownIssues() throws IOException, InterruptedException
+    {
+        try (ChangelogMetrics.Stage stage = metrics.stage("resolveUnknownIssues"))
+        {
+            resetChangedIssues();
+
+            boolean done = false;
+            Map<Integer, Integer> failures = new ConcurrentHashMap<>();
+
+            while (!done)
+            {
+                List<Issue> unknownIssues = issueMap.values().stream()
+                    .filter((issue) -> issue.getType() == Issue.Type.UNKNOWN)
+                    .filter((issue) -> failures.getOrDefault(issue.getNum(), 0) < MAX_RESOLVE_ATTEMPTS)
+                    .collect(Collectors.toList());
+
+                stage.addItems(unknownIssues.size());
+                if (unknownIssues.isEmpty())
+                    done = true;
+                else
+                    resolveUnknownIssueWave(unknownIssues, failures);
+            }
+
+            long unresolved = failures.values().stream().filter((attempts) -> attempts >= MAX_RESOLVE_ATTEMPTS).count();
+            if (unresolved > 0)
+                LOG.warn("Unable to resolve {} issues after {} attempts, left unknown", unresolved, MAX_RESOLVE_ATTEMPTS);
+
+            // Back reference the issues into the commits, the issues of a previous run may have changed
+            commitMap.forEach(GitCommit::clearRefs);
+            for (Issue issue : issueMap.values())
+            {
+                for (AnyObjectId commitId : issue.getCommits())
+                {
+                    // Only pull in commits found via log, don't create new ones.
+                    // This is done to avoid referencing commits outside of the log range.
+                    GitCommit gitCommit = commitMap.get(commitId);
+                    if (gitCommit != null)
+                    {
+                        if (issue.getType() == Issue.Type.ISSUE)
+                            gitCommit.addIssueRef(issue.getNum());
+                        else if (issue.getType() == Issue.Type.PULL_REQUEST)
+                            gitCommit.addPullRequestRef(issue.getNum());
+                    }
+                }
+            }
+        }
+    }
+
+    private void resolveUnknownIssueWave(List<Issue> unknownIssues, Map<Integer, Integer> failures) throws IOException, InterruptedException
+    {
+        // Don't run more requests at the same time than the rate limit has left
+        int rateRemaining = getGitHubApi().getRateRemaining("core");
+        int concurrency = Math.max(1, Math.min(resolveConcurrency, rateRemaining));
+        LOG.info("Resolving wave of {} issues (concurrency: {}, rate remaining: {})", unknownIssues.size(), concurrency, rateRemaining);
+
+        Map<Integer, IssueBatchFetcher.Result> prefetched = (graphqlBatchSize > 0) ? prefetchIssues(unknownIssues) : Map.of();
+
+        AtomicInteger issuesLeft = new AtomicInteger(unknownIssues.size());
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Issue unknownIssue : unknownIssues)
+        {
+            tasks.add(() ->
+            {
+                LOG.info("Need to resolve {} more issues ...", issuesLeft.getAndDecrement());
+                try
+                {
+                    resolveUnknownIssue(unknownIssue, prefetched.get(unknownIssue.getNum()));
+                }
+                catch (IOException e)
+                {
+                    LOG.warn("Unable to resolve issue #{}", unknownIssue.getNum(), e);
+                    failures.merge(unknownIssue.getNum(), 1, Integer::sum);
+                    // Partly resolved, it is resolved again from the start
+                    unknownIssue.setType(Issue.Type.UNKNOWN);
+                }
+                if (unknownIssue.getType() != Issue.Type.UNKNOWN)
+                    issueResolvedAt.put(unknownIssue.getNum(), System.currentTimeMillis());
+                return null;
+            });
+        }
+        invokeAll(tasks, concurrency, "Unable to resolve issue");
+    }
+
+    /**
+     * Reset the issues of a previous run whose GitHub resources changed since they were resolved,
+     * so that they are resolved again, along with the new issues.
+     * The issues resolved via GraphQL are checked in batches, the others via their REST resources.
+     */
+    private void resetChangedIssues() throws IOException, InterruptedException
+    {
+        if (issueResolvedAt.isEmpty())
+            return;
+
+        Map<Integer, Long> graphqlChanged = Map.of();
+        if (graphqlBatchSize > 0)
+        {
+            IssueBatchFetcher fetcher = new IssueBatchFetcher(getGitHubApi(), githubOwner, githubRepoName, graphqlBatchSize);
+            try
+            {
+                graphqlChanged = fetcher.getLastChanged(issueResolvedAt.keySet());
+            }
+            catch (GitHubApiException e)
+            {
+                LOG.warn("Unable to check issues via GraphQL, falling back to REST", e);
+            }
+        }
+
+        Set<Integer> changed = ConcurrentHashMap.newKeySet();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Map.Entry<Integer, Long> resolved : issueResolvedAt.entrySet())
+        {
+            int issueNum = resolved.getKey();
+            long resolvedAt = resolved.getValue();
+            Long lastChangedViaGraphql = graphqlChanged.get(issueNum);
+            if (lastChangedViaGraphql != null)
+            {
+                if (lastChangedViaGraphql > resolvedAt)
+                    changed.add(issueNum);
+                continue;
             }
+            tasks.add(() ->
+            {
+                long lastChanged = getGitHubApi().getIssueLastChanged(githubOwner, githubRepoName, issueNum);
+                if ((lastChanged < 0) || (lastChanged > resolvedAt))
+                    changed.add(issueNum);
+                return null;
+            });
         }
+        invokeAll(tasks, resolveConcurrency, "Unable to check issue");
+        LOG.info("{} of {} previously resolved issues changed", changed.size(), issueResolvedAt.size());
+        if (changed.isEmpty())
+            return;
 
-        // Back reference the issues into the commits
-        for (Issue issue : issueMap.values())
+        // Start over on the changed issues, only keeping the references from the commit messages
+        for (int issueNum : changed)
+        {
+            issueMap.put(issueNum, new Issue(issueNum));
+            issueResolvedAt.remove(issueNum);
+        }
+        for (GitCommit commit : commitMap)
         {
-            for (String commitSha : issue.getCommits())
+            IntConsumer addCommit = (issueNum) ->
             {
-                // Only pull in commits found via log, don't create new ones.
-                // This is done to avoid referencing commits outside of the log range.
-                GitCommit gitCommit = commitMap.get(commitSha.toLowerCase(Locale.US));
-                if (gitCommit != null)
+                if (changed.contains(issueNum))
+                    issueMap.get(issueNum).addCommit(commit);
+            };
+            IssueScanner.scan(commit.getTitle(), addCommit);
+            IssueScanner.scan(commit.getBody(), addCommit);
+        }
+    }
+
+    /**
+     * Run the tasks with at most {@code concurrency} of them at the same time, failing on the first failed task.
+     */
+    private static void invokeAll(List<Callable<Void>> tasks, int concurrency, String failure) throws IOException, InterruptedException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try
+        {
+            for (Future<Void> result : executor.invokeAll(tasks))
+            {
+                try
+                {
+                    result.get();
+                }
+                catch (ExecutionException e)
                 {
-                    if (issue.getType() == Issue.Type.ISSUE)
-                        gitCommit.addIssueRef(issue.getNum());
-                    else if (issue.getType() == Issue.Type.PULL_REQUEST)
-                        gitCommit.addPullRequestRef(issue.getNum());
+                    if (e.getCause() instanceof InterruptedException)
+                        throw (InterruptedException)e.getCause();
+                    if (e.getCause() instanceof RuntimeException)
+                        throw (RuntimeException)e.getCause();
+                    throw new IOException(failure, e.getCause());
                 }
             }
         }
+        finally
+        {
+            executor.shutdownNow();
+        }
     }
 
-    private void resolveUnknownIssue(Issue issue)
+    /**
+     * Prefetch the issues via GraphQL batches, so that {@link #resolveUnknownIssue(Issue, IssueBatchFetcher.Result)}
+     * does not need the REST lookups for them.
+     *
+     * @return the prefetched issues, empty if GraphQL failed
+     */
+    private Map<Integer, IssueBatchFetcher.Result> prefetchIssues(List<Issue> issues) throws IOException, InterruptedException
     {
+        IssueBatchFetcher fetcher = new IssueBatchFetcher(getGitHubApi(), githubOwner, githubRepoName, graphqlBatchSize);
+        List<Integer> issueNums = issues.stream().map(Issue::getNum).collect(Collectors.toList());
         try
         {
-            org.eclipse.jetty.toolchain.github.Issue ghIssue = getGitHubApi().issue(githubOwner, githubRepoName, issue.getNum());
-            issue.addLabels(ghIssue.getLabels().stream().map(Label::getName).collect(Collectors.toSet()));
+            Map<Integer, IssueBatchFetcher.Result> results = fetcher.get(issueNums);
+            LOG.info("Prefetched {} issues via GraphQL", results.size());
+            return results;
+        }
+        catch (GitHubApiException e)
+        {
+            LOG.warn("Unable to prefetch issues via GraphQL, falling back to REST", e);
+            return Map.of();
+        }
+    }
 
-            if (ghIssue.getPullRequest() != null)
+    /**
+     * @param issue the issue to resolve
+     * @param prefetched the issue prefetched via GraphQL, or null to look it up via REST
+     */
+    private void resolveUnknownIssue(Issue issue, IssueBatchFetcher.Result prefetched) throws IOException, InterruptedException
+    {
+        if ((prefetched != null) && !prefetched.isComplete())
+            prefetched = null;
+
+        try
+        {
+            if (prefetched != null)
             {
-                org.eclipse.jetty.toolchain.github.PullRequest ghPullRequest = getGitHubApi().pullRequest(githubOwner, githubRepoName, issue.getNum());
-                issue.addLabels(ghPullRequest.getLabels().stream().map(Label::getName).collect(Collectors.toSet()));
-                issue.setBaseRef(ghPullRequest.getBase().getRef());
-                issue.setTitle(ghPullRequest.getTitle());
-                issue.setBody(ghPullRequest.getBody());
-                issue.setType(Issue.Type.PULL_REQUEST);
+                issue.addLabels(prefetched.getLabels());
+                issue.setTitle(prefetched.getTitle());
+                issue.setBody(prefetched.getBody());
+                if (prefetched.isPullRequest())
+                {
+                    issue.setBaseRef(prefetched.getBaseRef());
+                    issue.setType(Issue.Type.PULL_REQUEST);
+                }
+                else
+                {
+                    issue.setType(Issue.Type.ISSUE);
+                }
             }
             else
             {
-                issue.setTitle(ghIssue.getTitle());
-                issue.setBody(ghIssue.getBody());
-                issue.setType(Issue.Type.ISSUE);
+                resolveIssueFields(issue);
             }
 
             Set<Integer> issueRefs = new HashSet<>();
-            issueRefs.addAll(IssueScanner.scan(issue.getTitle()));
-            issueRefs.addAll(IssueScanner.scan(issue.getBody()));
+            IssueScanner.scan(issue.getTitle(), issueRefs::add);
+            IssueScanner.scan(issue.getBody(), issueRefs::add);
             issueRefs.remove(issue.getNum());
             issue.addReferencedIssues(issueRefs);
 
             // Discover any newly referenced issue for later resolve
             for (int issueNum : issueRefs)
             {
-                Issue ref = issueMap.get(issueNum);
-                if (ref == null)
-                {
-                    ref = new Issue(issueNum);
-                    issueMap.put(issueNum, ref);
-                }
+                issueMap.computeIfAbsent(issueNum, Issue::new);
             }
 
             // Test labels
@@ -399,7 +923,11 @@ public class ChangelogTool
                 }
             }
 
-            if (issue.getType() == Issue.Type.ISSUE)
+            if (prefetched != null)
+            {
+                prefetched.getCommits().forEach(issue::addCommit);
+            }
+            else if (issue.getType() == Issue.Type.ISSUE)
             {
                 org.eclipse.jetty.toolchain.github.IssueEvents ghIssueEvents = getGitHubApi().issueEvents(githubOwner, githubRepoName, issue.getNum());
                 for (IssueEvents.IssueEvent event : ghIssueEvents)
@@ -424,47 +952,96 @@ public class ChangelogTool
             issue.setType(Issue.Type.INVALID);
             issue.setSkip(true);
         }
-        catch (IOException | InterruptedException e)
+    }
+
+    /**
+     * Resolve the type and fields of the issue via the REST API.
+     */
+    private void resolveIssueFields(Issue issue) throws IOException, InterruptedException
+    {
+        org.eclipse.jetty.toolchain.github.Issue ghIssue = getGitHubApi().issue(githubOwner, githubRepoName, issue.getNum());
+        issue.addLabels(ghIssue.getLabels().stream().map(Label::getName).collect(Collectors.toSet()));
+
+        if (ghIssue.getPullRequest() != null)
+        {
+            org.eclipse.jetty.toolchain.github.PullRequest ghPullRequest = getGitHubApi().pullRequest(githubOwner, githubRepoName, issue.getNum());
+            issue.addLabels(ghPullRequest.getLabels().stream().map(Label::getName).collect(Collectors.toSet()));
+            issue.setBaseRef(ghPullRequest.getBase().getRef());
+            issue.setTitle(ghPullRequest.getTitle());
+            issue.setBody(ghPullRequest.getBody());
+            issue.setType(Issue.Type.PULL_REQUEST);
+        }
+        else
         {
-            e.printStackTrace();
+            issue.setTitle(ghIssue.getTitle());
+            issue.setBody(ghIssue.getBody());
+            issue.setType(Issue.Type.ISSUE);
         }
     }
 
-    public void resolvePullRequestCommits() throws IOException, GitAPIException
+    public void resolvePullRequestCommits() throws IOException, InterruptedException
     {
-        List<Issue> sortedPullRequests = getRelevantPullRequests();
-
-        int prsLeft = sortedPullRequests.size();
-        System.out.printf("Resolving commit branches and paths on %,d pull requests ...%n", prsLeft);
+        try (ChangelogMetrics.Stage stage = metrics.stage("resolvePullRequestCommits"))
+        {
+            List<Issue> sortedPullRequests = getRelevantPullRequests();
 
-        Predicate<String> branchesExclusionPredicate = getStringPredicate(branchExclusion);
+            System.out.printf("Resolving commit branches and paths on %,d pull requests ...%n", sortedPullRequests.size());
 
-        // Now populate the time consume parts
-        try (RevWalk walk = new RevWalk(repository))
-        {
+            // Collect the commits of the pull requests, each commit only once
+            Map<String, GitCommit> commits = new LinkedHashMap<>();
             for (Issue issue : sortedPullRequests)
             {
-                System.out.printf("\r%,d pull-requests left ...      ", prsLeft--);
-
-                for (String commitSha : issue.getCommits())
+                for (AnyObjectId commitId : issue.getCommits())
                 {
-                    GitCommit commit = commitMap.get(commitSha.toLowerCase(Locale.US));
+                    GitCommit commit = commitMap.get(commitId);
                     if ((commit != null) && (!commit.isSkipped()))
+                        commits.putIfAbsent(commit.getSha(), commit);
+                }
+            }
+            stage.addItems(commits.size());
+
+            // The time consuming diffs are done in parallel, once (a previous run may have done them)
+            List<String> commitsToDiff = commits.values().stream()
+                .filter((commit) -> commit.getFiles() == null)
+                .map(GitCommit::getSha)
+                .collect(Collectors.toList());
+            Map<String, Set<String>> pathsInCommits = collectPathsInCommits(commitsToDiff);
+            for (Map.Entry<String, Set<String>> paths : pathsInCommits.entrySet())
+            {
+                commits.get(paths.getKey()).setFiles(paths.getValue());
+            }
+
+            // Only commits with files left need their branches, which only change when a branch moves
+            Map<String, String> tips = new LinkedHashMap<>();
+            ReachabilityIndex.getBranchTips(repository, RELEASE_BRANCH_PREFIX, RELEASE_BRANCH_FILTER)
+                .forEach((name, tip) -> tips.put(name, tip.getName()));
+            boolean branchesMoved = !tips.equals(branchTips);
+            branchTips = tips;
+            List<ObjectId> commitsWithFiles = commits.values().stream()
+                .filter((commit) -> !commit.getFiles().isEmpty())
+                .filter((commit) -> branchesMoved || (commit.getBranches() == null))
+                .map(GitCommit::toObjectId)
+                .collect(Collectors.toList());
+            ReachabilityIndex branchIndex = newBranchIndex(commitsWithFiles);
+
+            Predicate<String> branchesExclusionPredicate = getStringPredicate(branchExclusion);
+
+            try (ProgressReporter progress = new ProgressReporter("resolvePullRequestCommits"))
+            {
+                ProgressReporter.Stage resolved = progress.stage("commits resolved", commits.size());
+                for (GitCommit commit : commits.values())
+                {
+                    resolved.increment();
+
+                    if (commit.getFiles().isEmpty())
                     {
-                        ObjectId commitId = ObjectId.fromString(commitSha);
-                        RevCommit revCommit = walk.parseCommit(commitId);
-                        Set<String> listOfFiles = collectPathsInCommit(revCommit);
-                        commit.setFiles(listOfFiles);
-                        if (listOfFiles.isEmpty())
-                        {
-                            commit.setSkipped(true);
-                            continue; // skip this commit, no files left
-                        }
-                        Set<String> branchesWithCommit = getBranchesWithCommit(commitSha);
-                        commit.setBranches(branchesWithCommit);
-                        if (branchesWithCommit.stream().anyMatch(branchesExclusionPredicate))
-                            commit.setSkipped(true);
+                        commit.setSkipped(true);
+                        continue; // skip this commit, no files left
                     }
+                    if (branchIndex.contains(commit))
+                        commit.setBranches(branchIndex.getBranchesWithCommit(commit));
+                    if (commit.getBranches().stream().anyMatch(branchesExclusionPredicate))
+                        commit.setSkipped(true);
                 }
             }
         }
@@ -480,57 +1057,145 @@ public class ChangelogTool
             .collect(Collectors.toList());
     }
 
-    public void writeMarkdown(Path markdownOutput) throws IOException
+    /**
+     * @return all the issues, sorted by number
+     */
+    private List<Issue> getSortedIssues()
     {
-        try (BufferedWriter writer = Files.newBufferedWriter(markdownOutput, UTF_8);
-             PrintWriter out = new PrintWriter(writer))
+        Issue[] issues = issueMap.values().toArray(new Issue[0]);
+        Arrays.sort(issues, Comparator.comparingInt(Issue::getNum));
+        return Arrays.asList(issues);
+    }
+
+    /**
+     * @return all the commits, sorted by commit time
+     */
+    private List<GitCommit> getSortedCommits()
+    {
+        GitCommit[] commits = new GitCommit[commitMap.size()];
+        int i = 0;
+        for (GitCommit commit : commitMap)
         {
-            List<Issue> sortedPullRequests = getRelevantPullRequests();
+            commits[i++] = commit;
+        }
+        // The binary order of the ids is the order of their hex names
+        Arrays.sort(commits, Comparator.comparing(GitCommit::getCommitTime).thenComparing(AnyObjectId::compareTo));
+        return Arrays.asList(commits);
+    }
 
-            // Collect list of community member participation
-            Set<String> community = new HashSet<>();
-            for (Issue issue : sortedPullRequests)
+    /**
+     * Write all the issues, sorted by number.
+     *
+     * @param output the JSON (or NDJSON) file
+     */
+    public void writeIssuesJson(Path output) throws IOException
+    {
+        try (ChangelogMetrics.Stage stage = metrics.stage("writeIssuesJson"))
+        {
+            List<Issue> issues = getSortedIssues();
+            try (EntriesWriter<Issue> writer = new EntriesWriter<>(Files.newBufferedWriter(output, UTF_8), new IssueTypeAdapter(), ndjsonOutput))
             {
-                community.addAll(collectCommunityCommitAuthors(issue.getCommits()));
+                for (Issue issue : issues)
+                {
+                    writer.write(issue);
+                }
             }
+            stage.addItems(issues.size());
+        }
+    }
 
-            out.println("# Changelog");
-            out.println();
-
-            if (!community.isEmpty())
+    /**
+     * Write all the commits, sorted by commit time.
+     *
+     * @param output the JSON (or NDJSON) file
+     */
+    public void writeCommitsJson(Path output) throws IOException
+    {
+        try (ChangelogMetrics.Stage stage = metrics.stage("writeCommitsJson"))
+        {
+            List<GitCommit> commits = getSortedCommits();
+            try (EntriesWriter<GitCommit> writer = new EntriesWriter<>(Files.newBufferedWriter(output, UTF_8), new GitCommitTypeAdapter(), ndjsonOutput))
             {
-                out.printf("**Special thanks to the following Eclipse Jetty community members for participating in this release: %s**%n",
-                    String.join(", ", community));
-                out.println();
+                for (GitCommit commit : commits)
+                {
+                    writer.write(commit);
+                }
             }
+            stage.addItems(commits.size());
+        }
+    }
 
-            for (Issue issue : sortedPullRequests)
+    /**
+     * Write all the commits and issues (in the order of their JSON files) as a binary snapshot.
+     *
+     * @param output the snapshot file
+     * @see ChangelogSnapshot
+     */
+    public void writeSnapshot(Path output) throws IOException
+    {
+        try (ChangelogMetrics.Stage stage = metrics.stage("writeSnapshot"))
+        {
+            List<GitCommit> commits = getSortedCommits();
+            ChangelogSnapshot.write(output, commits, getSortedIssues());
+            stage.addItems(commits.size());
+        }
+    }
+
+    public void writeMarkdown(Path markdownOutput) throws IOException
+    {
+        try (ChangelogMetrics.Stage stage = metrics.stage("writeMarkdown"))
+        {
+            try (BufferedWriter writer = Files.newBufferedWriter(markdownOutput, UTF_8);
+                 PrintWriter out = new PrintWriter(writer))
             {
-                String title = issue.getTitle();
-                title = title.replaceAll("Issue #?[0-9]{3,5}", "");
-                title = title.replaceAll("Fixe[sd] #?[0-9]{3,5}", "");
-                title = title.replaceAll("Fix #?[0-9]{3,5}", "");
-                title = title.replaceAll("Resolve[sd] #?[0-9]{3,5}", "");
-                title = title.replaceAll("^\\s*[.:-]*", "");
-                title = title.replaceAll("^\\s*", "");
-                out.printf("+ #%d - %s", issue.getNum(), title);
-                Set<String> authors = collectCommunityCommitAuthors(issue.getCommits());
-                if (!authors.isEmpty())
+                List<Issue> sortedPullRequests = getRelevantPullRequests();
+                stage.addItems(sortedPullRequests.size());
+
+                // Collect list of community member participation
+                Set<String> community = new HashSet<>();
+                for (Issue issue : sortedPullRequests)
+                {
+                    community.addAll(collectCommunityCommitAuthors(issue.getCommits()));
+                }
+
+                out.println("# Changelog");
+                out.println();
+
+                if (!community.isEmpty())
                 {
-                    out.printf(" (%s)", String.join(", ", authors));
+                    out.printf("**Special thanks to the following Eclipse Jetty community members for participating in this release: %s**%n",
+                        String.join(", ", community));
+                    out.println();
+                }
+
+                for (Issue issue : sortedPullRequests)
+                {
+                    String title = issue.getTitle();
+                    title = title.replaceAll("Issue #?[0-9]{3,5}", "");
+                    title = title.replaceAll("Fixe[sd] #?[0-9]{3,5}", "");
+                    title = title.replaceAll("Fix #?[0-9]{3,5}", "");
+                    title = title.replaceAll("Resolve[sd] #?[0-9]{3,5}", "");
+                    title = title.replaceAll("^\\s*[.:-]*", "");
+                    title = title.replaceAll("^\\s*", "");
+                    out.printf("+ #%d - %s", issue.getNum(), title);
+                    Set<String> authors = collectCommunityCommitAuthors(issue.getCommits());
+                    if (!authors.isEmpty())
+                    {
+                        out.printf(" (%s)", String.join(", ", authors));
+                    }
+                    out.print("\n");
                 }
-                out.print("\n");
             }
         }
     }
 
-    private Set<String> collectCommunityCommitAuthors(Set<String> commits)
+    private Set<String> collectCommunityCommitAuthors(List<AnyObjectId> commits)
     {
         Set<String> authors = new HashSet<>();
 
-        for (String sha : commits)
+        for (AnyObjectId commitId : commits)
         {
-            GitCommit commit = commitMap.get(sha.toLowerCase(Locale.US));
+            GitCommit commit = commitMap.get(commitId);
             if (commit == null)
                 continue; // skip
             if (commit.getAuthor() == null)
@@ -549,34 +1214,102 @@ public class ChangelogTool
         return ((commit.getParents() != null) && (commit.getParents().length >= 2));
     }
 
-    private Set<String> getBranchesWithCommit(String commitId) throws GitAPIException
+    /**
+     * Index which of the {@code refs/remotes/origin/jetty-*.x} branches contain the commits.
+     */
+    ReachabilityIndex newBranchIndex(Collection<ObjectId> commits) throws IOException
     {
-        return git.branchList()
-            .setListMode(ListBranchCommand.ListMode.ALL)
-            .setContains(commitId)
-            .call()
-            .stream()
-            .map(Ref::getName)
-            .filter((name) -> name.startsWith("refs/remotes/origin/jetty-"))
-            .filter((name) -> name.endsWith(".x"))
-            .collect(Collectors.toSet());
+        try (ChangelogMetrics.Stage stage = metrics.stage("branchIndex"))
+        {
+            stage.addItems(commits.size());
+            long start = System.nanoTime();
+            ReachabilityIndex index = ReachabilityIndex.build(repository, RELEASE_BRANCH_PREFIX, RELEASE_BRANCH_FILTER, commits);
+            LOG.info("Indexed {} commits on {} branches in {} ms", commits.size(), index.getBranches().size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return index;
+        }
     }
 
-    private Set<String> collectPathsInCommit(RevCommit commit) throws IOException, GitAPIException
+    /**
+     * Collect the (non excluded) paths changed in each of the commits.
+     * <p>
+     * The commits are diffed in parallel by {@link #setDiffConcurrency(int)} workers,
+     * each worker using its own {@link CommitDiffer}.
+     * </p>
+     *
+     * @param commitShas the commits to diff
+     * @return the map of commit sha to paths changed in that commit
+     */
+    Map<String, Set<String>> collectPathsInCommits(Collection<String> commitShas) throws IOException, InterruptedException
     {
-        final String sha = commit.getId().getName();
-        final List<DiffEntry> diffs = git.diff()
-            .setOldTree(prepareTreeParser(sha + "^"))
-            .setNewTree(prepareTreeParser(sha))
-            .call();
+        try (ChangelogMetrics.Stage stage = metrics.stage("diffCommits"))
+        {
+            List<String> shas = new ArrayList<>(commitShas);
+            stage.addItems(shas.size());
+            Map<String, Set<String>> pathsInCommits = new ConcurrentHashMap<>();
+            if (shas.isEmpty())
+                return pathsInCommits;
+
+            int concurrency = Math.min(diffConcurrency, shas.size());
+            AtomicInteger next = new AtomicInteger();
+            List<Callable<Void>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++)
+            {
+                workers.add(() ->
+                {
+                    try (CommitDiffer differ = newCommitDiffer())
+                    {
+                        int index;
+                        while ((index = next.getAndIncrement()) < shas.size())
+                        {
+                            String sha = shas.get(index);
+                            RevCommit commit = differ.parseCommit(ObjectId.fromString(sha));
+                            pathsInCommits.put(sha, collectPathsInCommit(differ, commit));
+                        }
+                    }
+                    return null;
+                });
+            }
+
+            long start = System.nanoTime();
+            invokeAll(workers, concurrency, "Unable to diff commit");
+
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            LOG.info("Diffed {} commits in {} ms ({} commits/sec, concurrency: {})",
+                shas.size(), (long)(seconds * 1000), String.format("%,.1f", shas.size() / seconds), concurrency);
+            return pathsInCommits;
+        }
+    }
+
+    /**
+     * Create a {@link CommitDiffer} on the repository, for use by a single thread.
+     */
+    public CommitDiffer newCommitDiffer()
+    {
+        CommitDiffer differ = new CommitDiffer(repository);
+        differ.setPathFilter(PathRule.toExclusionFilter(commitPathExclusionRules));
+        return differ;
+    }
+
+    /**
+     * Collect the (non excluded) paths changed by the commit, compared to its first parent.
+     *
+     * @param differ the differ of the calling thread
+     * @param commit the already parsed commit
+     * @return the paths changed
+     */
+    public Set<String> collectPathsInCommit(CommitDiffer differ, RevCommit commit) throws IOException
+    {
+        final List<DiffEntry> diffs = differ.diff(commit);
 
         final Set<String> paths = new HashSet<>();
 
         for (DiffEntry diff : diffs)
         {
-            if (!isExcludedPath(diff.getOldPath()))
+            // The old path of an add, and the new path of a delete, are "/dev/null"
+            if (!DiffEntry.DEV_NULL.equals(diff.getOldPath()) && !isExcludedPath(diff.getOldPath()))
                 paths.add(diff.getOldPath());
-            if (!isExcludedPath(diff.getNewPath()))
+            if (!DiffEntry.DEV_NULL.equals(diff.getNewPath()) && !isExcludedPath(diff.getNewPath()))
                 paths.add(diff.getNewPath());
         }
 
@@ -593,25 +1326,7 @@ public class ChangelogTool
         return false;
     }
 
-    private AbstractTreeIterator prepareTreeParser(String objectId) throws IOException
-    {
-        try (RevWalk walk = new RevWalk(repository))
-        {
-            RevCommit commit = walk.parseCommit(repository.resolve(objectId));
-            RevTree tree = walk.parseTree(commit.getTree().getId());
-
-            CanonicalTreeParser treeParser = new CanonicalTreeParser();
-            try (ObjectReader reader = repository.newObjectReader())
-            {
-                treeParser.reset(reader, tree.getId());
-            }
-
-            walk.dispose();
-            return treeParser;
-        }
-    }
-
-    private GitHubApi getGitHubApi() throws IOException, InterruptedException
+    private synchronized GitHubApi getGitHubApi() throws IOException, InterruptedException
     {
         if (github == null)
         {
@@ -621,46 +1336,22 @@ public class ChangelogTool
         return github;
     }
 
-    private Author getAuthor(Authors authors, RevCommit commit)
+    /**
+     * The author of the commit, by email, without a GitHub lookup.
+     * An unknown email is added as a community author, its GitHub login resolved by {@link #resolveAuthors()}.
+     */
+    private Author getAuthor(RevCommit commit)
     {
-        Author author = authors.find(commit.getAuthorIdent().getEmailAddress());
+        PersonIdent ident = commit.getAuthorIdent();
+        Author author = authors.find(ident.getEmailAddress());
 
         if (author == null)
         {
-            author = new Author(commit.getAuthorIdent().getName())
-                .email(commit.getAuthorIdent().getEmailAddress())
-                .committer(false);
-
-            try
-            {
-                String commitId = commit.getId().getName();
-                Commit ghCommit = getGitHubApi().commit(this.githubOwner, this.githubRepoName, commitId);
-                if (ghCommit != null)
-                {
-                    GitCommit gitCommit = getCommit(commitId);
-                    gitCommit.setBody(ghCommit.getCommit().getMessage());
-
-                    if (ghCommit.getAuthor() != null)
-                    {
-                        String githubAuthorLogin = ghCommit.getAuthor().getLogin();
-                        author.github(githubAuthorLogin);
-                        gitCommit.setAuthor(author);
-                    }
-                    else
-                    {
-                        System.out.printf("Has no author: %s%n", commitId);
-                    }
-                }
-                else
-                {
-                    System.out.printf("Not a valid commit id: %s%n", commitId);
-                }
-            }
-            catch (InterruptedException | IOException e)
-            {
-                e.printStackTrace();
-            }
-            authors.add(author);
+            author = authors.addIfAbsent(new Author(ident.getName())
+                .email(ident.getEmailAddress())
+                .committer(false));
+            // Resolved by the first commit of the author
+            unresolvedAuthors.putIfAbsent(author, commit.copy());
         }
 
         return author;
@@ -0,0 +1,108 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+
+/**
+ * Diff commits against their first parent, reusing a single {@link ObjectReader}, {@link RevWalk}
+ * and {@link DiffFormatter} for all the commits.
+ * <p>
+ * Not thread safe, use one instance per thread.
+ * </p>
+ */
+public class CommitDiffer implements AutoCloseable
+{
+    private final ObjectReader reader;
+    private final RevWalk walk;
+    private final DiffFormatter diffFormatter;
+    private final CanonicalTreeParser oldTree = new CanonicalTreeParser();
+    private final CanonicalTreeParser newTree = new CanonicalTreeParser();
+
+    public CommitDiffer(Repository repository)
+    {
+        this.reader = repository.newObjectReader();
+        this.walk = new RevWalk(reader);
+        this.walk.setRetainBody(false);
+        this.diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE);
+        this.diffFormatter.setReader(reader, repository.getConfig());
+        // Independent of the diff.renames configuration of the repository
+        this.diffFormatter.setDetectRenames(false);
+    }
+
+    /**
+     * Rename detection is disabled by default.
+     * When enabled, renames are reported as a single entry with both the old and new paths.
+     */
+    public void setDetectRenames(boolean detectRenames)
+    {
+        diffFormatter.setDetectRenames(detectRenames);
+    }
+
+    /**
+     * Only diff the paths included by the filter, eg: {@link PathRule#toExclusionFilter(java.util.Collection)}.
+     * Excluded directories are not descended into.
+     */
+    public void setPathFilter(TreeFilter filter)
+    {
+        diffFormatter.setPathFilter(filter);
+    }
+
+    public RevCommit parseCommit(AnyObjectId commitId) throws IOException
+    {
+        return walk.parseCommit(commitId);
+    }
+
+    /**
+     * Diff the commit against its first parent, or against the empty tree for a root commit.
+     *
+     * @param commit the commit, from {@link #parseCommit(AnyObjectId)} or any other {@link RevWalk}
+     * @return the diff entries
+     */
+    public List<DiffEntry> diff(RevCommit commit) throws IOException
+    {
+        walk.parseHeaders(commit);
+        AbstractTreeIterator parentTree;
+        if (commit.getParentCount() == 0)
+        {
+            parentTree = new EmptyTreeIterator();
+        }
+        else
+        {
+            RevCommit parent = commit.getParent(0);
+            walk.parseHeaders(parent);
+            oldTree.reset(reader, parent.getTree());
+            parentTree = oldTree;
+        }
+        newTree.reset(reader, commit.getTree());
+        return diffFormatter.scan(parentTree, newTree);
+    }
+
+    /**
+     * Release the parsed commits, to bound the memory used when diffing many commits.
+     */
+    public void dispose()
+    {
+        walk.dispose();
+    }
+
+    @Override
+    public void close()
+    {
+        diffFormatter.close();
+        walk.close();
+        reader.close();
+    }
+}
@@ -0,0 +1,356 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+
+/**
+ * Walk commits on a producer thread, process them on parallel workers, and aggregate the results
+ * on the calling thread, in the order of the walk.
+ * <p>
+ * The stages are connected by bounded queues of batches of commits, and the walk holds back once
+ * {@code 2 * workers} batches are walked but not aggregated yet: a slow stage (or a slow batch that
+ * the following batches wait on, to be aggregated in order) holds back the stages before it,
+ * rather than the walked commits piling up in memory.
+ * The time each stage is busy, and blocked on the queues, is kept per stage.
+ * </p>
+ *
+ * @param <R> the result of processing a commit
+ */
+public class CommitPipeline<R>
+{
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * The time spent by the threads of a stage.
+     */
+    public static class Stage
+    {
+        private final String name;
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong blockedNanos = new AtomicLong();
+
+        private Stage(String name)
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public long getItems()
+        {
+            return items.get();
+        }
+
+        /**
+         * @return the time spent working, summed over the threads of the stage
+         */
+        public long getBusyNanos()
+        {
+            return busyNanos.get();
+        }
+
+        /**
+         * @return the time spent waiting on the queue before or after the stage, summed over the threads of the stage
+         */
+        public long getBlockedNanos()
+        {
+            return blockedNanos.get();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s: %,d commits, %,d ms busy, %,d ms blocked", name, getItems(),
+                TimeUnit.NANOSECONDS.toMillis(getBusyNanos()), TimeUnit.NANOSECONDS.toMillis(getBlockedNanos()));
+        }
+    }
+
+    private static class Batch<T>
+    {
+        private static final Batch<?> END = new Batch<>(-1, Collections.emptyList());
+
+        private final long seq;
+        private final List<T> items;
+
+        private Batch(long seq, List<T> items)
+        {
+            this.seq = seq;
+            this.items = items;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Batch<T> end()
+        {
+            return (Batch<T>)END;
+        }
+    }
+
+    private final int workers;
+    private final int batchSize;
+    private final Stage walkStage = new Stage("walk");
+    private final Stage processStage = new Stage("process");
+    private final Stage aggregateStage = new Stage("aggregate");
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    // The batches walked but not aggregated yet
+    private final Semaphore inFlight;
+
+    public CommitPipeline(int workers)
+    {
+        this(workers, DEFAULT_BATCH_SIZE);
+    }
+
+    public CommitPipeline(int workers, int batchSize)
+    {
+        if (workers < 1)
+            throw new IllegalArgumentException("Invalid workers: " + workers);
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.inFlight = new Semaphore(2 * workers);
+    }
+
+    /**
+     * Run the pipeline, once.
+     *
+     * @param commits the walk, only iterated by the producer thread
+     * @param process processes a commit, called concurrently by the workers
+     * @param aggregate aggregates the result of a commit, called by the calling thread only, in the order of the walk
+     * @throws IOException if the walk failed, or the first failure of a stage
+     */
+    public void run(Iterable<RevCommit> commits, Function<RevCommit, R> process, Consumer<R> aggregate) throws IOException, InterruptedException
+    {
+        // Enough batches for the workers not to wait on each other
+        BlockingQueue<Batch<RevCommit>> walked = new ArrayBlockingQueue<>(2 * workers);
+        BlockingQueue<Batch<R>> processed = new ArrayBlockingQueue<>(2 * workers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1);
+        try
+        {
+            executor.execute(() -> walk(commits, walked));
+            for (int i = 0; i < workers; i++)
+            {
+                executor.execute(() -> process(walked, process, processed));
+            }
+            aggregate(processed, aggregate);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        Throwable cause = failure.get();
+        if (cause instanceof IOException)
+            throw (IOException)cause;
+        if (cause instanceof RuntimeException)
+            throw (RuntimeException)cause;
+        if (cause instanceof Error)
+            throw (Error)cause;
+        if (cause != null)
+            throw new IOException(cause);
+    }
+
+    private void walk(Iterable<RevCommit> commits, BlockingQueue<Batch<RevCommit>> walked)
+    {
+        try
+        {
+            long seq = 0;
+            List<RevCommit> batch = new ArrayList<>(batchSize);
+            long start = System.nanoTime();
+            for (RevCommit commit : commits)
+            {
+                batch.add(commit);
+                if (batch.size() == batchSize)
+                {
+                    walkStage.items.addAndGet(batch.size());
+                    walkStage.busyNanos.addAndGet(System.nanoTime() - start);
+                    acquire(walkStage);
+                    put(walked, new Batch<>(seq++, batch), walkStage);
+                    if (failure.get() != null)
+                        return;
+                    batch = new ArrayList<>(batchSize);
+                    start = System.nanoTime();
+                }
+            }
+            walkStage.items.addAndGet(batch.size());
+            walkStage.busyNanos.addAndGet(System.nanoTime() - start);
+            if (!batch.isEmpty())
+            {
+                acquire(walkStage);
+                put(walked, new Batch<>(seq, batch), walkStage);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            failure.compareAndSet(null, e);
+        }
+        catch (Throwable x)
+        {
+            failure.compareAndSet(null, x);
+        }
+        finally
+        {
+            for (int i = 0; i < workers; i++)
+            {
+                if (!offer(walked, Batch.end()))
+                    break;
+            }
+        }
+    }
+
+    private void process(BlockingQueue<Batch<RevCommit>> walked, Function<RevCommit, R> process, BlockingQueue<Batch<R>> processed)
+    {
+        try
+        {
+            while (true)
+            {
+                Batch<RevCommit> batch = take(walked, processStage);
+                if (batch == Batch.END)
+                    return;
+                // Keep draining after a failure, so that the walk is not blocked
+                if (failure.get() != null)
+                {
+                    inFlight.release();
+                    continue;
+                }
+                try
+                {
+                    long start = System.nanoTime();
+                    List<R> results = new ArrayList<>(batch.items.size());
+                    for (RevCommit commit : batch.items)
+                    {
+                        results.add(process.apply(commit));
+                    }
+                    processStage.items.addAndGet(results.size());
+                    processStage.busyNanos.addAndGet(System.nanoTime() - start);
+                    put(processed, new Batch<>(batch.seq, results), processStage);
+                }
+                catch (InterruptedException e)
+                {
+                    throw e;
+                }
+                catch (Throwable x)
+                {
+                    failure.compareAndSet(null, x);
+                    inFlight.release();
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            failure.compareAndSet(null, e);
+        }
+        finally
+        {
+            offer(processed, Batch.end());
+        }
+    }
+
+    private void aggregate(BlockingQueue<Batch<R>> processed, Consumer<R> aggregate) throws InterruptedException
+    {
+        // The batches processed ahead of the next one in the order of the walk
+        Map<Long, Batch<R>> pending = new HashMap<>();
+        long next = 0;
+        int done = 0;
+        while (done < workers)
+        {
+            Batch<R> batch = take(processed, aggregateStage);
+            if (batch == Batch.END)
+            {
+                done++;
+                continue;
+            }
+            pending.put(batch.seq, batch);
+            while ((batch = pending.remove(next)) != null)
+            {
+                next++;
+                inFlight.release();
+                if (failure.get() != null)
+                    continue;
+                try
+                {
+                    long start = System.nanoTime();
+                    batch.items.forEach(aggregate);
+                    aggregateStage.items.addAndGet(batch.items.size());
+                    aggregateStage.busyNanos.addAndGet(System.nanoTime() - start);
+                }
+                catch (Throwable x)
+                {
+                    failure.compareAndSet(null, x);
+                }
+            }
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T item, Stage stage) throws InterruptedException
+    {
+        long start = System.nanoTime();
+        queue.put(item);
+        stage.blockedNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    private void acquire(Stage stage) throws InterruptedException
+    {
+        long start = System.nanoTime();
+        inFlight.acquire();
+        stage.blockedNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    private static <T> T take(BlockingQueue<T> queue, Stage stage) throws InterruptedException
+    {
+        long start = System.nanoTime();
+        T item = queue.take();
+        stage.blockedNanos.addAndGet(System.nanoTime() - start);
+        return item;
+    }
+
+    /**
+     * Queue the end of a stage, unless the pipeline is shutting down.
+     */
+    private static <T> boolean offer(BlockingQueue<T> queue, T item)
+    {
+        try
+        {
+            queue.put(item);
+            return true;
+        }
+        catch (InterruptedException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * @return the walk, process and aggregate stages
+     */
+    public List<Stage> getStages()
+    {
+        return List.of(walkStage, processStage, aggregateStage);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s, %s (%d threads), %s", walkStage, processStage, workers, aggregateStage);
+    }
+}
@@ -7,9 +7,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-public class GitCommit
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+
+/**
+ * A commit of the changelog, keyed by its binary object id in an {@link ObjectIdOwnerMap}.
+ */
+public class GitCommit extends ObjectIdOwnerMap.Entry
 {
-    private String sha;
     private Author author;
     private String title;
     private String body;
@@ -21,6 +26,11 @@ public class GitCommit
     private Set<Integer> issueRefs;
     private Set<Integer> pullRequestRefs;
 
+    public GitCommit(AnyObjectId id)
+    {
+        super(id);
+    }
+
     public Author getAuthor()
     {
         return author;
@@ -100,6 +110,15 @@ public class GitCommit
         this.pullRequestRefs.add(ref);
     }
 
+    /**
+     * Remove the issue and pull request references, before they are back referenced again.
+     */
+    public void clearRefs()
+    {
+        this.issueRefs = null;
+        this.pullRequestRefs = null;
+    }
+
     public Set<Integer> getIssueRefs()
     {
         return issueRefs;
@@ -121,14 +140,12 @@ public class GitCommit
         }
     }
 
+    /**
+     * @return the lowercase hex id, computed on each call
+     */
     public String getSha()
     {
-        return sha;
-    }
-
-    public void setSha(String sha)
-    {
-        this.sha = sha;
+        return name();
     }
 
     public String getTitle()
@@ -1,11 +1,16 @@
 package org.eclipse.jetty.toolchain;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.Locale;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
 public class Issue
 {
     public enum Type
@@ -16,6 +21,8 @@ public class Issue
         INVALID;
     }
 
+    private static final AnyObjectId[] NO_COMMITS = new AnyObjectId[0];
+
     private final int num;
     private String title;
     private String body;
@@ -23,7 +30,8 @@ public class Issue
     private Type type = Type.UNKNOWN;
     private boolean skip = false;
     private Set<Integer> referencedIssues = new HashSet<>();
-    private Set<String> commits = new HashSet<>();
+    // Sorted, without duplicates: most issues only reference a few commits
+    private AnyObjectId[] commits = NO_COMMITS;
     private Set<String> labels = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
 
     public Issue(int num)
@@ -31,9 +39,25 @@ public class Issue
         this.num = num;
     }
 
+    /**
+     * @param commitId the id of the commit, kept as is: either immutable or the {@link GitCommit} itself
+     */
+    public void addCommit(AnyObjectId commitId)
+    {
+        int index = Arrays.binarySearch(commits, commitId);
+        if (index >= 0)
+            return;
+        int insert = -index - 1;
+        AnyObjectId[] added = new AnyObjectId[commits.length + 1];
+        System.arraycopy(commits, 0, added, 0, insert);
+        added[insert] = commitId;
+        System.arraycopy(commits, insert, added, insert + 1, commits.length - insert);
+        commits = added;
+    }
+
     public void addCommit(String commitId)
     {
-        this.commits.add(commitId.toLowerCase(Locale.US));
+        addCommit(ObjectId.fromString(commitId));
     }
 
     public void addLabels(Collection<String> labels)
@@ -66,9 +90,12 @@ public class Issue
         this.body = body;
     }
 
-    public Set<String> getCommits()
+    /**
+     * @return the ids of the commits, sorted
+     */
+    public List<AnyObjectId> getCommits()
     {
-        return commits;
+        return Collections.unmodifiableList(Arrays.asList(commits));
     }
 
     public Set<String> getLabels()
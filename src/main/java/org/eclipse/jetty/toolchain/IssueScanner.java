@@ -1,37 +1,118 @@
 package org.eclipse.jetty.toolchain;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.IntConsumer;
 
+/**
+ * Find the issue / pull request references in a message.
+ * <p>
+ * Recognized references are {@code #NNNN} and {@code Issue NNNN}, where the number has 4 to 6 digits
+ * (any further digits are ignored). Messages mentioning {@code @dependabot} have no references,
+ * as those bodies are mostly links to other projects.
+ * </p>
+ * <p>
+ * The message is scanned in a single pass, without regular expressions.
+ * </p>
+ */
 public class IssueScanner
 {
+    private static final String ISSUE_PREFIX = "Issue ";
+    private static final String DEPENDABOT = "@dependabot";
+    private static final int MIN_DIGITS = 4;
+    private static final int MAX_DIGITS = 6;
+
     public static Set<Integer> scan(String message)
     {
-        // skip dependabot bodies
-        if (message.contains("@dependabot"))
+        Set<Integer> issueNums = new HashSet<>();
+        scan(message, issueNums::add);
+        return issueNums;
+    }
+
+    /**
+     * Scan the message, reporting the issue numbers found to the sink.
+     * <p>
+     * The same issue number is reported as many times as it is referenced.
+     * </p>
+     *
+     * @param message the message to scan, may be null
+     * @param sink the sink of issue numbers
+     */
+    public static void scan(CharSequence message, IntConsumer sink)
+    {
+        if (message == null)
+            return;
+
+        // The hits are only reported at the end, as a later @dependabot cancels them
+        int[] hits = null;
+        int hitCount = 0;
+
+        int length = message.length();
+        int i = 0;
+        while (i < length)
         {
-            return Collections.emptySet();
+            char c = message.charAt(i);
+            int digitsStart;
+            if (c == '#')
+            {
+                digitsStart = i + 1;
+            }
+            else if ((c == 'I') && regionMatches(message, i, ISSUE_PREFIX))
+            {
+                digitsStart = i + ISSUE_PREFIX.length();
+            }
+            else if ((c == '@') && regionMatches(message, i, DEPENDABOT))
+            {
+                return;
+            }
+            else
+            {
+                i++;
+                continue;
+            }
+
+            int num = 0;
+            int end = digitsStart;
+            while ((end < length) && (end - digitsStart < MAX_DIGITS))
+            {
+                char d = message.charAt(end);
+                if ((d < '0') || (d > '9'))
+                    break;
+                num = (num * 10) + (d - '0');
+                end++;
+            }
+
+            if (end - digitsStart >= MIN_DIGITS)
+            {
+                if (hits == null)
+                    hits = new int[4];
+                else if (hitCount == hits.length)
+                    hits = Arrays.copyOf(hits, hitCount * 2);
+                hits[hitCount++] = num;
+                i = end;
+            }
+            else
+            {
+                i++;
+            }
         }
 
-        Set<Integer> issueNums = new HashSet<>();
-        scanPattern(issueNums, message, "s*#([0-9]{4,6})");
-        scanPattern(issueNums, message, "Issue ([0-9]{4,6})");
-        return issueNums;
+        for (int h = 0; h < hitCount; h++)
+        {
+            sink.accept(hits[h]);
+        }
     }
 
-    private static void scanPattern(Set<Integer> issueNums, String message, String regex)
+    private static boolean regionMatches(CharSequence message, int offset, String expected)
     {
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(message);
-        int offset = 0;
-        while (matcher.find(offset))
+        if (offset + expected.length() > message.length())
+            return false;
+        for (int i = 0; i < expected.length(); i++)
         {
-            int issueNum = Integer.parseInt(matcher.group(1));
-            issueNums.add(issueNum);
-            offset = matcher.end();
+            if (message.charAt(offset + i) != expected.charAt(i))
+                return false;
         }
+        return true;
     }
 }
@@ -0,0 +1,239 @@
+package org.eclipse.jetty.toolchain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * A declarative rule on repository paths (eg: {@code module/src/test/java/Foo.java}).
+ * <p>
+ * Unlike an arbitrary {@link Predicate}, a rule can tell if it matches every path under a directory,
+ * which allows a set of exclusion rules to be compiled into a {@link TreeFilter}
+ * that never descends into the excluded subtrees.
+ * </p>
+ */
+public abstract class PathRule implements Predicate<String>
+{
+    /**
+     * Paths starting with the prefix, eg: {@code .git} or {@code Jenkins}.
+     */
+    public static PathRule prefix(String prefix)
+    {
+        Objects.requireNonNull(prefix, "prefix");
+        return new PathRule("prefix:" + prefix)
+        {
+            @Override
+            public boolean test(String path)
+            {
+                return path.startsWith(prefix);
+            }
+
+            @Override
+            public boolean matchesAllUnder(String dirPath)
+            {
+                return (dirPath + "/").startsWith(prefix);
+            }
+        };
+    }
+
+    /**
+     * Paths ending with the suffix, eg: {@code .md}.
+     */
+    public static PathRule suffix(String suffix)
+    {
+        Objects.requireNonNull(suffix, "suffix");
+        return new PathRule("suffix:" + suffix)
+        {
+            @Override
+            public boolean test(String path)
+            {
+                return path.endsWith(suffix);
+            }
+
+            @Override
+            public boolean matchesAllUnder(String dirPath)
+            {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Paths containing the substring, eg: {@code /src/test/}.
+     */
+    public static PathRule contains(String substring)
+    {
+        Objects.requireNonNull(substring, "substring");
+        return new PathRule("contains:" + substring)
+        {
+            @Override
+            public boolean test(String path)
+            {
+                return path.contains(substring);
+            }
+
+            @Override
+            public boolean matchesAllUnder(String dirPath)
+            {
+                return (dirPath + "/").contains(substring);
+            }
+        };
+    }
+
+    /**
+     * Paths matching the glob, where {@code **} matches any number of directories,
+     * {@code *} any characters except {@code /}, and {@code ?} a single character except {@code /}.
+     * <p>
+     * Only globs ending in {@code /**} (eg: {@code **}{@code /src/test/**}) exclude whole directories.
+     * </p>
+     */
+    public static PathRule glob(String glob)
+    {
+        Objects.requireNonNull(glob, "glob");
+        Pattern pattern = Pattern.compile(toRegex(glob));
+        Pattern dirPattern = glob.endsWith("/**") ? Pattern.compile(toRegex(glob.substring(0, glob.length() - 3))) : null;
+        return new PathRule("glob:" + glob)
+        {
+            @Override
+            public boolean test(String path)
+            {
+                return pattern.matcher(path).matches();
+            }
+
+            @Override
+            public boolean matchesAllUnder(String dirPath)
+            {
+                return (dirPattern != null) && dirPattern.matcher(dirPath).matches();
+            }
+        };
+    }
+
+    static String toRegex(String glob)
+    {
+        StringBuilder regex = new StringBuilder();
+        int i = 0;
+        while (i < glob.length())
+        {
+            char c = glob.charAt(i);
+            if (glob.startsWith("**/", i))
+            {
+                regex.append("(?:.*/)?");
+                i += 3;
+            }
+            else if (glob.startsWith("**", i))
+            {
+                regex.append(".*");
+                i += 2;
+            }
+            else if (c == '*')
+            {
+                regex.append("[^/]*");
+                i++;
+            }
+            else if (c == '?')
+            {
+                regex.append("[^/]");
+                i++;
+            }
+            else
+            {
+                int end = i;
+                while ((end < glob.length()) && ("*?".indexOf(glob.charAt(end)) < 0))
+                {
+                    end++;
+                }
+                regex.append(Pattern.quote(glob.substring(i, end)));
+                i = end;
+            }
+        }
+        return regex.toString();
+    }
+
+    /**
+     * A {@link TreeFilter} excluding the paths matched by any of the rules,
+     * without descending into directories where every path would be excluded.
+     *
+     * @param rules the exclusion rules
+     * @return the filter, or {@link TreeFilter#ALL} if there are no rules
+     */
+    public static TreeFilter toExclusionFilter(Collection<PathRule> rules)
+    {
+        if (rules.isEmpty())
+            return TreeFilter.ALL;
+        return new ExclusionTreeFilter(new ArrayList<>(rules));
+    }
+
+    private final String description;
+
+    private PathRule(String description)
+    {
+        this.description = description;
+    }
+
+    /**
+     * @param path the path of a file
+     * @return true if the rule matches the path
+     */
+    @Override
+    public abstract boolean test(String path);
+
+    /**
+     * @param dirPath the path of a directory, without a trailing slash
+     * @return true if the rule matches every possible path under the directory
+     */
+    public abstract boolean matchesAllUnder(String dirPath);
+
+    @Override
+    public String toString()
+    {
+        return description;
+    }
+
+    private static class ExclusionTreeFilter extends TreeFilter
+    {
+        private final List<PathRule> rules;
+
+        private ExclusionTreeFilter(List<PathRule> rules)
+        {
+            this.rules = rules;
+        }
+
+        @Override
+        public boolean include(TreeWalk walker)
+        {
+            String path = walker.getPathString();
+            boolean subtree = walker.isSubtree();
+            for (PathRule rule : rules)
+            {
+                if (subtree ? rule.matchesAllUnder(path) : rule.test(path))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean shouldBeRecursive()
+        {
+            return false;
+        }
+
+        @Override
+        public TreeFilter clone()
+        {
+            // Stateless
+            return this;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "EXCLUDE" + rules;
+        }
+    }
+}
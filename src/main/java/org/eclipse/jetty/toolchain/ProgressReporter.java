@@ -0,0 +1,148 @@
+package org.eclipse.jetty.toolchain;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Count the progress of the stages of a task, and report a summary of each stage periodically,
+ * instead of a line per item.
+ * <p>
+ * The counters are incremented from any thread, without a lock.
+ * A summary line is reported for each stage that made progress since the previous report,
+ * at most once per interval, and a final one on {@link #close()}.
+ * </p>
+ */
+public class ProgressReporter implements AutoCloseable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ProgressReporter.class);
+    public static final long DEFAULT_INTERVAL_MS = 5000;
+
+    /**
+     * The progress of a stage.
+     */
+    public class Stage
+    {
+        private final String name;
+        private final long total;
+        private final LongAdder count = new LongAdder();
+        private final long start = System.nanoTime();
+        private long reported = 0;
+
+        private Stage(String name, long total)
+        {
+            this.name = name;
+            this.total = total;
+        }
+
+        public void increment()
+        {
+            count.increment();
+        }
+
+        public void add(long items)
+        {
+            count.add(items);
+        }
+
+        public long getCount()
+        {
+            return count.sum();
+        }
+
+        private void report(boolean last)
+        {
+            long current = count.sum();
+            if ((current == reported) && (!last || (current == 0)))
+                return;
+            reported = current;
+
+            long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            long rate = current * 1000 / elapsed;
+            String summary;
+            if (total > 0)
+                summary = String.format("%s %s: %,d of %,d (%d%%, %,d/s)", task, name, current, total, current * 100 / total, rate);
+            else
+                summary = String.format("%s %s: %,d (%,d/s)", task, name, current, rate);
+            if (last)
+                summary += String.format(", in %,d ms", elapsed);
+            sink.accept(summary);
+        }
+    }
+
+    private final String task;
+    private final Consumer<String> sink;
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+
+    public ProgressReporter(String task)
+    {
+        this(task, DEFAULT_INTERVAL_MS, LOG::info);
+    }
+
+    /**
+     * @param task the name of the task, prefixing the summaries
+     * @param intervalMs the minimum time between two summaries of a stage
+     * @param sink the summary lines
+     */
+    public ProgressReporter(String task, long intervalMs, Consumer<String> sink)
+    {
+        if (intervalMs < 1)
+            throw new IllegalArgumentException("Invalid interval: " + intervalMs);
+        this.task = task;
+        this.sink = sink;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor((runnable) ->
+        {
+            Thread thread = new Thread(runnable, "progress-" + task);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> report(false), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param name the name of the items counted by the stage
+     * @return a stage without a known total
+     */
+    public Stage stage(String name)
+    {
+        return stage(name, 0);
+    }
+
+    /**
+     * @param name the name of the items counted by the stage
+     * @param total the number of items of the stage, or 0 if unknown
+     * @return a stage, reported from now on
+     */
+    public Stage stage(String name, long total)
+    {
+        Stage stage = new Stage(name, total);
+        stages.add(stage);
+        return stage;
+    }
+
+    private synchronized void report(boolean last)
+    {
+        for (Stage stage : stages)
+        {
+            stage.report(last);
+        }
+    }
+
+    /**
+     * Stop the periodic summaries, and report the final summary of each stage.
+     */
+    @Override
+    public void close()
+    {
+        scheduler.shutdownNow();
+        report(true);
+    }
+}
@@ -0,0 +1,142 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Which branches contain which commits, for a fixed set of commits.
+ * <p>
+ * Built by walking the history of each branch once, recording a bit per branch against each
+ * of the commits of interest. This replaces a {@code git branch --contains} per commit, which
+ * walks the history of every branch for every commit.
+ * </p>
+ */
+public class ReachabilityIndex
+{
+    private final List<String> branches;
+    private final Map<ObjectId, BitSet> index;
+
+    /**
+     * Build the index.
+     *
+     * @param repository the repository
+     * @param refPrefix the prefix of the refs to consider (eg: {@code refs/remotes/origin/jetty-})
+     * @param refFilter further filter on the full ref names
+     * @param commits the commits to index
+     * @return the index
+     */
+    public static ReachabilityIndex build(Repository repository, String refPrefix, Predicate<String> refFilter, Collection<? extends AnyObjectId> commits) throws IOException
+    {
+        Map<String, ObjectId> tips = getBranchTips(repository, refPrefix, refFilter);
+
+        Map<ObjectId, BitSet> index = new HashMap<>();
+        for (AnyObjectId commit : commits)
+        {
+            index.put(commit.toObjectId(), new BitSet(tips.size()));
+        }
+
+        List<String> branches = new ArrayList<>();
+        try (RevWalk walk = new RevWalk(repository))
+        {
+            walk.setRetainBody(false);
+            for (Map.Entry<String, ObjectId> tip : tips.entrySet())
+            {
+                int bit = branches.size();
+                branches.add(tip.getKey());
+
+                // reset() keeps the already parsed commits, so shared history is only parsed once
+                walk.reset();
+                walk.markStart(walk.parseCommit(tip.getValue()));
+                int left = index.size();
+                RevCommit commit;
+                while ((left > 0) && ((commit = walk.next()) != null))
+                {
+                    BitSet bits = index.get(commit);
+                    if (bits != null)
+                    {
+                        bits.set(bit);
+                        left--;
+                    }
+                }
+            }
+        }
+
+        return new ReachabilityIndex(branches, index);
+    }
+
+    /**
+     * Get the branches that {@link #build(Repository, String, Predicate, Collection)} would index.
+     * The branches of a commit can only change when the tip of a branch moves.
+     *
+     * @param repository the repository
+     * @param refPrefix the prefix of the refs to consider (eg: {@code refs/remotes/origin/jetty-})
+     * @param refFilter further filter on the full ref names
+     * @return the full ref names of the branches, and the commit at their tip
+     */
+    public static Map<String, ObjectId> getBranchTips(Repository repository, String refPrefix, Predicate<String> refFilter) throws IOException
+    {
+        Map<String, ObjectId> tips = new LinkedHashMap<>();
+        for (Ref ref : repository.getRefDatabase().getRefsByPrefix(refPrefix))
+        {
+            if (!ref.isSymbolic() && (ref.getObjectId() != null) && refFilter.test(ref.getName()))
+                tips.put(ref.getName(), ref.getObjectId());
+        }
+        return tips;
+    }
+
+    private ReachabilityIndex(List<String> branches, Map<ObjectId, BitSet> index)
+    {
+        this.branches = Collections.unmodifiableList(branches);
+        this.index = index;
+    }
+
+    /**
+     * @return the indexed branch (full ref) names
+     */
+    public List<String> getBranches()
+    {
+        return branches;
+    }
+
+    public boolean contains(AnyObjectId commit)
+    {
+        return index.containsKey(commit);
+    }
+
+    /**
+     * Get the branches containing the commit.
+     *
+     * @param commit the commit, which must be one of the indexed commits
+     * @return the full ref names of the branches containing the commit
+     * @throws IllegalArgumentException if the commit is not indexed
+     */
+    public Set<String> getBranchesWithCommit(AnyObjectId commit)
+    {
+        BitSet bits = index.get(commit);
+        if (bits == null)
+            throw new IllegalArgumentException("Commit not indexed: " + commit.name());
+        Set<String> ret = new HashSet<>();
+        for (int bit = bits.nextSetBit(0); bit >= 0; bit = bits.nextSetBit(bit + 1))
+        {
+            ret.add(branches.get(bit));
+        }
+        return ret;
+    }
+}
@@ -1,70 +1,494 @@
 package org.eclipse.jetty.toolchain.github;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-public class Cache
+public class Cache implements Closeable
 {
-    private final Path root;
+    public static final String NOT_FOUND = "-";
+    private static final byte[] NOT_FOUND_BYTES = NOT_FOUND.getBytes(UTF_8);
+    // Bodies smaller than this are not worth compressing
+    private static final int MIN_COMPRESS_SIZE = 256;
 
+    /**
+     * A cached response body, along with the response validators needed to revalidate it.
+     */
+    public static class Entry
+    {
+        private final byte[] raw;
+        private final CacheCompression compression;
+        private final String etag;
+        private final String lastModified;
+        private final long fetchedAt;
+        private final long validatedAt;
+        private final boolean expired;
+
+        Entry(byte[] raw, CacheCompression compression, String etag, String lastModified, long fetchedAt, long validatedAt, boolean expired)
+        {
+            this.raw = raw;
+            this.compression = compression;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetchedAt = fetchedAt;
+            this.validatedAt = validatedAt;
+            this.expired = expired;
+        }
+
+        public String getBody() throws IOException
+        {
+            if (compression == null)
+                return new String(raw, UTF_8);
+            try (InputStream in = newInputStream())
+            {
+                return new String(in.readAllBytes(), UTF_8);
+            }
+        }
+
+        /**
+         * @return the stream of the (decompressed) body
+         */
+        public InputStream newInputStream()
+        {
+            if (compression == null)
+                return new ByteArrayInputStream(raw);
+            return compression.decompress(raw);
+        }
+
+        /**
+         * @return the reader of the (decompressed) body, suitable for streaming into Gson
+         */
+        public Reader newReader()
+        {
+            return new InputStreamReader(newInputStream(), UTF_8);
+        }
+
+        public String getETag()
+        {
+            return etag;
+        }
+
+        public String getLastModified()
+        {
+            return lastModified;
+        }
+
+        /**
+         * @return the time (in epoch millis) that the body was last changed
+         */
+        public long getFetchedAt()
+        {
+            return fetchedAt;
+        }
+
+        /**
+         * @return the time (in epoch millis) that the body was last confirmed to be current
+         */
+        public long getValidatedAt()
+        {
+            return validatedAt;
+        }
+
+        /**
+         * @return true if the entry is older than the time to live for its resource type, and needs revalidation
+         */
+        public boolean isExpired()
+        {
+            return expired;
+        }
+
+        private boolean hasBody(byte[] body) throws IOException
+        {
+            if (compression == null)
+                return Arrays.equals(raw, body);
+            try (InputStream in = newInputStream())
+            {
+                return Arrays.equals(in.readAllBytes(), body);
+            }
+        }
+
+        public boolean isNotFound()
+        {
+            return (compression == null) && Arrays.equals(NOT_FOUND_BYTES, raw);
+        }
+
+        public boolean hasValidator()
+        {
+            return (etag != null) || (lastModified != null);
+        }
+    }
+
+    static final String META_ETAG = "etag";
+    static final String META_LAST_MODIFIED = "last-modified";
+    static final String META_FETCHED = "fetched";
+    static final String META_VALIDATED = "validated";
+    static final String META_ENCODING = "encoding";
+
+    private final CacheStore store;
+    private CacheCompression compression;
+    private final Map<String, Duration> timeToLive = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong lookupNanos = new AtomicLong();
+
+    /**
+     * The default cache in {@code ~/.cache/api.github.com}.
+     * <p>
+     * Uses the directory layout, unless the {@code github.cache.store} system property
+     * is {@code pack}, in which case the {@code ~/.cache/api.github.com.pack} pack file is used.
+     * </p>
+     * <p>
+     * New entries are compressed if the {@code github.cache.compress} system property is {@code true}.
+     * </p>
+     */
     public Cache()
     {
-        this(Paths.get(System.getProperty("user.home"), ".cache", "api.github.com"));
+        this(newDefaultStore());
+        if (Boolean.getBoolean("github.cache.compress"))
+        {
+            try
+            {
+                setCompression(CacheCompression.load());
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException("Unable to load cache compression dictionary", e);
+            }
+        }
     }
 
     public Cache(Path cacheDir)
     {
-        this.root = cacheDir;
-        if (!Files.exists(this.root))
+        this(new DirectoryCacheStore(cacheDir));
+    }
+
+    public Cache(CacheStore store)
+    {
+        this.store = store;
+
+        // Commits are immutable, everything else can change on GitHub
+        setTimeToLive("issues", Duration.ofDays(1));
+        setTimeToLive("issue-events", Duration.ofDays(1));
+        setTimeToLive("pulls", Duration.ofDays(1));
+        setTimeToLive("pull-commits", Duration.ofDays(1));
+        setTimeToLive("releases", Duration.ofHours(1));
+        setTimeToLive("user", Duration.ofDays(1));
+        setTimeToLive("graphql-issue", Duration.ofDays(1));
+        // A commit email may be added to a GitHub user later
+        setTimeToLive("graphql-commit-author", Duration.ofDays(1));
+    }
+
+    /**
+     * Set the time to live for cached entries of a resource type.
+     *
+     * @param resourceType the resource type (see {@link #toResourceType(String)})
+     * @param ttl the time to live, or null for entries that never expire
+     */
+    public void setTimeToLive(String resourceType, Duration ttl)
+    {
+        if (ttl == null)
+            timeToLive.remove(resourceType);
+        else
+            timeToLive.put(resourceType, ttl);
+    }
+
+    public Duration getTimeToLive(String resourceType)
+    {
+        return timeToLive.get(resourceType);
+    }
+
+    /**
+     * Get the resource type of an API path, used to select the time to live.
+     *
+     * @param path the API path (eg: {@code /repos/eclipse/jetty.project/issues/5675/events})
+     * @return the resource type (eg: {@code issue-events}, or {@code graphql-issue} for {@code /graphql/issue/...})
+     */
+    public static String toResourceType(String path)
+    {
+        String[] segments = path.replaceFirst("\\?.*$", "").replaceFirst("^/", "").split("/");
+        if ((segments.length >= 4) && "repos".equals(segments[0]))
+        {
+            String type = segments[3];
+            if (segments.length >= 6)
+            {
+                switch (type)
+                {
+                    case "issues":
+                        return "issue-" + segments[5];
+                    case "pulls":
+                        return "pull-" + segments[5];
+                }
+            }
+            return type;
+        }
+        if ((segments.length >= 2) && "graphql".equals(segments[0]))
+            return "graphql-" + segments[1];
+        return segments[0];
+    }
+
+    private static CacheStore newDefaultStore()
+    {
+        Path cacheDir = Paths.get(System.getProperty("user.home"), ".cache", "api.github.com");
+        if ("pack".equals(System.getProperty("github.cache.store")))
         {
             try
             {
-                Files.createDirectories(this.root);
+                return new PackCacheStore(cacheDir.resolveSibling("api.github.com.pack"));
             }
             catch (IOException e)
             {
-                throw new RuntimeException("Unable to create cache dir: " + this.root, e);
+                throw new RuntimeException("Unable to open cache pack: " + cacheDir, e);
             }
         }
+        return new DirectoryCacheStore(cacheDir);
     }
 
-    private Path toJsonPath(String path)
+    public CacheStore getStore()
     {
-        String relativePath = path;
-        if (relativePath.startsWith("/"))
-            relativePath = relativePath.substring(1);
+        return store;
+    }
+
+    /**
+     * Compress new entries with the compression, and decompress existing entries that use it.
+     * Existing uncompressed entries are still read as-is.
+     *
+     * @param compression the compression, or null to store new entries uncompressed
+     */
+    public void setCompression(CacheCompression compression)
+    {
+        this.compression = compression;
+    }
 
-        return this.root.resolve(relativePath + ".json");
+    public CacheCompression getCompression()
+    {
+        return compression;
+    }
+
+    public boolean isCached(String path)
+    {
+        return store.contains(path);
     }
 
     public String getCached(String path) throws IOException
     {
-        // TODO: expire file
-        byte[] buf = Files.readAllBytes(toJsonPath(path));
-        String body = new String(buf, UTF_8);
-        if (body.equals("-"))
+        Entry entry = getEntry(path);
+        if (entry == null)
+            throw new NoSuchFileException(path);
+        if (entry.isNotFound())
             throw new GitHubResourceNotFoundException(path);
-        return body;
+        return entry.getBody();
+    }
+
+    /**
+     * Lookup the cached entry for the path, counting the hit, revalidation or miss.
+     *
+     * @param path the API path
+     * @return the cached entry, or null if not cached
+     */
+    public Entry lookup(String path) throws IOException
+    {
+        long start = System.nanoTime();
+        Entry entry = getEntry(path);
+        lookupNanos.addAndGet(System.nanoTime() - start);
+        if (entry == null)
+            misses.incrementAndGet();
+        else if (entry.isExpired())
+            revalidations.incrementAndGet();
+        else
+            hits.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Get the cached entry for the path.
+     *
+     * @param path the API path
+     * @return the cached entry, or null if not cached
+     */
+    public Entry getEntry(String path) throws IOException
+    {
+        CacheStore.Record record = store.get(path);
+        if (record == null)
+            return null;
+
+        Map<String, String> meta = record.getMeta();
+        CacheCompression entryCompression = null;
+        String encoding = meta.get(META_ENCODING);
+        if (encoding != null)
+        {
+            // An entry that cannot be decompressed is treated as not cached
+            if ((compression == null) || !compression.getEncoding().equals(encoding))
+                return null;
+            entryCompression = compression;
+        }
+
+        long fetchedAt = Long.parseLong(meta.getOrDefault(META_FETCHED, "0"));
+        long validatedAt = Long.parseLong(meta.getOrDefault(META_VALIDATED, String.valueOf(fetchedAt)));
+
+        Duration ttl = timeToLive.get(toResourceType(path));
+        boolean expired = (ttl != null) && (System.currentTimeMillis() - validatedAt > ttl.toMillis());
+
+        return new Entry(record.getBody(), entryCompression, meta.get(META_ETAG), meta.get(META_LAST_MODIFIED), fetchedAt, validatedAt, expired);
     }
 
     public void saveNotFound(String path) throws IOException
     {
-        save(path, "-");
+        save(path, NOT_FOUND);
     }
 
     public void save(String path, String body) throws IOException
     {
-        Path destFile = toJsonPath(path);
-        Path parentDir = destFile.getParent();
-        if (!Files.exists(parentDir))
+        save(path, body, null, null);
+    }
+
+    /**
+     * Save the response body, along with its response validators.
+     *
+     * @param path the API path
+     * @param body the response body
+     * @param etag the {@code ETag} response header, or null
+     * @param lastModified the {@code Last-Modified} response header, or null
+     */
+    public void save(String path, String body, String etag, String lastModified) throws IOException
+    {
+        save(path, body.getBytes(UTF_8), etag, lastModified);
+    }
+
+    /**
+     * Save the (UTF-8) response body bytes, along with its response validators.
+     * If the body is the same as the one already cached, the entry keeps the time it was fetched at,
+     * so that {@link Entry#getFetchedAt()} is the time the body last changed.
+     *
+     * @param path the API path
+     * @param body the response body bytes
+     * @param etag the {@code ETag} response header, or null
+     * @param lastModified the {@code Last-Modified} response header, or null
+     */
+    public void save(String path, byte[] body, String etag, String lastModified) throws IOException
+    {
+        long now = System.currentTimeMillis();
+        Entry previous = getEntry(path);
+        long fetchedAt = ((previous != null) && previous.hasBody(body)) ? previous.getFetchedAt() : now;
+        Map<String, String> meta = new HashMap<>();
+        if (etag != null)
+            meta.put(META_ETAG, etag);
+        if (lastModified != null)
+            meta.put(META_LAST_MODIFIED, lastModified);
+        meta.put(META_FETCHED, String.valueOf(fetchedAt));
+        meta.put(META_VALIDATED, String.valueOf(now));
+
+        byte[] raw = body;
+        if ((compression != null) && (raw.length >= MIN_COMPRESS_SIZE))
         {
-            Files.createDirectories(parentDir);
+            byte[] compressed = compression.compress(raw);
+            if (compressed.length < raw.length)
+            {
+                raw = compressed;
+                meta.put(META_ENCODING, compression.getEncoding());
+            }
         }
-        Files.writeString(toJsonPath(path), body, UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        store.put(path, new CacheStore.Record(raw, meta));
+    }
+
+    /**
+     * Mark a cached entry as confirmed current, as a result of a {@code 304 Not Modified} response.
+     *
+     * @param path the API path
+     * @param entry the entry that was revalidated
+     */
+    public void saveNotModified(String path, Entry entry) throws IOException
+    {
+        notModified.incrementAndGet();
+        Map<String, String> meta = new HashMap<>();
+        if (entry.getETag() != null)
+            meta.put(META_ETAG, entry.getETag());
+        if (entry.getLastModified() != null)
+            meta.put(META_LAST_MODIFIED, entry.getLastModified());
+        meta.put(META_FETCHED, String.valueOf(entry.getFetchedAt()));
+        meta.put(META_VALIDATED, String.valueOf(System.currentTimeMillis()));
+        if (entry.compression != null)
+            meta.put(META_ENCODING, entry.compression.getEncoding());
+        store.putMeta(path, meta);
+    }
+
+    /**
+     * @return the number of lookups served from the cache without a request
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that found an expired entry, needing a conditional request
+     */
+    public long getRevalidations()
+    {
+        return revalidations.get();
+    }
+
+    /**
+     * @return the number of revalidations that resulted in a {@code 304 Not Modified}
+     */
+    public long getNotModified()
+    {
+        return notModified.get();
+    }
+
+    /**
+     * @return the number of lookups that found no entry
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return the fraction of the lookups served from the cache without a request, 0 if none yet
+     */
+    public double getHitRatio()
+    {
+        long lookups = getHits() + getRevalidations() + getMisses();
+        return (lookups == 0) ? 0 : (double)getHits() / lookups;
+    }
+
+    /**
+     * @return the total time spent reading the entries of the lookups from the store
+     */
+    public long getLookupMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(lookupNanos.get());
+    }
+
+    /**
+     * Close the store, flushing it (eg: the pack file of {@link PackCacheStore}).
+     */
+    @Override
+    public void close() throws IOException
+    {
+        store.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("Cache[%s, hits=%d, revalidations=%d (not-modified=%d), misses=%d]",
+            store, getHits(), getRevalidations(), getNotModified(), getMisses());
     }
 }
@@ -0,0 +1,107 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Deflate compression of cached bodies, using a preset dictionary of common GitHub JSON fragments.
+ * <p>
+ * The {@code github-json.dict} dictionary holds the structure of GitHub REST responses (key names, url templates,
+ * user and label objects without their values), with the most frequent fragments at the end where deflate finds them cheapest.
+ * It holds no repository, user or SHA, so it does not favor the recorded responses over any other repository.
+ * </p>
+ * <p>
+ * Raw deflate (no zlib header) is used, so the dictionary can be set up front on the {@link Inflater},
+ * which allows a plain {@link InflaterInputStream} to stream the decompression.
+ * The encoding name includes the Adler-32 of the dictionary, so entries compressed with
+ * a different dictionary are detected.
+ * </p>
+ */
+public class CacheCompression
+{
+    private static final String DICTIONARY_RESOURCE = "github-json.dict";
+
+    private final byte[] dictionary;
+    private final String encoding;
+    private final int level;
+
+    public static CacheCompression load() throws IOException
+    {
+        URL url = CacheCompression.class.getClassLoader().getResource(DICTIONARY_RESOURCE);
+        if (url == null)
+            throw new IOException("Unable to find resource: " + DICTIONARY_RESOURCE);
+        try (InputStream in = url.openStream())
+        {
+            return new CacheCompression(in.readAllBytes(), Deflater.DEFAULT_COMPRESSION);
+        }
+    }
+
+    public CacheCompression(byte[] dictionary, int level)
+    {
+        this.dictionary = dictionary;
+        this.level = level;
+        Adler32 adler = new Adler32();
+        adler.update(dictionary);
+        this.encoding = String.format("deflate-dict-%08x", adler.getValue());
+    }
+
+    /**
+     * @return the encoding name to record in the cache entry metadata
+     */
+    public String getEncoding()
+    {
+        return encoding;
+    }
+
+    public byte[] compress(byte[] body)
+    {
+        Deflater deflater = new Deflater(level, true);
+        try
+        {
+            deflater.setDictionary(dictionary);
+            deflater.setInput(body);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+            byte[] buf = new byte[8192];
+            while (!deflater.finished())
+            {
+                int len = deflater.deflate(buf);
+                out.write(buf, 0, len);
+            }
+            return out.toByteArray();
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Stream the decompressed body.
+     *
+     * @param compressed the compressed body
+     * @return the stream of the decompressed body
+     */
+    public InputStream decompress(byte[] compressed)
+    {
+        Inflater inflater = new Inflater(true);
+        inflater.setDictionary(dictionary);
+        return new InflaterInputStream(new ByteArrayInputStream(compressed), inflater, 8192)
+        {
+            @Override
+            public void close() throws IOException
+            {
+                super.close();
+                // Not the default inflater, so not ended by the InflaterInputStream
+                inf.end();
+            }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The storage backend of the {@link Cache}.
+ * <p>
+ * Stores records of a response body and its metadata (eg: ETag, fetch times), keyed by API path.
+ * </p>
+ */
+public interface CacheStore extends Closeable
+{
+    class Record
+    {
+        private final byte[] body;
+        private final Map<String, String> meta;
+
+        public Record(byte[] body, Map<String, String> meta)
+        {
+            this.body = body;
+            this.meta = Collections.unmodifiableMap(new TreeMap<>(meta));
+        }
+
+        public byte[] getBody()
+        {
+            return body;
+        }
+
+        public Map<String, String> getMeta()
+        {
+            return meta;
+        }
+    }
+
+    interface RecordVisitor
+    {
+        void visit(String path, Record record) throws IOException;
+    }
+
+    /**
+     * @param path the API path
+     * @return the record, or null if not stored
+     */
+    Record get(String path) throws IOException;
+
+    boolean contains(String path);
+
+    void put(String path, Record record) throws IOException;
+
+    /**
+     * Replace only the metadata of an existing record.
+     */
+    default void putMeta(String path, Map<String, String> meta) throws IOException
+    {
+        Record record = get(path);
+        if (record != null)
+            put(path, new Record(record.getBody(), meta));
+    }
+
+    /**
+     * Visit every record in the store.
+     */
+    void forEach(RecordVisitor visitor) throws IOException;
+
+    @Override
+    default void close() throws IOException
+    {
+    }
+
+    /**
+     * Copy every record from one store to another, eg: to import or export the directory layout.
+     *
+     * @return the number of records copied
+     */
+    static int copy(CacheStore from, CacheStore to) throws IOException
+    {
+        int[] count = new int[1];
+        from.forEach((path, record) ->
+        {
+            to.put(path, record);
+            count[0]++;
+        });
+        return count[0];
+    }
+}
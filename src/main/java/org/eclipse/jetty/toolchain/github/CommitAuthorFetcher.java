@@ -0,0 +1,180 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fetch the GitHub logins of the authors of many commits in a single GraphQL request.
+ * <p>
+ * Each commit is fetched via an aliased {@code object(oid: ...)} query. The logins are cached under
+ * their own paths (eg: {@code /graphql/commit-author/eclipse/jetty.project/<sha>}), rather than
+ * as the REST response of the commit, which they are only a small part of.
+ * A commit not found is not cached, as it may only not be pushed yet.
+ * </p>
+ */
+public class CommitAuthorFetcher
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CommitAuthorFetcher.class);
+
+    private final GitHubApi github;
+    private final Cache cache;
+    private final Gson gson;
+    private final String repoOwner;
+    private final String repoName;
+    private final int batchSize;
+
+    public CommitAuthorFetcher(GitHubApi github, String repoOwner, String repoName)
+    {
+        this(github, repoOwner, repoName, IssueBatchFetcher.DEFAULT_BATCH_SIZE);
+    }
+
+    public CommitAuthorFetcher(GitHubApi github, String repoOwner, String repoName, int batchSize)
+    {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        this.github = github;
+        this.cache = github.getCache();
+        this.gson = GitHubApi.newGson();
+        this.repoOwner = repoOwner;
+        this.repoName = repoName;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Get the logins of the commits from the cache, fetching the ones not cached or expired.
+     *
+     * @param shas the commit SHAs
+     * @return the logins by SHA, missing entries are commits not found, or without a GitHub user
+     */
+    public Map<String, String> get(Collection<String> shas) throws IOException, InterruptedException
+    {
+        Map<String, String> logins = new LinkedHashMap<>();
+        List<String> uncached = new ArrayList<>();
+        for (String sha : shas)
+        {
+            Cache.Entry entry = cache.lookup(toCachePath(sha));
+            if ((entry == null) || entry.isExpired())
+            {
+                uncached.add(sha);
+                continue;
+            }
+            JsonElement login = gson.fromJson(entry.getBody(), JsonObject.class).get("login");
+            if ((login != null) && !login.isJsonNull())
+                logins.put(sha, login.getAsString());
+        }
+        logins.putAll(fetch(uncached));
+        return logins;
+    }
+
+    /**
+     * Fetch the logins of the commits, in batches of up to {@code batchSize} per GraphQL request.
+     *
+     * @param shas the commit SHAs
+     * @return the logins by SHA, missing entries are commits not found, or without a GitHub user
+     */
+    public Map<String, String> fetch(Collection<String> shas) throws IOException, InterruptedException
+    {
+        List<String> distinct = shas.stream().distinct().collect(Collectors.toList());
+        Map<String, String> logins = new LinkedHashMap<>();
+        for (int i = 0; i < distinct.size(); i += batchSize)
+        {
+            List<String> batch = distinct.subList(i, Math.min(i + batchSize, distinct.size()));
+            LOG.debug("Fetching the authors of a batch of {} commits via GraphQL", batch.size());
+            String response = github.graphql(toQuery(batch));
+            logins.putAll(parseResponse(batch, response));
+        }
+        return logins;
+    }
+
+    String toQuery(List<String> shas)
+    {
+        StringBuilder query = new StringBuilder();
+        query.append("query {\n");
+        query.append("  repository(owner: ").append(gson.toJson(repoOwner));
+        query.append(", name: ").append(gson.toJson(repoName)).append(") {\n");
+        for (String sha : shas)
+        {
+            query.append("    ").append(toAlias(sha));
+            query.append(": object(oid: ").append(gson.toJson(sha)).append(") { ... on Commit { author { user { login } } } }\n");
+        }
+        query.append("  }\n");
+        query.append("}\n");
+        return query.toString();
+    }
+
+    Map<String, String> parseResponse(List<String> shas, String response) throws IOException
+    {
+        JsonObject root = gson.fromJson(response, JsonObject.class);
+        JsonObject repository = null;
+        if (root.has("data") && root.get("data").isJsonObject())
+        {
+            JsonObject data = root.getAsJsonObject("data");
+            if (data.has("repository") && data.get("repository").isJsonObject())
+                repository = data.getAsJsonObject("repository");
+        }
+
+        if (root.has("errors"))
+        {
+            for (JsonElement error : root.getAsJsonArray("errors"))
+            {
+                JsonObject errorObj = error.getAsJsonObject();
+                JsonElement type = errorObj.get("type");
+                // A commit not found has no login, anything else is unexpected
+                if ((type == null) || !"NOT_FOUND".equals(type.getAsString()))
+                    LOG.warn("GraphQL error: {}", errorObj);
+            }
+        }
+
+        if (repository == null)
+            throw new GitHubApiException("Unable to fetch commit authors via GraphQL: " + root.get("errors"));
+
+        Map<String, String> logins = new LinkedHashMap<>();
+        for (String sha : shas)
+        {
+            JsonElement element = repository.get(toAlias(sha));
+            if ((element == null) || element.isJsonNull())
+                continue;
+
+            String login = getLogin(element.getAsJsonObject());
+            if (login != null)
+                logins.put(sha, login);
+            JsonObject author = new JsonObject();
+            author.addProperty("login", login);
+            cache.save(toCachePath(sha), gson.toJson(author));
+        }
+        return logins;
+    }
+
+    private static String getLogin(JsonObject commit)
+    {
+        JsonElement author = commit.get("author");
+        if ((author == null) || !author.isJsonObject())
+            return null;
+        JsonElement user = author.getAsJsonObject().get("user");
+        if ((user == null) || !user.isJsonObject())
+            return null;
+        JsonElement login = user.getAsJsonObject().get("login");
+        return ((login == null) || login.isJsonNull()) ? null : login.getAsString();
+    }
+
+    private static String toAlias(String sha)
+    {
+        return "c" + sha;
+    }
+
+    private String toCachePath(String sha)
+    {
+        return String.format("/graphql/commit-author/%s/%s/%s", repoOwner, repoName, sha);
+    }
+}
@@ -0,0 +1,153 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The original cache layout, one {@code .json} file per API path in a mirrored directory tree,
+ * with the metadata in a {@code .meta} properties file next to it.
+ */
+public class DirectoryCacheStore implements CacheStore
+{
+    private static final String JSON_EXT = ".json";
+    private static final String META_EXT = ".meta";
+    private final Path root;
+
+    public DirectoryCacheStore(Path cacheDir)
+    {
+        this.root = cacheDir;
+        if (!Files.exists(this.root))
+        {
+            try
+            {
+                Files.createDirectories(this.root);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException("Unable to create cache dir: " + this.root, e);
+            }
+        }
+    }
+
+    public Path getRoot()
+    {
+        return root;
+    }
+
+    private Path toPath(String path, String ext)
+    {
+        String relativePath = path;
+        if (relativePath.startsWith("/"))
+            relativePath = relativePath.substring(1);
+
+        return this.root.resolve(relativePath + ext);
+    }
+
+    @Override
+    public Record get(String path) throws IOException
+    {
+        Path jsonPath = toPath(path, JSON_EXT);
+        byte[] body;
+        try
+        {
+            body = Files.readAllBytes(jsonPath);
+        }
+        catch (NoSuchFileException e)
+        {
+            return null;
+        }
+
+        Map<String, String> meta = new HashMap<>();
+        Path metaPath = toPath(path, META_EXT);
+        if (Files.exists(metaPath))
+        {
+            Properties props = new Properties();
+            try (Reader reader = Files.newBufferedReader(metaPath, UTF_8))
+            {
+                props.load(reader);
+            }
+            for (String key : props.stringPropertyNames())
+            {
+                meta.put(key, props.getProperty(key));
+            }
+        }
+
+        // Entries from before the metadata existed use the file timestamp
+        if (!meta.containsKey(Cache.META_FETCHED))
+            meta.put(Cache.META_FETCHED, String.valueOf(Files.getLastModifiedTime(jsonPath).toMillis()));
+
+        return new Record(body, meta);
+    }
+
+    @Override
+    public boolean contains(String path)
+    {
+        return Files.exists(toPath(path, JSON_EXT));
+    }
+
+    @Override
+    public void put(String path, Record record) throws IOException
+    {
+        Path destFile = toPath(path, JSON_EXT);
+        Path parentDir = destFile.getParent();
+        if (!Files.exists(parentDir))
+        {
+            Files.createDirectories(parentDir);
+        }
+        Files.write(destFile, record.getBody(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        putMeta(path, record.getMeta());
+    }
+
+    @Override
+    public void putMeta(String path, Map<String, String> meta) throws IOException
+    {
+        Properties props = new Properties();
+        props.putAll(meta);
+        try (Writer writer = Files.newBufferedWriter(toPath(path, META_EXT), UTF_8))
+        {
+            props.store(writer, null);
+        }
+    }
+
+    @Override
+    public void forEach(RecordVisitor visitor) throws IOException
+    {
+        List<Path> jsonFiles;
+        try (Stream<Path> files = Files.walk(root))
+        {
+            jsonFiles = files
+                .filter(Files::isRegularFile)
+                .filter((file) -> file.getFileName().toString().endsWith(JSON_EXT))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+
+        for (Path jsonFile : jsonFiles)
+        {
+            String relativePath = root.relativize(jsonFile).toString().replace(jsonFile.getFileSystem().getSeparator(), "/");
+            String path = "/" + relativePath.substring(0, relativePath.length() - JSON_EXT.length());
+            Record record = get(path);
+            if (record != null)
+                visitor.visit(path, record);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return root.toString();
+    }
+}
@@ -18,7 +18,13 @@
 
 package org.eclipse.jetty.toolchain.github;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.URI;
 import java.net.URLEncoder;
@@ -32,8 +38,12 @@ import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -50,18 +60,24 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class GitHubApi
 {
+    public static final URI DEFAULT_API_URI = URI.create("https://api.github.com");
     private static final Logger LOG = LoggerFactory.getLogger(GitHubApi.class);
+    private static final int MAX_SIZE_HINT = 8 * 1024 * 1024;
+    // Attempts of a request rejected by a rate limit
+    private static final int MAX_ATTEMPTS = 3;
     private final URI apiURI;
     private final HttpClient client;
     private final HttpRequest.Builder baseRequest;
     private final Gson gson;
     private final Cache cache;
+    private final RateLimiter rateLimiter = new RateLimiter();
+    private final RequestStats requestStats = new RequestStats();
 
-    private RateLeft rateLeft;
-
-    private GitHubApi(String oauthToken)
+    GitHubApi(URI apiURI, String oauthToken, Cache cache)
     {
-        this.apiURI = URI.create("https://api.github.com");
+        // Paths are appended to the API URI, which may have a path (eg: GitHub Enterprise "https://host/api/v3")
+        String uri = apiURI.toString();
+        this.apiURI = uri.endsWith("/") ? URI.create(uri.substring(0, uri.length() - 1)) : apiURI;
 
         this.client = HttpClient.newBuilder()
             .connectTimeout(Duration.of(2, ChronoUnit.SECONDS))
@@ -70,16 +86,32 @@ public class GitHubApi
         this.baseRequest = HttpRequest.newBuilder()
             .header("Authorization", "Bearer " + oauthToken);
         this.gson = newGson();
-        this.cache = new Cache();
+        this.cache = cache;
     }
 
+    /**
+     * Connect to the API at {@code GITHUB_API_URL} if set (as in GitHub Actions), or else to {@link #DEFAULT_API_URI}.
+     */
     public static GitHubApi connect()
+    {
+        String githubApiUrl = System.getenv("GITHUB_API_URL");
+        return connect(StringUtils.isNotBlank(githubApiUrl) ? URI.create(githubApiUrl) : DEFAULT_API_URI);
+    }
+
+    /**
+     * Connect to the API at the given URI (eg: a GitHub Enterprise server, or a local stub),
+     * with the token from {@code GITHUB_TOKEN}, {@code ~/.github} or {@code ~/.github/oauth}.
+     *
+     * @param apiURI the base URI of the API, the request paths (eg: {@code /repos/...}) are appended to it
+     * @return the API
+     */
+    public static GitHubApi connect(URI apiURI)
     {
         String githubAppToken = System.getenv("GITHUB_TOKEN");
         if (StringUtils.isNotBlank(githubAppToken))
         {
-            LOG.info("Connecting to GitHub with AppInstallation Token");
-            return new GitHubApi(githubAppToken);
+            LOG.info("Connecting to {} with AppInstallation Token", apiURI);
+            return new GitHubApi(apiURI, githubAppToken, new Cache());
         }
 
         String[] configLocations = {
@@ -101,8 +133,8 @@ public class GitHubApi
                     String oauthToken = props.getProperty("oauth");
                     if (StringUtils.isNotBlank(oauthToken))
                     {
-                        LOG.info("Connecting to GitHub with {} Token", configPath);
-                        return new GitHubApi(oauthToken);
+                        LOG.info("Connecting to {} with {} Token", apiURI, configPath);
+                        return new GitHubApi(apiURI, oauthToken, new Cache());
                     }
                 }
                 catch (IOException e)
@@ -112,8 +144,8 @@ public class GitHubApi
             }
         }
 
-        LOG.info("Connecting to GitHub with anonymous (no token)");
-        return new GitHubApi(null);
+        LOG.info("Connecting to {} with anonymous (no token)", apiURI);
+        return new GitHubApi(apiURI, null, new Cache());
     }
 
     /**
@@ -129,6 +161,29 @@ public class GitHubApi
             .create();
     }
 
+    public URI getApiURI()
+    {
+        return apiURI;
+    }
+
+    public Cache getCache()
+    {
+        return cache;
+    }
+
+    public RateLimiter getRateLimiter()
+    {
+        return rateLimiter;
+    }
+
+    /**
+     * @return the number and latency of the requests sent, per endpoint
+     */
+    public RequestStats getRequestStats()
+    {
+        return requestStats;
+    }
+
     public String raw(String path, Function<HttpRequest.Builder, HttpRequest> requestBuilder) throws IOException, InterruptedException
     {
         return getCachedBody(path, requestBuilder);
@@ -136,57 +191,337 @@ public class GitHubApi
 
     private String getCachedBody(String path, Function<HttpRequest.Builder, HttpRequest> requestBuilder) throws IOException, InterruptedException
     {
-        try
+        Cache.Entry entry = cache.lookup(path);
+        if ((entry != null) && !entry.isExpired())
         {
-            String body = cache.getCached(path);
             LOG.debug("Returning Cached from {}", path);
-            return body;
+            return toCachedBody(path, entry);
         }
-        catch (GitHubResourceNotFoundException e)
+        return fetchBody(path, requestBuilder, entry);
+    }
+
+    /**
+     * Get the object, decoding by streaming either the cached entry or the response body straight into Gson,
+     * without first creating a {@code String} of the whole body.
+     */
+    private <T> T getCachedObject(String path, Function<HttpRequest.Builder, HttpRequest> requestBuilder, Class<T> type) throws IOException, InterruptedException
+    {
+        Cache.Entry entry = cache.lookup(path);
+        if ((entry != null) && !entry.isExpired())
+        {
+            LOG.debug("Returning Cached from {}", path);
+            return fromCached(path, entry, type);
+        }
+        return fetchObject(path, requestBuilder, entry, type);
+    }
+
+    private <T> T fetchObject(String path, Function<HttpRequest.Builder, HttpRequest> requestBuilder, Cache.Entry entry, Class<T> type) throws IOException, InterruptedException
+    {
+        HttpRequest request = newRequest(path, requestBuilder, entry);
+        HttpResponse<InputStream> response = send("core", request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream in = response.body())
         {
-            throw e;
+            if (response.statusCode() != 200)
+                return handleNotOk(path, entry, response, type);
+
+            // Decode as the bytes arrive, keeping a copy of the raw bytes for the cache
+            RecordingInputStream recording = new RecordingInputStream(in, toSizeHint(response));
+            T obj = gson.fromJson(new InputStreamReader(recording, UTF_8), type);
+            recording.drain();
+            saveResponse(path, response, recording.toByteArray());
+            return obj;
+        }
+    }
+
+    private String fetchBody(String path, Function<HttpRequest.Builder, HttpRequest> requestBuilder, Cache.Entry entry) throws IOException, InterruptedException
+    {
+        HttpRequest request = newRequest(path, requestBuilder, entry);
+        HttpResponse<String> response = send("core", request, responseInfo -> HttpResponse.BodySubscribers.ofString(UTF_8));
+        return handleResponse(path, entry, response);
+    }
+
+    /**
+     * Send the request once the {@link RateLimiter} allows it, retrying it when rejected by a rate limit.
+     */
+    private <T> HttpResponse<T> send(String resource, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws IOException, InterruptedException
+    {
+        for (int attempt = 1; ; attempt++)
+        {
+            rateLimiter.acquire(resource);
+            LOG.debug("Issuing API Request {} ({} remaining limit)", request.uri(), rateLimiter.getRemaining(resource));
+            String endpoint = toEndpoint(resource, request);
+            long start = System.nanoTime();
+            HttpResponse<T> response;
+            try
+            {
+                response = client.send(request, bodyHandler);
+            }
+            catch (IOException e)
+            {
+                requestStats.record(endpoint, System.nanoTime() - start, true);
+                throw e;
+            }
+            requestStats.record(endpoint, System.nanoTime() - start, false);
+            rateLimiter.update(response.headers());
+            if ((attempt == MAX_ATTEMPTS) || !rateLimiter.onRejected(resource, response.statusCode(), response.headers()))
+                return response;
+            if (response.body() instanceof Closeable)
+                ((Closeable)response.body()).close();
+        }
+    }
+
+    /**
+     * Non-blocking version of {@link #send(String, HttpRequest, HttpResponse.BodyHandler)}, waiting for the
+     * {@link RateLimiter} on a delayed executor rather than on a thread.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(String resource, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler, int attempt)
+    {
+        long waitMs = rateLimiter.reserve(resource);
+        CompletableFuture<Void> allowed = (waitMs > 0)
+            ? CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(waitMs, TimeUnit.MILLISECONDS))
+            : CompletableFuture.completedFuture(null);
+        return allowed.thenCompose((ignored) ->
+        {
+            LOG.debug("Issuing Async API Request {} ({} remaining limit)", request.uri(), rateLimiter.getRemaining(resource));
+            String endpoint = toEndpoint(resource, request);
+            long start = System.nanoTime();
+            return client.sendAsync(request, bodyHandler)
+                .whenComplete((response, failure) -> requestStats.record(endpoint, System.nanoTime() - start, failure != null));
+        }).thenCompose((response) ->
+        {
+            rateLimiter.update(response.headers());
+            if ((attempt < MAX_ATTEMPTS) && rateLimiter.onRejected(resource, response.statusCode(), response.headers()))
+                return sendAsync(resource, request, bodyHandler, attempt + 1);
+            return CompletableFuture.completedFuture(response);
+        });
+    }
+
+    /**
+     * Non-blocking version of {@link #getCachedObject(String, Function, Class)}.
+     * <p>
+     * Cached bodies are returned as already completed futures, everything else is
+     * sent via {@link HttpClient#sendAsync(HttpRequest, HttpResponse.BodyHandler)}
+     * so that many requests can be in flight at the same time on the single {@link HttpClient}.
+     * </p>
+     */
+    private <T> CompletableFuture<T> getCachedObjectAsync(String path, Function<HttpRequest.Builder, HttpRequest> requestBuilder, Class<T> type)
+    {
+        Cache.Entry entry;
+        try
+        {
+            entry = cache.lookup(path);
+            if ((entry != null) && !entry.isExpired())
+            {
+                LOG.debug("Returning Cached from {}", path);
+                return CompletableFuture.completedFuture(fromCached(path, entry, type));
+            }
         }
         catch (IOException e)
         {
-            RateLeft rateLeft = getRateLeft();
-            int remainingRate = rateLeft.applyRequest("core");
-            URI uri = apiURI.resolve(path);
-            LOG.debug("Issuing API Request {} ({} remaining limit)", uri, remainingRate);
-            HttpRequest request = requestBuilder.apply(baseRequest.copy().uri(uri));
-            HttpResponse<String> response = client.send(request, responseInfo -> HttpResponse.BodySubscribers.ofString(UTF_8));
-            switch (response.statusCode())
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return fetchObjectAsync(path, requestBuilder, entry, type);
+    }
+
+    /**
+     * The response bytes are collected without blocking (a blocking {@code InputStream} cannot be
+     * read from the {@link HttpClient} completion threads), then decoded straight from those bytes.
+     */
+    private <T> CompletableFuture<T> fetchObjectAsync(String path, Function<HttpRequest.Builder, HttpRequest> requestBuilder, Cache.Entry entry, Class<T> type)
+    {
+        HttpRequest request = newRequest(path, requestBuilder, entry);
+        return sendAsync("core", request, HttpResponse.BodyHandlers.ofByteArray(), 1).thenApply((response) ->
+        {
+            try
+            {
+                if (response.statusCode() != 200)
+                    return handleNotOk(path, entry, response, type);
+
+                byte[] body = response.body();
+                T obj = gson.fromJson(new InputStreamReader(new ByteArrayInputStream(body), UTF_8), type);
+                saveResponse(path, response, body);
+                return obj;
+            }
+            catch (IOException x)
             {
-                case 200:
-                    cache.save(path, response.body());
-                    return response.body();
-                case 404:
-                    cache.saveNotFound(path);
-                    throw new GitHubResourceNotFoundException(path);
-                default:
-                    throw new GitHubApiException("Unable to get [" + path + "]: status code: " + response.statusCode());
+                throw new CompletionException(x);
             }
+        });
+    }
+
+    /**
+     * Create the request, made conditional on the validators of the expired cache entry (if any).
+     */
+    private HttpRequest newRequest(String path, Function<HttpRequest.Builder, HttpRequest> requestBuilder, Cache.Entry expiredEntry)
+    {
+        HttpRequest.Builder builder = baseRequest.copy().uri(toURI(path));
+        if ((expiredEntry != null) && !expiredEntry.isNotFound())
+        {
+            if (expiredEntry.getETag() != null)
+                builder.header("If-None-Match", expiredEntry.getETag());
+            else if (expiredEntry.getLastModified() != null)
+                builder.header("If-Modified-Since", expiredEntry.getLastModified());
         }
+        return requestBuilder.apply(builder);
+    }
+
+    private URI toURI(String path)
+    {
+        return URI.create(apiURI + path);
+    }
+
+    /**
+     * The endpoint of a request, for the {@link RequestStats}.
+     */
+    private String toEndpoint(String resource, HttpRequest request)
+    {
+        if ("graphql".equals(resource))
+            return resource;
+        String path = request.uri().getRawPath();
+        String basePath = apiURI.getRawPath();
+        if ((basePath != null) && path.startsWith(basePath))
+            path = path.substring(basePath.length());
+        return Cache.toResourceType(path);
+    }
+
+    private static String toCachedBody(String path, Cache.Entry entry) throws IOException
+    {
+        if (entry.isNotFound())
+            throw new GitHubResourceNotFoundException(path);
+        return entry.getBody();
+    }
+
+    private <T> T fromCached(String path, Cache.Entry entry, Class<T> type) throws IOException
+    {
+        if (entry.isNotFound())
+            throw new GitHubResourceNotFoundException(path);
+        try (Reader reader = entry.newReader())
+        {
+            return gson.fromJson(reader, type);
+        }
+    }
+
+    private String handleResponse(String path, Cache.Entry expiredEntry, HttpResponse<String> response) throws IOException
+    {
+        if (response.statusCode() != 200)
+        {
+            checkNotModified(path, expiredEntry, response);
+            return toCachedBody(path, expiredEntry);
+        }
+        saveResponse(path, response, response.body().getBytes(UTF_8));
+        return response.body();
     }
 
-    private RateLeft getRateLeft() throws IOException, InterruptedException
+    private <T> T handleNotOk(String path, Cache.Entry expiredEntry, HttpResponse<?> response, Class<T> type) throws IOException
     {
-        if ((rateLeft == null) || (rateLeft.isExpired()))
+        checkNotModified(path, expiredEntry, response);
+        return fromCached(path, expiredEntry, type);
+    }
+
+    /**
+     * Handle a non {@code 200} response, which is only successful for a {@code 304 Not Modified}
+     * revalidation of the expired cache entry.
+     */
+    private void checkNotModified(String path, Cache.Entry expiredEntry, HttpResponse<?> response) throws IOException
+    {
+        switch (response.statusCode())
         {
-            RateLimits rateLimits = getRateLimits();
-            rateLeft = new RateLeft(rateLimits);
+            case 304:
+                if (expiredEntry == null)
+                    throw new GitHubApiException("Unable to get [" + path + "]: status code: 304 without a cached entry");
+                LOG.debug("Revalidated Cached {}", path);
+                cache.saveNotModified(path, expiredEntry);
+                return;
+            case 404:
+                cache.saveNotFound(path);
+                throw new GitHubResourceNotFoundException(path);
+            default:
+                throw new GitHubApiException("Unable to get [" + path + "]: status code: " + response.statusCode());
         }
-        return rateLeft;
+    }
+
+    private void saveResponse(String path, HttpResponse<?> response, byte[] body) throws IOException
+    {
+        cache.save(path, body,
+            response.headers().firstValue("ETag").orElse(null),
+            response.headers().firstValue("Last-Modified").orElse(null));
+    }
+
+    private static int toSizeHint(HttpResponse<?> response)
+    {
+        long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        if (contentLength < 0 || contentLength > MAX_SIZE_HINT)
+            return 8192;
+        return (int)contentLength;
+    }
+
+    private static HttpRequest newV3GetRequest(HttpRequest.Builder requestBuilder)
+    {
+        return requestBuilder.GET()
+            .header("Accept", "application/vnd.github.v3+json")
+            .build();
+    }
+
+    /**
+     * Get the number of requests left in the current rate limit window.
+     * <p>
+     * Known from the headers of the previous responses, the rate limits are only
+     * fetched before the first request (a {@code /rate_limit} request is not counted).
+     * </p>
+     *
+     * @param resource the rate limit resource type (eg: "core")
+     * @return the number of requests left
+     */
+    public int getRateRemaining(String resource) throws IOException, InterruptedException
+    {
+        int remaining = rateLimiter.getRemaining(resource);
+        if (remaining >= 0)
+            return remaining;
+
+        RateLimits.Rate rate = getRateLimits().getResourceLimit(resource);
+        if (rate == null)
+            throw new GitHubApiException("Unrecognized Rate Limit Type: " + resource);
+        rateLimiter.update(resource, rate.getLimit(), rate.getRemaining(), rate.getReset());
+        return rateLimiter.getRemaining(resource);
     }
 
     public RateLimits getRateLimits() throws IOException, InterruptedException
     {
-        URI endpointURI = apiURI.resolve("/rate_limit");
-        HttpRequest request = baseRequest.copy()
+        HttpRequest request = newRateLimitsRequest();
+        HttpResponse<String> response = client.send(request, responseInfo -> HttpResponse.BodySubscribers.ofString(UTF_8));
+        return toRateLimits(response);
+    }
+
+    public CompletableFuture<RateLimits> getRateLimitsAsync()
+    {
+        HttpRequest request = newRateLimitsRequest();
+        return client.sendAsync(request, responseInfo -> HttpResponse.BodySubscribers.ofString(UTF_8))
+            .thenApply((response) ->
+            {
+                try
+                {
+                    return toRateLimits(response);
+                }
+                catch (IOException e)
+                {
+                    throw new CompletionException(e);
+                }
+            });
+    }
+
+    private HttpRequest newRateLimitsRequest()
+    {
+        URI endpointURI = toURI("/rate_limit");
+        return baseRequest.copy()
             .GET()
             .uri(endpointURI)
             .header("Accept", "application/vnd.github.v3+json")
             .build();
-        HttpResponse<String> response = client.send(request, responseInfo -> HttpResponse.BodySubscribers.ofString(UTF_8));
+    }
+
+    private RateLimits toRateLimits(HttpResponse<String> response) throws IOException
+    {
         if (response.statusCode() != 200)
             throw new GitHubApiException("Unable to get rate limits: status code: " + response.statusCode());
         return gson.fromJson(response.body(), RateLimits.class);
@@ -194,11 +529,10 @@ public class GitHubApi
 
     public User getSelf() throws IOException, InterruptedException
     {
-        String body = getCachedBody("/user", (requestBuilder) ->
+        return getCachedObject("/user", (requestBuilder) ->
             requestBuilder.GET()
                 .header("Accept", "application/vnd.github.v3+json")
-                .build());
-        return gson.fromJson(body, User.class);
+                .build(), User.class);
     }
 
     public String graphql(String query) throws IOException, InterruptedException
@@ -208,14 +542,14 @@ public class GitHubApi
 
         String jsonQuery = gson.toJson(map);
 
-        URI endpointURI = apiURI.resolve("/graphql");
+        URI endpointURI = toURI("/graphql");
         HttpRequest request = baseRequest.copy()
             .POST(HttpRequest.BodyPublishers.ofString(jsonQuery))
             .header("Content-Type", "application/json")
             .uri(endpointURI)
             .header("Accept", "application/vnd.github.v3+json")
             .build();
-        HttpResponse<String> response = client.send(request, responseInfo -> HttpResponse.BodySubscribers.ofString(UTF_8));
+        HttpResponse<String> response = send("graphql", request, responseInfo -> HttpResponse.BodySubscribers.ofString(UTF_8));
         if (response.statusCode() != 200)
             throw new GitHubApiException("Unable to post graphql: status code: " + response.statusCode());
         return response.body();
@@ -224,51 +558,86 @@ public class GitHubApi
     public Commit commit(String repoOwner, String repoName, String commitId) throws IOException, InterruptedException
     {
         String path = String.format("/repos/%s/%s/commits/%s", repoOwner, repoName, commitId);
-        String body = getCachedBody(path, (requestBuilder) ->
+        return getCachedObject(path, (requestBuilder) ->
             requestBuilder.GET()
                 .header("Accept", "application/vnd.github.v3+json")
-                .build());
-        return gson.fromJson(body, Commit.class);
+                .build(), Commit.class);
     }
 
     public Issue issue(String repoOwner, String repoName, int issueNum) throws IOException, InterruptedException
     {
         String path = String.format("/repos/%s/%s/issues/%d", repoOwner, repoName, issueNum);
-        String body = getCachedBody(path, (requestBuilder) ->
+        return getCachedObject(path, (requestBuilder) ->
             requestBuilder.GET()
                 .header("Accept", "application/vnd.github.v3+json")
-                .build());
-        return gson.fromJson(body, Issue.class);
+                .build(), Issue.class);
     }
 
     public IssueEvents issueEvents(String repoOwner, String repoName, int issueNum) throws IOException, InterruptedException
     {
         String path = String.format("/repos/%s/%s/issues/%d/events", repoOwner, repoName, issueNum);
-        String body = getCachedBody(path, (requestBuilder) ->
+        return getCachedObject(path, (requestBuilder) ->
             requestBuilder.GET()
                 .header("Accept", "application/vnd.github.v3+json")
-                .build());
-        return gson.fromJson(body, IssueEvents.class);
+                .build(), IssueEvents.class);
     }
 
     public PullRequest pullRequest(String repoOwner, String repoName, int prNum) throws IOException, InterruptedException
     {
         String path = String.format("/repos/%s/%s/pulls/%d", repoOwner, repoName, prNum);
-        String body = getCachedBody(path, (requestBuilder) ->
+        return getCachedObject(path, (requestBuilder) ->
             requestBuilder.GET()
                 .header("Accept", "application/vnd.github.v3+json")
-                .build());
-        return gson.fromJson(body, PullRequest.class);
+                .build(), PullRequest.class);
     }
 
     public PullRequestCommits pullRequestCommits(String repoOwner, String repoName, int prNum) throws IOException, InterruptedException
     {
         String path = String.format("/repos/%s/%s/pulls/%d/commits", repoOwner, repoName, prNum);
-        String body = getCachedBody(path, (requestBuilder) ->
+        return getCachedObject(path, (requestBuilder) ->
             requestBuilder.GET()
                 .header("Accept", "application/vnd.github.v3+json")
-                .build());
-        return gson.fromJson(body, PullRequestCommits.class);
+                .build(), PullRequestCommits.class);
+    }
+
+    /**
+     * Get the last time that any of the cached resources of an issue / pull request (the issue,
+     * its events, the pull request and its commits) changed on GitHub, revalidating the expired ones first.
+     * <p>
+     * Only the resources already in the cache are considered, none is fetched for the first time.
+     * A resource fetched again with the same body (or still not found) has not changed.
+     * </p>
+     *
+     * @return the time (in epoch millis) of the last change, or -1 if the issue is not cached
+     */
+    public long getIssueLastChanged(String repoOwner, String repoName, int issueNum) throws IOException, InterruptedException
+    {
+        String issuePath = String.format("/repos/%s/%s/issues/%d", repoOwner, repoName, issueNum);
+        if (!cache.isCached(issuePath))
+            return -1;
+
+        String pullPath = String.format("/repos/%s/%s/pulls/%d", repoOwner, repoName, issueNum);
+        long lastChanged = -1;
+        for (String path : List.of(issuePath, issuePath + "/events", pullPath, pullPath + "/commits"))
+        {
+            Cache.Entry entry = cache.getEntry(path);
+            if (entry == null)
+                continue;
+            if (entry.isExpired())
+            {
+                try
+                {
+                    fetchBody(path, GitHubApi::newV3GetRequest, entry);
+                }
+                catch (GitHubResourceNotFoundException e)
+                {
+                    LOG.debug("No longer found {}", path);
+                }
+                entry = cache.getEntry(path);
+            }
+            lastChanged = Math.max(lastChanged, entry.getFetchedAt());
+        }
+        return lastChanged;
     }
 
     public Releases listReleases(String repoOwner, String repoName, int resultsPerPage, int pageNum) throws IOException, InterruptedException
@@ -279,11 +648,50 @@ public class GitHubApi
 
         String path = String.format("/repos/%s/%s/releases?%s", repoOwner, repoName, query.toEncodedQuery());
 
-        String body = getCachedBody(path, (requestBuilder) ->
+        return getCachedObject(path, (requestBuilder) ->
             requestBuilder.GET()
                 .header("Accept", "application/vnd.github.v3+json")
-                .build());
-        return gson.fromJson(body, Releases.class);
+                .build(), Releases.class);
+    }
+
+    public CompletableFuture<Commit> commitAsync(String repoOwner, String repoName, String commitId)
+    {
+        String path = String.format("/repos/%s/%s/commits/%s", repoOwner, repoName, commitId);
+        return getCachedObjectAsync(path, GitHubApi::newV3GetRequest, Commit.class);
+    }
+
+    public CompletableFuture<Issue> issueAsync(String repoOwner, String repoName, int issueNum)
+    {
+        String path = String.format("/repos/%s/%s/issues/%d", repoOwner, repoName, issueNum);
+        return getCachedObjectAsync(path, GitHubApi::newV3GetRequest, Issue.class);
+    }
+
+    public CompletableFuture<IssueEvents> issueEventsAsync(String repoOwner, String repoName, int issueNum)
+    {
+        String path = String.format("/repos/%s/%s/issues/%d/events", repoOwner, repoName, issueNum);
+        return getCachedObjectAsync(path, GitHubApi::newV3GetRequest, IssueEvents.class);
+    }
+
+    public CompletableFuture<PullRequest> pullRequestAsync(String repoOwner, String repoName, int prNum)
+    {
+        String path = String.format("/repos/%s/%s/pulls/%d", repoOwner, repoName, prNum);
+        return getCachedObjectAsync(path, GitHubApi::newV3GetRequest, PullRequest.class);
+    }
+
+    public CompletableFuture<PullRequestCommits> pullRequestCommitsAsync(String repoOwner, String repoName, int prNum)
+    {
+        String path = String.format("/repos/%s/%s/pulls/%d/commits", repoOwner, repoName, prNum);
+        return getCachedObjectAsync(path, GitHubApi::newV3GetRequest, PullRequestCommits.class);
+    }
+
+    public CompletableFuture<Releases> listReleasesAsync(String repoOwner, String repoName, int resultsPerPage, int pageNum)
+    {
+        Query query = new Query();
+        query.put("per_page", String.valueOf(resultsPerPage));
+        query.put("page", String.valueOf(pageNum));
+
+        String path = String.format("/repos/%s/%s/releases?%s", repoOwner, repoName, query.toEncodedQuery());
+        return getCachedObjectAsync(path, GitHubApi::newV3GetRequest, Releases.class);
     }
 
     public Stream<Release> streamReleases(String repoOwner, String repoName)
@@ -313,6 +721,65 @@ public class GitHubApi
         }
     }
 
+    /**
+     * Keeps a copy of the bytes read through it, so that the response body can be
+     * decoded and saved to the cache in a single pass.
+     */
+    private static class RecordingInputStream extends FilterInputStream
+    {
+        private final ByteArrayOutputStream recorded;
+
+        RecordingInputStream(InputStream in, int sizeHint)
+        {
+            super(in);
+            this.recorded = new ByteArrayOutputStream(sizeHint);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int b = super.read();
+            if (b >= 0)
+                recorded.write(b);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            int read = super.read(b, off, len);
+            if (read > 0)
+                recorded.write(b, off, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            // Skipped bytes must still be recorded
+            byte[] buf = new byte[(int)Math.min(n, 8192)];
+            int read = read(buf, 0, buf.length);
+            return Math.max(read, 0);
+        }
+
+        /**
+         * Read any remaining bytes (eg: trailing whitespace not consumed by the JSON parser).
+         */
+        void drain() throws IOException
+        {
+            byte[] buf = new byte[1024];
+            while (read(buf, 0, buf.length) >= 0)
+            {
+                // keep reading
+            }
+        }
+
+        byte[] toByteArray()
+        {
+            return recorded.toByteArray();
+        }
+    }
+
     static class Query extends HashMap<String, String>
     {
         String toEncodedQuery()
@@ -0,0 +1,381 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fetch many issues / pull requests in a single GraphQL request.
+ * <p>
+ * Each issue / pull request is fetched via an aliased {@code issueOrPullRequest} query.
+ * The GraphQL nodes are cached under their own paths (eg: {@code /graphql/issue/eclipse/jetty.project/5675}),
+ * rather than as REST responses: they only hold the fields used by the changelog,
+ * and they have no response validators to revalidate them with.
+ * </p>
+ */
+public class IssueBatchFetcher
+{
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    private static final Logger LOG = LoggerFactory.getLogger(IssueBatchFetcher.class);
+    // GitHub GraphQL limits connections to 100 nodes per page
+    private static final int MAX_NODES = 100;
+    private static final String FRAGMENT = "fragment issueFields on IssueOrPullRequest {\n" +
+        "  __typename\n" +
+        "  ... on Issue {\n" +
+        "    number title body state\n" +
+        "    labels(first: " + MAX_NODES + ") { nodes { name } }\n" +
+        "    timelineItems(first: " + MAX_NODES + ", itemTypes: [REFERENCED_EVENT, CLOSED_EVENT]) {\n" +
+        "      pageInfo { hasNextPage }\n" +
+        "      nodes {\n" +
+        "        __typename\n" +
+        "        ... on ReferencedEvent { commit { oid } }\n" +
+        "        ... on ClosedEvent { closer { __typename ... on Commit { oid } } }\n" +
+        "      }\n" +
+        "    }\n" +
+        "  }\n" +
+        "  ... on PullRequest {\n" +
+        "    number title body state baseRefName\n" +
+        "    labels(first: " + MAX_NODES + ") { nodes { name } }\n" +
+        "    commits(first: " + MAX_NODES + ") { pageInfo { hasNextPage } nodes { commit { oid } } }\n" +
+        "  }\n" +
+        "}\n";
+
+    public static class Result
+    {
+        private final int number;
+        private final boolean pullRequest;
+        private final String title;
+        private final String body;
+        private final String baseRef;
+        private final List<String> labels;
+        private final List<String> commits;
+        private final boolean complete;
+
+        Result(int number, boolean pullRequest, String title, String body, String baseRef, List<String> labels, List<String> commits, boolean complete)
+        {
+            this.number = number;
+            this.pullRequest = pullRequest;
+            this.title = title;
+            this.body = body;
+            this.baseRef = baseRef;
+            this.labels = labels;
+            this.commits = commits;
+            this.complete = complete;
+        }
+
+        public int getNumber()
+        {
+            return number;
+        }
+
+        public boolean isPullRequest()
+        {
+            return pullRequest;
+        }
+
+        public String getTitle()
+        {
+            return title;
+        }
+
+        public String getBody()
+        {
+            return body;
+        }
+
+        /**
+         * @return the base ref of the pull request, or null if an issue
+         */
+        public String getBaseRef()
+        {
+            return baseRef;
+        }
+
+        public List<String> getLabels()
+        {
+            return labels;
+        }
+
+        /**
+         * @return the commit SHAs of the pull request, or the commit SHAs referenced by the issue events
+         */
+        public List<String> getCommits()
+        {
+            return commits;
+        }
+
+        /**
+         * @return false if there were more commits than fetched, in which case the REST API has to be used
+         */
+        public boolean isComplete()
+        {
+            return complete;
+        }
+    }
+
+    private final GitHubApi github;
+    private final Cache cache;
+    private final Gson gson;
+    private final String repoOwner;
+    private final String repoName;
+    private final int batchSize;
+
+    public IssueBatchFetcher(GitHubApi github, String repoOwner, String repoName)
+    {
+        this(github, repoOwner, repoName, DEFAULT_BATCH_SIZE);
+    }
+
+    public IssueBatchFetcher(GitHubApi github, String repoOwner, String repoName, int batchSize)
+    {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        this.github = github;
+        this.cache = github.getCache();
+        this.gson = GitHubApi.newGson();
+        this.repoOwner = repoOwner;
+        this.repoName = repoName;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Get the issues / pull requests from the cache, fetching the ones not cached or expired.
+     *
+     * @param issueNums the issue / pull request numbers to get
+     * @return the issues / pull requests, missing entries were not found on GitHub
+     */
+    public Map<Integer, Result> get(Collection<Integer> issueNums) throws IOException, InterruptedException
+    {
+        Map<Integer, Result> results = new LinkedHashMap<>();
+        List<Integer> uncached = new ArrayList<>();
+        for (int num : issueNums)
+        {
+            Cache.Entry entry = cache.lookup(toCachePath(num));
+            if ((entry == null) || entry.isExpired())
+                uncached.add(num);
+            else if (!entry.isNotFound())
+                results.put(num, toResult(gson.fromJson(entry.getBody(), JsonObject.class)));
+        }
+        results.putAll(fetch(uncached));
+        return results;
+    }
+
+    /**
+     * Get the last time that the cached issues / pull requests changed on GitHub, fetching the expired ones again first.
+     * <p>
+     * Only the issues already in the cache, with all their commits in their GraphQL node, are considered.
+     * An issue fetched again with the same GraphQL node (or still not found) has not changed.
+     * </p>
+     *
+     * @param issueNums the issue / pull request numbers
+     * @return the time (in epoch millis) of the last change, by issue number
+     */
+    public Map<Integer, Long> getLastChanged(Collection<Integer> issueNums) throws IOException, InterruptedException
+    {
+        List<Integer> cached = new ArrayList<>();
+        List<Integer> expired = new ArrayList<>();
+        for (int num : issueNums)
+        {
+            Cache.Entry entry = cache.getEntry(toCachePath(num));
+            if (entry == null)
+                continue;
+            cached.add(num);
+            if (entry.isExpired())
+                expired.add(num);
+        }
+        fetch(expired);
+
+        Map<Integer, Long> lastChanged = new LinkedHashMap<>();
+        for (int num : cached)
+        {
+            Cache.Entry entry = cache.getEntry(toCachePath(num));
+            if (entry.isNotFound() || toResult(gson.fromJson(entry.getBody(), JsonObject.class)).isComplete())
+                lastChanged.put(num, entry.getFetchedAt());
+        }
+        return lastChanged;
+    }
+
+    /**
+     * Fetch the issues / pull requests, in batches of up to {@code batchSize} per GraphQL request.
+     *
+     * @param issueNums the issue / pull request numbers to fetch
+     * @return the fetched issues / pull requests, missing entries were not found on GitHub
+     */
+    public Map<Integer, Result> fetch(Collection<Integer> issueNums) throws IOException, InterruptedException
+    {
+        List<Integer> nums = issueNums.stream().distinct().sorted().collect(Collectors.toList());
+        Map<Integer, Result> results = new LinkedHashMap<>();
+        for (int i = 0; i < nums.size(); i += batchSize)
+        {
+            List<Integer> batch = nums.subList(i, Math.min(i + batchSize, nums.size()));
+            LOG.debug("Fetching batch of {} issues via GraphQL", batch.size());
+            String response = github.graphql(toQuery(batch));
+            results.putAll(parseResponse(batch, response));
+        }
+        return results;
+    }
+
+    String toQuery(List<Integer> issueNums)
+    {
+        StringBuilder query = new StringBuilder();
+        query.append("query {\n");
+        query.append("  repository(owner: ").append(gson.toJson(repoOwner));
+        query.append(", name: ").append(gson.toJson(repoName)).append(") {\n");
+        for (int num : issueNums)
+        {
+            query.append("    ").append(toAlias(num));
+            query.append(": issueOrPullRequest(number: ").append(num).append(") { ...issueFields }\n");
+        }
+        query.append("  }\n");
+        query.append("}\n");
+        query.append(FRAGMENT);
+        return query.toString();
+    }
+
+    Map<Integer, Result> parseResponse(List<Integer> issueNums, String response) throws IOException
+    {
+        JsonObject root = gson.fromJson(response, JsonObject.class);
+        JsonObject repository = null;
+        if (root.has("data") && root.get("data").isJsonObject())
+        {
+            JsonObject data = root.getAsJsonObject("data");
+            if (data.has("repository") && data.get("repository").isJsonObject())
+                repository = data.getAsJsonObject("repository");
+        }
+
+        Set<String> notFoundAliases = new HashSet<>();
+        if (root.has("errors"))
+        {
+            for (JsonElement error : root.getAsJsonArray("errors"))
+            {
+                JsonObject errorObj = error.getAsJsonObject();
+                String type = getString(errorObj, "type");
+                JsonArray path = errorObj.has("path") ? errorObj.getAsJsonArray("path") : null;
+                if ("NOT_FOUND".equals(type) && (path != null) && (path.size() == 2))
+                    notFoundAliases.add(path.get(1).getAsString());
+                else
+                    LOG.warn("GraphQL error: {}", errorObj);
+            }
+        }
+
+        if (repository == null)
+            throw new GitHubApiException("Unable to fetch issues via GraphQL: " + root.get("errors"));
+
+        Map<Integer, Result> results = new LinkedHashMap<>();
+        for (int num : issueNums)
+        {
+            String alias = toAlias(num);
+            JsonElement element = repository.get(alias);
+            if ((element == null) || element.isJsonNull())
+            {
+                if (notFoundAliases.contains(alias))
+                    cache.saveNotFound(toCachePath(num));
+                continue;
+            }
+
+            JsonObject node = element.getAsJsonObject();
+            cache.save(toCachePath(num), gson.toJson(node));
+            results.put(num, toResult(node));
+        }
+        return results;
+    }
+
+    private Result toResult(JsonObject node)
+    {
+        boolean isPullRequest = "PullRequest".equals(getString(node, "__typename"));
+
+        List<String> labels = new ArrayList<>();
+        for (JsonElement label : getNodes(node, "labels"))
+        {
+            labels.add(getString(label.getAsJsonObject(), "name"));
+        }
+
+        List<String> commits = new ArrayList<>();
+        if (isPullRequest)
+        {
+            for (JsonElement commitNode : getNodes(node, "commits"))
+            {
+                JsonObject commit = commitNode.getAsJsonObject().getAsJsonObject("commit");
+                if (commit != null)
+                    commits.add(getString(commit, "oid"));
+            }
+        }
+        else
+        {
+            for (JsonElement eventNode : getNodes(node, "timelineItems"))
+            {
+                String oid = getEventCommitId(eventNode.getAsJsonObject());
+                if (oid != null)
+                    commits.add(oid);
+            }
+        }
+
+        return new Result(node.get("number").getAsInt(),
+            isPullRequest,
+            getString(node, "title"),
+            getString(node, "body"),
+            isPullRequest ? getString(node, "baseRefName") : null,
+            labels,
+            commits,
+            !hasNextPage(node, isPullRequest ? "commits" : "timelineItems"));
+    }
+
+    private static String getEventCommitId(JsonObject event)
+    {
+        JsonElement commit = event.has("commit") ? event.get("commit") : event.get("closer");
+        if ((commit == null) || !commit.isJsonObject())
+            return null;
+        return getString(commit.getAsJsonObject(), "oid");
+    }
+
+    private static JsonArray getNodes(JsonObject node, String connection)
+    {
+        if (!node.has(connection) || !node.get(connection).isJsonObject())
+            return new JsonArray();
+        JsonObject conn = node.getAsJsonObject(connection);
+        if (!conn.has("nodes") || !conn.get("nodes").isJsonArray())
+            return new JsonArray();
+        return conn.getAsJsonArray("nodes");
+    }
+
+    private static boolean hasNextPage(JsonObject node, String connection)
+    {
+        if (!node.has(connection) || !node.get(connection).isJsonObject())
+            return false;
+        JsonObject conn = node.getAsJsonObject(connection);
+        if (!conn.has("pageInfo") || !conn.get("pageInfo").isJsonObject())
+            return false;
+        JsonElement hasNextPage = conn.getAsJsonObject("pageInfo").get("hasNextPage");
+        return (hasNextPage != null) && !hasNextPage.isJsonNull() && hasNextPage.getAsBoolean();
+    }
+
+    private static String getString(JsonObject obj, String name)
+    {
+        JsonElement element = obj.get(name);
+        if ((element == null) || element.isJsonNull())
+            return null;
+        return element.getAsString();
+    }
+
+    private static String toAlias(int num)
+    {
+        return "i" + num;
+    }
+
+    private String toCachePath(int num)
+    {
+        return String.format("/graphql/issue/%s/%s/%d", repoOwner, repoName, num);
+    }
+}
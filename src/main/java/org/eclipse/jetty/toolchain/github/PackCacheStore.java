@@ -0,0 +1,384 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A cache store that keeps every record in a single append-only pack file.
+ * <p>
+ * The pack file is memory-mapped for reads, and an in-memory index of path to record offset
+ * is built by scanning the pack file when opened.
+ * Replacing a record appends a new record, leaving the old one as garbage until {@link #compact()}.
+ * </p>
+ * <p>
+ * Pack file layout:
+ * </p>
+ * <pre>
+ *   header: "GHCP" (4 bytes), version (int)
+ *   record: length (int), crc32 (int), path length (int), path (utf8), meta length (int), meta (utf8), body length (int), body
+ * </pre>
+ * <p>
+ * The {@code length} and {@code crc32} cover everything in the record after the crc32.
+ * A torn record at the end of the pack file (eg: from a crash during a write) is truncated when opened.
+ * </p>
+ * <p>
+ * The reads run concurrently with each other and with {@link #put(String, Record)},
+ * but wait for {@link #compact()} and {@link #close()}, which replace the pack file and its mapping.
+ * </p>
+ */
+public class PackCacheStore implements CacheStore
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PackCacheStore.class);
+    private static final byte[] MAGIC = {'G', 'H', 'C', 'P'};
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + Integer.BYTES;
+    private static final int RECORD_PREFIX_LENGTH = Integer.BYTES * 2;
+
+    private static class Slot
+    {
+        final long offset;
+        final int length;
+
+        Slot(long offset, int length)
+        {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final Path packFile;
+    private final Map<String, Slot> index = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private volatile MappedByteBuffer mapped;
+    private long size;
+    private long liveBytes;
+
+    public PackCacheStore(Path packFile) throws IOException
+    {
+        this.packFile = packFile;
+        open();
+    }
+
+    private void open() throws IOException
+    {
+        Path parentDir = packFile.toAbsolutePath().getParent();
+        if (!Files.exists(parentDir))
+            Files.createDirectories(parentDir);
+
+        channel = FileChannel.open(packFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.clear();
+        liveBytes = 0;
+
+        if (channel.size() == 0)
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            header.put(MAGIC).putInt(VERSION).flip();
+            writeFully(header, 0);
+            size = HEADER_LENGTH;
+        }
+        else
+        {
+            size = channel.size();
+        }
+        remap();
+
+        ByteBuffer buf = mapped.duplicate();
+        byte[] magic = new byte[MAGIC.length];
+        buf.get(magic);
+        int version = buf.getInt();
+        if (!Arrays.equals(MAGIC, magic) || (version != VERSION))
+            throw new IOException("Not a cache pack file (or unsupported version): " + packFile);
+
+        long offset = HEADER_LENGTH;
+        while (offset < size)
+        {
+            String path = readRecordPath(offset);
+            if (path == null)
+            {
+                LOG.warn("Truncating torn record at offset {} of {}", offset, packFile);
+                channel.truncate(offset);
+                size = offset;
+                remap();
+                break;
+            }
+            int length = readInt(offset);
+            Slot old = index.put(path, new Slot(offset, length));
+            if (old != null)
+                liveBytes -= old.length;
+            liveBytes += length;
+            offset += RECORD_PREFIX_LENGTH + length;
+        }
+    }
+
+    private void remap() throws IOException
+    {
+        long mapSize = Math.min(size, Integer.MAX_VALUE);
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, mapSize);
+    }
+
+    /**
+     * Read the path of the record at the offset, validating the record.
+     * Only the last record in the pack file can be torn, so only its crc32 is checked.
+     *
+     * @return the path, or null if the record is torn or corrupt
+     */
+    private String readRecordPath(long offset) throws IOException
+    {
+        if (offset + RECORD_PREFIX_LENGTH > size)
+            return null;
+        int length = readInt(offset);
+        if ((length < Integer.BYTES * 3) || (offset + RECORD_PREFIX_LENGTH + length > size))
+            return null;
+        ByteBuffer record = read(offset + RECORD_PREFIX_LENGTH, length);
+        if (offset + RECORD_PREFIX_LENGTH + length == size)
+        {
+            CRC32 crc = new CRC32();
+            crc.update(record.duplicate());
+            if ((int)crc.getValue() != readInt(offset + Integer.BYTES))
+                return null;
+        }
+        int pathLength = record.getInt();
+        byte[] path = new byte[pathLength];
+        record.get(path);
+        return new String(path, UTF_8);
+    }
+
+    private int readInt(long offset) throws IOException
+    {
+        return read(offset, Integer.BYTES).getInt();
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException
+    {
+        MappedByteBuffer buf = mapped;
+        if (offset + length <= buf.capacity())
+        {
+            ByteBuffer slice = buf.duplicate();
+            slice.position((int)offset).limit((int)offset + length);
+            return slice.slice();
+        }
+
+        // Beyond the mapped region
+        ByteBuffer slice = ByteBuffer.allocate(length);
+        while (slice.hasRemaining())
+        {
+            if (channel.read(slice, offset + slice.position()) < 0)
+                throw new IOException("Unexpected end of pack file: " + packFile);
+        }
+        slice.flip();
+        return slice;
+    }
+
+    private void writeFully(ByteBuffer buf, long position) throws IOException
+    {
+        while (buf.hasRemaining())
+        {
+            position += channel.write(buf, position);
+        }
+    }
+
+    @Override
+    public Record get(String path) throws IOException
+    {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try
+        {
+            Slot slot = index.get(path);
+            if (slot == null)
+                return null;
+
+            ByteBuffer record = read(slot.offset + RECORD_PREFIX_LENGTH, slot.length);
+            int pathLength = record.getInt();
+            record.position(record.position() + pathLength);
+            byte[] meta = new byte[record.getInt()];
+            record.get(meta);
+            byte[] body = new byte[record.getInt()];
+            record.get(body);
+            return new Record(body, decodeMeta(meta));
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String path)
+    {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try
+        {
+            return index.containsKey(path);
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public synchronized void put(String path, Record record) throws IOException
+    {
+        byte[] pathBytes = path.getBytes(UTF_8);
+        byte[] meta = encodeMeta(record.getMeta());
+        byte[] body = record.getBody();
+
+        int length = Integer.BYTES * 3 + pathBytes.length + meta.length + body.length;
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_PREFIX_LENGTH + length);
+        buf.position(RECORD_PREFIX_LENGTH);
+        buf.putInt(pathBytes.length).put(pathBytes);
+        buf.putInt(meta.length).put(meta);
+        buf.putInt(body.length).put(body);
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), RECORD_PREFIX_LENGTH, length);
+        buf.putInt(0, length).putInt(Integer.BYTES, (int)crc.getValue());
+        buf.flip();
+
+        long offset = size;
+        writeFully(buf, offset);
+        size += buf.limit();
+
+        // Extend the mapping in large steps, not on every append
+        if ((size > mapped.capacity()) && (size - mapped.capacity() > mapped.capacity() / 4) && (mapped.capacity() < Integer.MAX_VALUE))
+            remap();
+
+        Slot old = index.put(path, new Slot(offset, length));
+        if (old != null)
+            liveBytes -= old.length;
+        liveBytes += length;
+    }
+
+    @Override
+    public void forEach(RecordVisitor visitor) throws IOException
+    {
+        List<String> paths = new ArrayList<>(index.keySet());
+        paths.sort(String::compareTo);
+        for (String path : paths)
+        {
+            Record record = get(path);
+            if (record != null)
+                visitor.visit(path, record);
+        }
+    }
+
+    /**
+     * @return the number of records in the store
+     */
+    public int size()
+    {
+        return index.size();
+    }
+
+    /**
+     * @return the size of the pack file
+     */
+    public synchronized long getFileSize()
+    {
+        return size;
+    }
+
+    /**
+     * @return the number of bytes in the pack file taken by replaced records
+     */
+    public synchronized long getWastedBytes()
+    {
+        return size - HEADER_LENGTH - liveBytes - ((long)index.size() * RECORD_PREFIX_LENGTH);
+    }
+
+    /**
+     * Rewrite the pack file with only the current records, dropping replaced records.
+     * The other threads using the store wait for it.
+     */
+    public synchronized void compact() throws IOException
+    {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try
+        {
+            Path compactFile = packFile.resolveSibling(packFile.getFileName() + ".compact");
+            Files.deleteIfExists(compactFile);
+            try (PackCacheStore compacted = new PackCacheStore(compactFile))
+            {
+                CacheStore.copy(this, compacted);
+            }
+            close();
+            Files.move(compactFile, packFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            open();
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try
+        {
+            if (channel.isOpen())
+            {
+                channel.force(true);
+                channel.close();
+            }
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    private static byte[] encodeMeta(Map<String, String> meta)
+    {
+        StringBuilder ret = new StringBuilder();
+        for (Map.Entry<String, String> entry : meta.entrySet())
+        {
+            ret.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+        return ret.toString().getBytes(UTF_8);
+    }
+
+    private static Map<String, String> decodeMeta(byte[] meta)
+    {
+        Map<String, String> ret = new TreeMap<>();
+        for (String line : new String(meta, UTF_8).split("\n"))
+        {
+            int idx = line.indexOf('=');
+            if (idx > 0)
+                ret.put(line.substring(0, idx), line.substring(idx + 1));
+        }
+        return ret;
+    }
+
+    @Override
+    public String toString()
+    {
+        return packFile.toString();
+    }
+}
@@ -0,0 +1,287 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.net.http.HttpHeaders;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client side pacing of the GitHub API requests, fed by the {@code X-RateLimit-*} headers of every response.
+ * <p>
+ * Each rate limit resource (eg: {@code core}, {@code graphql}) is a token bucket holding the requests left
+ * until the window resets. While plenty are left, requests are sent straight away. Once fewer than
+ * {@link #setPaceBelow(double) a fraction} of the limit are left, the remaining requests are spread evenly
+ * until the reset, rather than draining the bucket and then stopping hard. The last {@link #setReserve(int) few}
+ * requests are kept for after the reset.
+ * </p>
+ * <p>
+ * A request rejected with a {@code 403} or {@code 429} and a {@code Retry-After} (a secondary rate limit),
+ * or with no requests left, holds back all the requests of its resource until the stated time.
+ * </p>
+ * <p>
+ * Thread safe: the send times are reserved under a lock, the waiting is done outside of it.
+ * </p>
+ */
+public class RateLimiter
+{
+    private static final Logger LOG = LoggerFactory.getLogger(RateLimiter.class);
+    // The reset time is in epoch seconds, and the client and server clocks may differ
+    private static final long RESET_MARGIN_MS = 1000;
+
+    private static class Bucket
+    {
+        private int limit;
+        private int remaining;
+        // Epoch millis of the reset, 0 once the window has passed and the next one is not known yet
+        private long resetMillis;
+        private long nextSendMillis;
+    }
+
+    private final LongSupplier clock;
+    private final Map<String, Bucket> buckets = new HashMap<>();
+    private final LongAdder delayedRequests = new LongAdder();
+    private final LongAdder delayedMillis = new LongAdder();
+    private int reserve = 10;
+    private double paceBelow = 0.2;
+
+    public RateLimiter()
+    {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock the epoch millis, for testing
+     */
+    RateLimiter(LongSupplier clock)
+    {
+        this.clock = clock;
+    }
+
+    /**
+     * The number of requests left unused at the end of a window, 10 by default.
+     */
+    public synchronized void setReserve(int reserve)
+    {
+        this.reserve = reserve;
+    }
+
+    /**
+     * The fraction of the limit below which the requests are paced, 0.2 by default.
+     */
+    public synchronized void setPaceBelow(double paceBelow)
+    {
+        this.paceBelow = paceBelow;
+    }
+
+    /**
+     * Wait until the request can be sent.
+     *
+     * @param resource the rate limit resource of the request
+     */
+    public void acquire(String resource) throws InterruptedException
+    {
+        long waitMs = reserve(resource);
+        if (waitMs > 0)
+        {
+            LOG.debug("Rate Limit [{}] applied. Waiting {} ms", resource, waitMs);
+            Thread.sleep(waitMs);
+        }
+    }
+
+    /**
+     * Reserve the sending of a request.
+     *
+     * @param resource the rate limit resource of the request
+     * @return the number of millis to wait before sending the request
+     */
+    public synchronized long reserve(String resource)
+    {
+        Bucket bucket = buckets.get(resource);
+        // Nothing known until the first response
+        if (bucket == null)
+            return 0;
+
+        long now = clock.getAsLong();
+        rollOver(bucket, now);
+        long sendMillis = Math.max(now, bucket.nextSendMillis);
+
+        if (bucket.resetMillis > 0)
+        {
+            int usable = bucket.remaining - reserve;
+            if (usable <= 0)
+            {
+                // Send (and hold back the following requests) after the reset, in the next window
+                sendMillis = Math.max(sendMillis, bucket.resetMillis + RESET_MARGIN_MS);
+                LOG.warn("Rate Limit [{}] reached. Waiting {} ms for the reset", resource, sendMillis - now);
+                bucket.nextSendMillis = sendMillis;
+                bucket.remaining = bucket.limit;
+                bucket.resetMillis = 0;
+            }
+            else if (usable < bucket.limit * paceBelow)
+            {
+                long interval = Math.max(0, bucket.resetMillis - sendMillis) / usable;
+                bucket.nextSendMillis = sendMillis + interval;
+            }
+        }
+        bucket.remaining--;
+        long waitMs = sendMillis - now;
+        if (waitMs > 0)
+        {
+            delayedRequests.increment();
+            delayedMillis.add(waitMs);
+        }
+        return waitMs;
+    }
+
+    /**
+     * Update from the {@code X-RateLimit-*} headers of a response, if any.
+     */
+    public void update(HttpHeaders headers)
+    {
+        OptionalLong limit = headers.firstValueAsLong("X-RateLimit-Limit");
+        OptionalLong reset = headers.firstValueAsLong("X-RateLimit-Reset");
+        if (limit.isEmpty() || reset.isEmpty())
+            return;
+        OptionalLong remaining = headers.firstValueAsLong("X-RateLimit-Remaining");
+        OptionalLong used = headers.firstValueAsLong("X-RateLimit-Used");
+        if (remaining.isEmpty() && used.isEmpty())
+            return;
+        String resource = headers.firstValue("X-RateLimit-Resource").orElse("core");
+        int left = remaining.isPresent() ? (int)remaining.getAsLong() : (int)(limit.getAsLong() - used.getAsLong());
+        update(resource, (int)limit.getAsLong(), left, reset.getAsLong());
+    }
+
+    /**
+     * Update the rate limit of a resource, from a response or from {@link GitHubApi#getRateLimits()}.
+     *
+     * @param resource the rate limit resource
+     * @param limit the number of requests allowed per window
+     * @param remaining the number of requests left in the window
+     * @param resetEpochSeconds the end of the window
+     */
+    public synchronized void update(String resource, int limit, int remaining, long resetEpochSeconds)
+    {
+        long resetMillis = resetEpochSeconds * 1000;
+        Bucket bucket = buckets.get(resource);
+        if (bucket == null)
+        {
+            bucket = new Bucket();
+            buckets.put(resource, bucket);
+        }
+        bucket.limit = limit;
+        if (resetMillis > bucket.resetMillis)
+        {
+            // A later window
+            bucket.remaining = remaining;
+            bucket.resetMillis = resetMillis;
+        }
+        else if (resetMillis == bucket.resetMillis)
+        {
+            // Responses complete out of order, and the requests still in flight are already counted
+            bucket.remaining = Math.min(bucket.remaining, remaining);
+        }
+    }
+
+    /**
+     * Handle a response rejected by a rate limit, holding back the following requests.
+     *
+     * @param resource the rate limit resource of the request
+     * @param statusCode the response status code
+     * @param headers the response headers
+     * @return true if the request was rejected by a rate limit and can be retried
+     */
+    public boolean onRejected(String resource, int statusCode, HttpHeaders headers)
+    {
+        if ((statusCode != 403) && (statusCode != 429))
+            return false;
+
+        long now = clock.getAsLong();
+        long holdUntil;
+        OptionalLong retryAfter = headers.firstValueAsLong("Retry-After");
+        if (retryAfter.isPresent())
+        {
+            holdUntil = now + (retryAfter.getAsLong() * 1000);
+        }
+        else if (headers.firstValueAsLong("X-RateLimit-Remaining").orElse(-1) == 0)
+        {
+            holdUntil = (headers.firstValueAsLong("X-RateLimit-Reset").orElse(0) * 1000) + RESET_MARGIN_MS;
+        }
+        else
+        {
+            // Forbidden for another reason
+            return false;
+        }
+
+        synchronized (this)
+        {
+            Bucket bucket = buckets.get(resource);
+            if (bucket == null)
+            {
+                bucket = new Bucket();
+                buckets.put(resource, bucket);
+            }
+            bucket.nextSendMillis = Math.max(bucket.nextSendMillis, holdUntil);
+        }
+        LOG.warn("Rate Limit [{}] exceeded (status code: {}). Holding requests for {} ms", resource, statusCode, Math.max(0, holdUntil - now));
+        return true;
+    }
+
+    /**
+     * @param resource the rate limit resource
+     * @return the number of requests left in the window, or -1 if not known yet
+     */
+    public synchronized int getRemaining(String resource)
+    {
+        Bucket bucket = buckets.get(resource);
+        if ((bucket == null) || (bucket.limit == 0))
+            return -1;
+        rollOver(bucket, clock.getAsLong());
+        return bucket.remaining;
+    }
+
+    /**
+     * @return the number of requests held back, by pacing or by a rate limit
+     */
+    public long getDelayedRequests()
+    {
+        return delayedRequests.sum();
+    }
+
+    /**
+     * @return the total time the requests were held back, waited on threads or on a delayed executor
+     */
+    public long getDelayedMillis()
+    {
+        return delayedMillis.sum();
+    }
+
+    /**
+     * The window has passed without a response from the next one: assume the full limit is back.
+     */
+    private static void rollOver(Bucket bucket, long now)
+    {
+        if ((bucket.resetMillis > 0) && (now >= bucket.resetMillis))
+        {
+            bucket.remaining = bucket.limit;
+            bucket.resetMillis = 0;
+        }
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        StringBuilder sb = new StringBuilder("RateLimiter[");
+        buckets.forEach((resource, bucket) ->
+        {
+            if (sb.charAt(sb.length() - 1) != '[')
+                sb.append(",");
+            sb.append(resource).append("=").append(bucket.remaining).append("/").append(bucket.limit);
+        });
+        return sb.append("]").toString();
+    }
+}
@@ -0,0 +1,156 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The number and latency of the requests sent to each endpoint of the GitHub API.
+ * <p>
+ * An endpoint is the {@link Cache#toResourceType(String) resource type} of the request path
+ * (eg: {@code issues}, {@code pull-commits}), or {@code graphql}.
+ * The latencies are counted in a fixed histogram of millis, so recording one does not allocate.
+ * </p>
+ */
+public class RequestStats
+{
+    /**
+     * The upper bounds, in millis, of the buckets of the latency histograms, the last bucket being unbounded.
+     */
+    public static final long[] LATENCY_BOUNDS_MS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    /**
+     * The requests sent to an endpoint.
+     */
+    public static class Endpoint
+    {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(LATENCY_BOUNDS_MS.length + 1);
+
+        private void record(long nanos, boolean failed)
+        {
+            requests.increment();
+            if (failed)
+                failures.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while ((bucket < LATENCY_BOUNDS_MS.length) && (millis > LATENCY_BOUNDS_MS[bucket]))
+            {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+        }
+
+        public long getRequests()
+        {
+            return requests.sum();
+        }
+
+        /**
+         * @return the number of requests that failed without a response
+         */
+        public long getFailures()
+        {
+            return failures.sum();
+        }
+
+        public long getTotalMillis()
+        {
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos.sum());
+        }
+
+        public long getMaxMillis()
+        {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+        }
+
+        /**
+         * @return the number of requests per bucket of {@link #LATENCY_BOUNDS_MS}
+         */
+        public long[] getHistogram()
+        {
+            long[] histogram = new long[buckets.length()];
+            for (int i = 0; i < histogram.length; i++)
+            {
+                histogram[i] = buckets.get(i);
+            }
+            return histogram;
+        }
+
+        /**
+         * @param percentile the percentile, between 0 and 100
+         * @return the upper bound of the bucket holding the percentile, or the max for the last bucket
+         */
+        public long getPercentileMillis(double percentile)
+        {
+            long[] histogram = getHistogram();
+            long count = 0;
+            for (long requests : histogram)
+            {
+                count += requests;
+            }
+            long rank = (long)Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < LATENCY_BOUNDS_MS.length; i++)
+            {
+                seen += histogram[i];
+                if ((seen >= rank) && (seen > 0))
+                    return LATENCY_BOUNDS_MS[i];
+            }
+            return getMaxMillis();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%d requests (%d failed), p50=%dms, p99=%dms, max=%dms",
+                getRequests(), getFailures(), getPercentileMillis(50), getPercentileMillis(99), getMaxMillis());
+        }
+    }
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Record a request sent, from the time it was sent (after any rate limit wait) to its response.
+     *
+     * @param endpoint the endpoint of the request
+     * @param nanos the latency of the request
+     * @param failed true if the request failed without a response
+     */
+    public void record(String endpoint, long nanos, boolean failed)
+    {
+        endpoints.computeIfAbsent(endpoint, (name) -> new Endpoint()).record(nanos, failed);
+    }
+
+    /**
+     * @return the endpoints requested, by name
+     */
+    public Map<String, Endpoint> getEndpoints()
+    {
+        return new TreeMap<>(endpoints);
+    }
+
+    /**
+     * @return the number of requests sent to all the endpoints
+     */
+    public long getRequests()
+    {
+        return endpoints.values().stream().mapToLong(Endpoint::getRequests).sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("RequestStats%s", getEndpoints());
+    }
+}
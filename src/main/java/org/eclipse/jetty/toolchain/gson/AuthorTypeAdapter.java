@@ -0,0 +1,69 @@
+package org.eclipse.jetty.toolchain.gson;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.eclipse.jetty.toolchain.Author;
+
+/**
+ * An {@link Author}, with the same fields as {@code authors.json}.
+ */
+public class AuthorTypeAdapter extends TypeAdapter<Author>
+{
+    @Override
+    public void write(JsonWriter out, Author author) throws IOException
+    {
+        if (author == null)
+        {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        JsonValues.writeString(out, "github", author.github());
+        JsonValues.writeString(out, "name", author.name());
+        JsonValues.writeStrings(out, "emails", author.emails());
+        out.name("committer").value(author.committer());
+        out.endObject();
+    }
+
+    @Override
+    public Author read(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return null;
+        }
+        Author author = new Author();
+        in.beginObject();
+        while (in.hasNext())
+        {
+            switch (in.nextName())
+            {
+                case "github":
+                    author.github(JsonValues.readString(in));
+                    break;
+                case "name":
+                    author.name(JsonValues.readString(in));
+                    break;
+                case "emails":
+                    List<String> emails = JsonValues.readStrings(in);
+                    if (emails != null)
+                        author.emails().addAll(emails);
+                    break;
+                case "committer":
+                    author.committer(in.nextBoolean());
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return author;
+    }
+}
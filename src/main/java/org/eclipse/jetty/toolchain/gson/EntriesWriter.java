@@ -0,0 +1,81 @@
+package org.eclipse.jetty.toolchain.gson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Write entries one at a time with their {@link TypeAdapter}, as they are produced.
+ * <p>
+ * The entries are either a pretty printed JSON array, or NDJSON (one compact JSON object per line),
+ * that downstream tools can process line by line, as a stream.
+ * </p>
+ *
+ * @param <T> the type of the entries
+ */
+public class EntriesWriter<T> implements Closeable
+{
+    private final Writer writer;
+    private final JsonWriter jsonWriter;
+    private final TypeAdapter<T> adapter;
+    private final boolean ndjson;
+    private int count;
+
+    /**
+     * @param writer the writer, closed with this writer
+     * @param adapter the type adapter of the entries
+     * @param ndjson true for NDJSON, false for a JSON array
+     */
+    public EntriesWriter(Writer writer, TypeAdapter<T> adapter, boolean ndjson) throws IOException
+    {
+        this.writer = writer;
+        this.adapter = adapter;
+        this.ndjson = ndjson;
+        this.jsonWriter = new JsonWriter(writer);
+        if (ndjson)
+        {
+            // Lenient allows one top level value per line
+            jsonWriter.setLenient(true);
+        }
+        else
+        {
+            jsonWriter.setIndent("  ");
+            jsonWriter.beginArray();
+        }
+    }
+
+    public void write(T entry) throws IOException
+    {
+        adapter.write(jsonWriter, entry);
+        // The JsonWriter does not buffer, the line ends straight after the entry
+        if (ndjson)
+            writer.write('\n');
+        count++;
+    }
+
+    /**
+     * @return the number of entries written
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (ndjson)
+        {
+            // The JsonWriter would reject an empty document
+            writer.close();
+        }
+        else
+        {
+            jsonWriter.endArray();
+            jsonWriter.close();
+        }
+    }
+}
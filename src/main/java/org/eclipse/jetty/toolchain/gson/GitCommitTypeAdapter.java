@@ -0,0 +1,151 @@
+package org.eclipse.jetty.toolchain.gson;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.eclipse.jetty.toolchain.Author;
+import org.eclipse.jetty.toolchain.GitCommit;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * A {@link GitCommit}, with the field names of {@code commits.json}.
+ * <p>
+ * The issue and pull request references are written sorted, and the fields without a value are left out.
+ * </p>
+ */
+public class GitCommitTypeAdapter extends TypeAdapter<GitCommit>
+{
+    private final TypeAdapter<Author> authorAdapter;
+
+    public GitCommitTypeAdapter()
+    {
+        this(new AuthorTypeAdapter());
+    }
+
+    /**
+     * @param authorAdapter the adapter of the author of the commits, such as a reference to a table of authors
+     */
+    public GitCommitTypeAdapter(TypeAdapter<Author> authorAdapter)
+    {
+        this.authorAdapter = authorAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, GitCommit commit) throws IOException
+    {
+        if (commit == null)
+        {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        JsonValues.writeString(out, "sha", commit.getSha());
+        if (commit.getAuthor() != null)
+        {
+            out.name("author");
+            authorAdapter.write(out, commit.getAuthor());
+        }
+        JsonValues.writeString(out, "title", commit.getTitle());
+        JsonValues.writeString(out, "body", commit.getBody());
+        if (commit.getCommitTime() != null)
+            out.name("commit_time").value(ISO8601TypeAdapter.toISO8601(commit.getCommitTime()));
+        out.name("is_merge").value(commit.isMerge());
+        out.name("is_skipped").value(commit.isSkipped());
+        JsonValues.writeStrings(out, "files", commit.getFiles());
+        JsonValues.writeStrings(out, "branches", commit.getBranches());
+        JsonValues.writeSortedInts(out, "issue_refs", commit.getIssueRefs());
+        JsonValues.writeSortedInts(out, "pull_request_refs", commit.getPullRequestRefs());
+        out.endObject();
+    }
+
+    @Override
+    public GitCommit read(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return null;
+        }
+        // The commit is keyed by its id, so the fields are only applied once all are read
+        String sha = null;
+        Author author = null;
+        String title = null;
+        String body = null;
+        ZonedDateTime commitTime = null;
+        boolean merge = false;
+        boolean skipped = false;
+        List<String> files = null;
+        List<String> branches = null;
+        List<Integer> issueRefs = null;
+        List<Integer> pullRequestRefs = null;
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            switch (in.nextName())
+            {
+                case "sha":
+                    sha = JsonValues.readString(in);
+                    break;
+                case "author":
+                    author = authorAdapter.read(in);
+                    break;
+                case "title":
+                    title = JsonValues.readString(in);
+                    break;
+                case "body":
+                    body = JsonValues.readString(in);
+                    break;
+                case "commit_time":
+                    String time = JsonValues.readString(in);
+                    commitTime = time == null ? null : ISO8601TypeAdapter.parseISO8601(time);
+                    break;
+                case "is_merge":
+                    merge = in.nextBoolean();
+                    break;
+                case "is_skipped":
+                    skipped = in.nextBoolean();
+                    break;
+                case "files":
+                    files = JsonValues.readStrings(in);
+                    break;
+                case "branches":
+                    branches = JsonValues.readStrings(in);
+                    break;
+                case "issue_refs":
+                    issueRefs = JsonValues.readInts(in);
+                    break;
+                case "pull_request_refs":
+                    pullRequestRefs = JsonValues.readInts(in);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        if (sha == null || !ObjectId.isId(sha))
+            throw new JsonParseException("Commit without a valid sha at " + in.getPath());
+
+        GitCommit commit = new GitCommit(ObjectId.fromString(sha));
+        commit.setAuthor(author);
+        commit.setTitle(title);
+        commit.setBody(body);
+        commit.setCommitTime(commitTime);
+        commit.setMerge(merge);
+        commit.setSkipped(skipped);
+        commit.setFiles(files);
+        commit.setBranches(branches);
+        if (issueRefs != null)
+            commit.addIssueRefs(issueRefs);
+        if (pullRequestRefs != null)
+            commit.addPullRequestRefs(pullRequestRefs);
+        return commit;
+    }
+}
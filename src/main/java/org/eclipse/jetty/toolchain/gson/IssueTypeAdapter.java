@@ -0,0 +1,117 @@
+package org.eclipse.jetty.toolchain.gson;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.eclipse.jetty.toolchain.Issue;
+
+/**
+ * An {@link Issue}, with the field names of {@code issues.json}.
+ * <p>
+ * The referenced issues and the commits are written sorted. Reading adds the labels to the
+ * (case insensitive) labels of a new issue, rather than replacing them with a plain set.
+ * </p>
+ */
+public class IssueTypeAdapter extends TypeAdapter<Issue>
+{
+    @Override
+    public void write(JsonWriter out, Issue issue) throws IOException
+    {
+        if (issue == null)
+        {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("num").value(issue.getNum());
+        JsonValues.writeString(out, "title", issue.getTitle());
+        JsonValues.writeString(out, "body", issue.getBody());
+        JsonValues.writeString(out, "base_ref", issue.getBaseRef());
+        out.name("type").value(issue.getType().name());
+        out.name("skip").value(issue.isSkipped());
+        JsonValues.writeSortedInts(out, "referenced_issues", issue.getReferencedIssues());
+        JsonValues.writeObjectIds(out, "commits", issue.getCommits());
+        JsonValues.writeStrings(out, "labels", issue.getLabels());
+        out.endObject();
+    }
+
+    @Override
+    public Issue read(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return null;
+        }
+        // The issue number is final, so the fields are only applied once all are read
+        int num = -1;
+        String title = null;
+        String body = null;
+        String baseRef = null;
+        Issue.Type type = Issue.Type.UNKNOWN;
+        boolean skip = false;
+        List<Integer> referencedIssues = null;
+        List<String> commits = null;
+        List<String> labels = null;
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            switch (in.nextName())
+            {
+                case "num":
+                    num = in.nextInt();
+                    break;
+                case "title":
+                    title = JsonValues.readString(in);
+                    break;
+                case "body":
+                    body = JsonValues.readString(in);
+                    break;
+                case "base_ref":
+                    baseRef = JsonValues.readString(in);
+                    break;
+                case "type":
+                    type = Issue.Type.valueOf(in.nextString());
+                    break;
+                case "skip":
+                    skip = in.nextBoolean();
+                    break;
+                case "referenced_issues":
+                    referencedIssues = JsonValues.readInts(in);
+                    break;
+                case "commits":
+                    commits = JsonValues.readStrings(in);
+                    break;
+                case "labels":
+                    labels = JsonValues.readStrings(in);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        if (num < 0)
+            throw new JsonParseException("Issue without a num at " + in.getPath());
+
+        Issue issue = new Issue(num);
+        issue.setTitle(title);
+        issue.setBody(body);
+        issue.setBaseRef(baseRef);
+        issue.setType(type);
+        issue.setSkip(skip);
+        if (referencedIssues != null)
+            issue.addReferencedIssues(referencedIssues);
+        if (commits != null)
+            commits.forEach(issue::addCommit);
+        if (labels != null)
+            issue.addLabels(labels);
+        return issue;
+    }
+}
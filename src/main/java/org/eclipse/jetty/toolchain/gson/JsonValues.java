@@ -0,0 +1,115 @@
+package org.eclipse.jetty.toolchain.gson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.eclipse.jgit.lib.AnyObjectId;
+
+/**
+ * The arrays and optional values shared by the type adapters.
+ */
+final class JsonValues
+{
+    private JsonValues()
+    {
+    }
+
+    static void writeString(JsonWriter out, String name, String value) throws IOException
+    {
+        if (value != null)
+            out.name(name).value(value);
+    }
+
+    static void writeStrings(JsonWriter out, String name, Collection<String> values) throws IOException
+    {
+        if (values == null)
+            return;
+        out.name(name).beginArray();
+        for (String value : values)
+        {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    static void writeObjectIds(JsonWriter out, String name, Collection<? extends AnyObjectId> values) throws IOException
+    {
+        if (values == null)
+            return;
+        out.name(name).beginArray();
+        for (AnyObjectId value : values)
+        {
+            out.value(value.name());
+        }
+        out.endArray();
+    }
+
+    static void writeSortedInts(JsonWriter out, String name, Collection<Integer> values) throws IOException
+    {
+        if (values == null)
+            return;
+        int[] sorted = new int[values.size()];
+        int i = 0;
+        for (Integer value : values)
+        {
+            sorted[i++] = value;
+        }
+        Arrays.sort(sorted);
+        out.name(name).beginArray();
+        for (int value : sorted)
+        {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    static String readString(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    static List<String> readStrings(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext())
+        {
+            values.add(in.nextString());
+        }
+        in.endArray();
+        return values;
+    }
+
+    static List<Integer> readInts(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL)
+        {
+            in.nextNull();
+            return null;
+        }
+        List<Integer> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext())
+        {
+            values.add(in.nextInt());
+        }
+        in.endArray();
+        return values;
+    }
+}
@@ -1,8 +1,16 @@
 package org.eclipse.jetty.toolchain;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import com.google.gson.JsonParser;
 import org.eclipse.jetty.toolchain.test.FS;
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.junit.jupiter.api.Test;
@@ -10,8 +18,11 @@ import org.junit.jupiter.api.TestInfo;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class AuthorsTest
@@ -39,6 +50,100 @@ public class AuthorsTest
         assertFalse(authors.isCommitter(email), "Email should NOT be a committer: " + email);
     }
 
+    @Test
+    public void testFindIgnoresCase() throws IOException
+    {
+        Authors authors = Authors.load();
+        Author author = authors.find("gregw@webtide.com");
+        assertSame(author, authors.find("GregW@WebTide.com"));
+        assertSame(author, authors.findByGithub("GREGW"));
+        assertNull(authors.find(null));
+        assertNull(authors.findByGithub("nobody"));
+    }
+
+    @Test
+    public void testAddEmail()
+    {
+        Authors authors = new Authors();
+        Author author = new Author("Jane Doe").github("jdoe").email("jane@example.com");
+        authors.add(author);
+        authors.addEmail(authors.findByGithub("jdoe"), "Jane.Doe@users.noreply.github.com");
+        assertSame(author, authors.find("jane.doe@users.noreply.github.com"));
+        assertEquals(List.of("jane@example.com", "Jane.Doe@users.noreply.github.com"), author.emails());
+        assertEquals(1, authors.size());
+    }
+
+    @Test
+    public void testSetGithubMergesKnownAuthor()
+    {
+        Authors authors = new Authors();
+        Author known = new Author("Jane Doe").github("jdoe").email("jane@example.com");
+        authors.add(known);
+        Author unknown = authors.addIfAbsent(new Author("jane").email("jane@laptop.local"));
+        Author other = authors.addIfAbsent(new Author("John").email("john@example.com"));
+
+        assertSame(known, authors.setGithub(unknown, "JDoe"));
+        assertSame(known, authors.find("jane@laptop.local"));
+        assertEquals(List.of("jane@example.com", "jane@laptop.local"), known.emails());
+        assertSame(other, authors.setGithub(other, "jsmith"));
+        assertSame(other, authors.findByGithub("jsmith"));
+        assertEquals(2, authors.size());
+    }
+
+    @Test
+    public void testAddIfAbsentConcurrently() throws Exception
+    {
+        Authors authors = new Authors();
+        int threads = 4;
+        int emails = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<List<Author>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++)
+            {
+                futures.add(executor.submit(() ->
+                {
+                    List<Author> found = new ArrayList<>();
+                    for (int i = 0; i < emails; i++)
+                    {
+                        found.add(authors.addIfAbsent(new Author("Contributor " + i).email("contributor" + i + "@example.com")));
+                    }
+                    return found;
+                }));
+            }
+            List<Author> first = futures.get(0).get();
+            for (Future<List<Author>> future : futures)
+            {
+                List<Author> found = future.get();
+                for (int i = 0; i < emails; i++)
+                {
+                    assertSame(first.get(i), found.get(i));
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        assertEquals(emails, authors.size());
+    }
+
+    @Test
+    public void testSaveSameFormat(TestInfo testInfo) throws IOException
+    {
+        Authors authors = Authors.load();
+        Path outputDir = MavenTestingUtils.getTargetTestingPath(AuthorsTest.class.getSimpleName() + "-" + testInfo.getTestMethod().get().getName());
+        FS.ensureEmpty(outputDir);
+        Path outputJson = outputDir.resolve("authors-out.json");
+        authors.save(outputJson);
+
+        try (InputStream in = AuthorsTest.class.getClassLoader().getResourceAsStream("authors.json"))
+        {
+            assertEquals(JsonParser.parseString(new String(in.readAllBytes(), UTF_8)), JsonParser.parseString(Files.readString(outputJson)));
+        }
+    }
+
     public void testSave(TestInfo testInfo) throws IOException
     {
         Authors authors = new Authors();
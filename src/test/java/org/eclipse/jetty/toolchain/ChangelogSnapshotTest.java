@@ -0,0 +1,141 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jetty.toolchain.gson.GitCommitTypeAdapter;
+import org.eclipse.jetty.toolchain.gson.IssueTypeAdapter;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChangelogSnapshotTest
+{
+    private static final String SHA1 = "0123456789abcdef0123456789abcdef01234567";
+    private static final String SHA2 = "fedcba9876543210fedcba9876543210fedcba98";
+
+    private Path testDir;
+
+    @BeforeEach
+    public void setup(TestInfo testInfo)
+    {
+        testDir = MavenTestingUtils.getTargetTestingPath(ChangelogSnapshotTest.class.getSimpleName() + "-" + testInfo.getTestMethod().get().getName());
+        FS.ensureEmpty(testDir);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        Author author = new Author("Jörg Ünicode").email("joerg@example.com", "jorg@example.org").committer(true);
+
+        GitCommit commit = new GitCommit(ObjectId.fromString(SHA1));
+        commit.setAuthor(author);
+        commit.setTitle("Issue #12 - fix \"quotes\" & <html> ☃");
+        commit.setBody("");
+        commit.setCommitTime(ZonedDateTime.parse("2021-03-04T05:06:07.123456789-05:30"));
+        commit.setMerge(true);
+        commit.setFiles(List.of("b/File.java", "a/File.java"));
+        commit.setBranches(List.of());
+        commit.addIssueRefs(List.of(10000, 12));
+        commit.addPullRequestRefs(List.of());
+
+        // Nothing but the sha
+        GitCommit bare = new GitCommit(ObjectId.fromString(SHA2));
+        bare.setSkipped(true);
+
+        GitCommit sameAuthor = new GitCommit(ObjectId.fromString("00000000000000000000000000000000000000ff"));
+        sameAuthor.setAuthor(author);
+        sameAuthor.setTitle(commit.getTitle());
+
+        Issue issue = new Issue(12);
+        issue.setTitle("Fix the thing");
+        issue.setType(Issue.Type.PULL_REQUEST);
+        issue.setBaseRef("jetty-11.0.x");
+        issue.addLabels(List.of("Bug", "test"));
+        issue.addReferencedIssues(List.of(10000, 11));
+        issue.addCommit(SHA2);
+        // Not a commit of the changelog, only of the pull request
+        issue.addCommit("1111111111111111111111111111111111111111");
+        Issue unknown = new Issue(10000);
+
+        Path snapshotFile = testDir.resolve("changelog.snapshot");
+        List<GitCommit> commits = List.of(commit, bare, sameAuthor);
+        List<Issue> issues = List.of(issue, unknown);
+        ChangelogSnapshot.write(snapshotFile, commits, issues);
+        ChangelogSnapshot snapshot = ChangelogSnapshot.load(snapshotFile);
+
+        GitCommitTypeAdapter commitAdapter = new GitCommitTypeAdapter();
+        assertEquals(commits.size(), snapshot.getCommits().size());
+        for (int i = 0; i < commits.size(); i++)
+        {
+            assertEquals(commitAdapter.toJson(commits.get(i)), commitAdapter.toJson(snapshot.getCommits().get(i)));
+        }
+        IssueTypeAdapter issueAdapter = new IssueTypeAdapter();
+        assertEquals(issues.size(), snapshot.getIssues().size());
+        for (int i = 0; i < issues.size(); i++)
+        {
+            assertEquals(issueAdapter.toJson(issues.get(i)), issueAdapter.toJson(snapshot.getIssues().get(i)));
+        }
+
+        // The issue references the loaded commit, not another copy of its id
+        assertSame(snapshot.getCommits().get(1), snapshot.getIssues().get(0).getCommits().get(1));
+
+        // Exactly, not only in the JSON form
+        GitCommit loaded = snapshot.getCommits().get(0);
+        assertEquals(commit.getCommitTime(), loaded.getCommitTime());
+        assertTrue(loaded.getPullRequestRefs().isEmpty());
+        assertNull(snapshot.getCommits().get(1).getIssueRefs());
+        assertTrue(snapshot.getIssues().get(0).hasLabel("BUG"));
+        // The authors and strings are shared
+        assertEquals(1, snapshot.getAuthors().size());
+        assertSame(loaded.getAuthor(), snapshot.getCommits().get(2).getAuthor());
+        assertSame(loaded.getTitle(), snapshot.getCommits().get(2).getTitle());
+    }
+
+    @Test
+    public void testNotASnapshot() throws IOException
+    {
+        Path notSnapshot = testDir.resolve("commits.json");
+        Files.writeString(notSnapshot, "[]");
+        assertThrows(IOException.class, () -> ChangelogSnapshot.load(notSnapshot));
+
+        Path snapshotFile = testDir.resolve("changelog.snapshot");
+        Issue issue = new Issue(12);
+        issue.setTitle("Fix the thing");
+        ChangelogSnapshot.write(snapshotFile, List.of(), List.of(issue));
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        Path truncated = testDir.resolve("truncated.snapshot");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IOException.class, () -> ChangelogSnapshot.load(truncated));
+    }
+
+    @Test
+    public void testCorruptedIssue() throws IOException
+    {
+        Path snapshotFile = testDir.resolve("changelog.snapshot");
+        Issue issue = new Issue(12);
+        issue.setTitle("Fix the thing");
+        ChangelogSnapshot.write(snapshotFile, List.of(), List.of(issue));
+
+        // The labels of the issue, last in the file, written as none
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        Arrays.fill(bytes, bytes.length - Integer.BYTES, bytes.length, (byte)0xFF);
+        Path corrupted = testDir.resolve("corrupted.snapshot");
+        Files.write(corrupted, bytes);
+        IOException x = assertThrows(IOException.class, () -> ChangelogSnapshot.load(corrupted));
+        assertTrue(x.getMessage().contains("#12"), x.getMessage());
+    }
+}
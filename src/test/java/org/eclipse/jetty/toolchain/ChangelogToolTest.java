@@ -0,0 +1,495 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import org.eclipse.jetty.toolchain.github.Cache;
+import org.eclipse.jetty.toolchain.github.IssueBatchFetcher;
+import org.eclipse.jetty.toolchain.github.StubGitHubServer;
+import org.eclipse.jetty.toolchain.gson.EntriesWriter;
+import org.eclipse.jetty.toolchain.gson.GitCommitTypeAdapter;
+import org.eclipse.jetty.toolchain.gson.IssueTypeAdapter;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ListBranchCommand;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChangelogToolTest
+{
+    private Path repoDir;
+
+    @BeforeEach
+    public void setup(TestInfo testInfo)
+    {
+        repoDir = MavenTestingUtils.getTargetTestingPath(ChangelogToolTest.class.getSimpleName() + "-" + testInfo.getTestMethod().get().getName());
+        FS.ensureEmpty(repoDir);
+    }
+
+    @Test
+    public void testOfflineChangelog() throws Exception
+    {
+        Path gitDir = repoDir.resolve("repo");
+        SyntheticProject project = new SyntheticProject(gitDir, 1);
+        project.setCommits(200);
+        project.generate();
+
+        try (StubGitHubServer server = new StubGitHubServer())
+        {
+            server.addResources(project.getGitHubResources());
+            ChangelogTool changelog = new ChangelogTool(gitDir);
+            changelog.setGithubRepo(SyntheticProject.OWNER, SyntheticProject.REPO_NAME);
+            changelog.setGitHubApi(server.newGitHubApi(new Cache(repoDir.resolve("cache"))));
+            changelog.setBranch(project.getBranch());
+            changelog.setOnelineOutput(true);
+            changelog.addLogFilter(Predicate.not(GitCommit::isMerge));
+
+            changelog.resolveCommits(project.getOldTag(), project.getNewTag());
+            // The walk does not wait on GitHub, the authors are resolved after it
+            assertEquals(0, server.getRequestCount());
+            changelog.resolveAuthors();
+            changelog.resolveUnknownIssues();
+            changelog.resolvePullRequestCommits();
+            Path markdown = repoDir.resolve("changelog.md");
+            changelog.writeMarkdown(markdown);
+
+            Set<Integer> relevant = changelog.getRelevantPullRequests().stream().map(Issue::getNum).collect(Collectors.toSet());
+            assertEquals(project.getMainPullRequests().keySet(), relevant);
+            List<String> entries = Files.readAllLines(markdown).stream().filter((line) -> line.startsWith("+ #")).collect(Collectors.toList());
+            assertEquals(relevant.size(), entries.size());
+            assertTrue(entries.stream().anyMatch((line) -> line.contains("(@contributor")), "Community authors listed");
+
+            // The snapshot loads back to the same JSON
+            changelog.writeIssuesJson(repoDir.resolve("issues.json"));
+            changelog.writeCommitsJson(repoDir.resolve("commits.json"));
+            changelog.writeSnapshot(repoDir.resolve("changelog.snapshot"));
+            ChangelogSnapshot snapshot = ChangelogSnapshot.load(repoDir.resolve("changelog.snapshot"));
+            assertEquals(Files.readString(repoDir.resolve("issues.json")), toJson(snapshot.getIssues(), new IssueTypeAdapter()));
+            assertEquals(Files.readString(repoDir.resolve("commits.json")), toJson(snapshot.getCommits(), new GitCommitTypeAdapter()));
+
+            // The stages of the run, and every request sent
+            ChangelogMetrics metrics = changelog.getMetrics();
+            JsonObject report = metrics.toJson();
+            for (String stage : List.of("resolveCommits", "resolveAuthors", "resolveUnknownIssues", "resolvePullRequestCommits", "diffCommits", "writeMarkdown"))
+            {
+                assertEquals(1, report.getAsJsonObject("stages").getAsJsonObject(stage).get("runs").getAsInt(), stage);
+            }
+            assertEquals(snapshot.getCommits().size(), report.getAsJsonObject("commitWalk").getAsJsonObject("walk").get("commits").getAsInt());
+            assertEquals(snapshot.getCommits().size(), report.getAsJsonObject("stages").getAsJsonObject("resolveCommits").get("items").getAsInt());
+            assertEquals(snapshot.getIssues().size(), report.getAsJsonObject("stages").getAsJsonObject("writeIssuesJson").get("items").getAsInt());
+            assertEquals(relevant.size(), report.getAsJsonObject("stages").getAsJsonObject("writeMarkdown").get("items").getAsInt());
+            assertEquals(server.getRequestCount(), metrics.getRequestCounts().values().stream().mapToLong(Long::longValue).sum());
+            assertEquals(metrics.getRequestCounts().keySet(), report.getAsJsonObject("github").getAsJsonObject("requests").keySet());
+
+            // Also via JMX
+            metrics.register();
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(ChangelogMetrics.OBJECT_NAME);
+            assertEquals(metrics.getCacheMisses(), mbeanServer.getAttribute(name, "CacheMisses"));
+            mbeanServer.unregisterMBean(name);
+        }
+    }
+
+    private static <T> String toJson(List<T> entries, TypeAdapter<T> adapter) throws IOException
+    {
+        StringWriter json = new StringWriter();
+        try (EntriesWriter<T> writer = new EntriesWriter<>(json, adapter, false))
+        {
+            for (T entry : entries)
+            {
+                writer.write(entry);
+            }
+        }
+        return json.toString();
+    }
+
+    @Test
+    public void testLogFilterSkipsFailingCommits() throws Exception
+    {
+        Path gitDir = repoDir.resolve("repo");
+        SyntheticProject project = new SyntheticProject(gitDir, 1);
+        project.setCommits(100);
+        project.setMergeEvery(10);
+        project.generate();
+
+        ChangelogTool changelog = new ChangelogTool(gitDir);
+        changelog.setBranch(project.getBranch());
+        changelog.setOnelineOutput(true);
+        changelog.addLogFilter(Predicate.not(GitCommit::isMerge));
+        changelog.resolveCommits(project.getOldTag(), project.getNewTag());
+        changelog.writeSnapshot(repoDir.resolve("changelog.snapshot"));
+
+        List<GitCommit> commits = ChangelogSnapshot.load(repoDir.resolve("changelog.snapshot")).getCommits();
+        assertTrue(commits.stream().anyMatch(GitCommit::isMerge));
+        assertTrue(commits.stream().anyMatch(Predicate.not(GitCommit::isMerge)));
+        // The merges fail the filter, and only those are skipped
+        for (GitCommit commit : commits)
+        {
+            assertEquals(commit.isMerge(), commit.isSkipped(), commit.getSha());
+        }
+    }
+
+    @Test
+    public void testIncrementalChangelog() throws Exception
+    {
+        Path gitDir = repoDir.resolve("repo");
+        Path stateFile = repoDir.resolve("state.json");
+        SyntheticProject project = new SyntheticProject(gitDir, 2);
+        project.setCommits(200);
+        project.generate();
+
+        try (StubGitHubServer server = new StubGitHubServer())
+        {
+            server.addResources(project.getGitHubResources());
+            ChangelogTool first = newOfflineChangelog(gitDir, server, new Cache(repoDir.resolve("cache")));
+            assertFalse(first.loadState(stateFile));
+            first.resolveCommits(project.getOldTag(), project.getNewTag());
+            first.resolveAuthors();
+            first.resolveUnknownIssues();
+            first.resolvePullRequestCommits();
+            first.saveState(stateFile);
+            int firstFetches = server.getResponseCount(200);
+
+            // Each author written once, shared by its commits
+            ChangelogState state = ChangelogState.load(stateFile);
+            Set<Author> stateAuthors = Collections.newSetFromMap(new IdentityHashMap<>());
+            stateAuthors.addAll(state.getAuthors());
+            assertEquals(state.getAuthors().size(), stateAuthors.size());
+            assertTrue(state.getCommits().stream().allMatch((commit) -> stateAuthors.contains(commit.getAuthor())));
+
+            String newTag = "jetty-12.0.99";
+            project.generateMore(50, newTag);
+            server.addResources(project.getGitHubResources());
+
+            // Every cached resource is revalidated, only the changed ones are fetched again
+            Cache cache = new Cache(repoDir.resolve("cache"));
+            for (String resourceType : List.of("issues", "issue-events", "pulls", "pull-commits"))
+            {
+                cache.setTimeToLive(resourceType, Duration.ZERO);
+            }
+            ChangelogTool incremental = newOfflineChangelog(gitDir, server, cache);
+            assertTrue(incremental.loadState(stateFile));
+            incremental.resolveCommits(project.getOldTag(), newTag);
+            incremental.resolveAuthors();
+            incremental.resolveUnknownIssues();
+            incremental.resolvePullRequestCommits();
+            Path incrementalMarkdown = repoDir.resolve("incremental.md");
+            incremental.writeMarkdown(incrementalMarkdown);
+            assertTrue(server.getResponseCount(304) > 0);
+            assertTrue(server.getResponseCount(200) - firstFetches < firstFetches / 2, "Only new and changed resources fetched");
+
+            // Same as a run from scratch
+            ChangelogTool full = newOfflineChangelog(gitDir, server, new Cache(repoDir.resolve("full-cache")));
+            full.resolveCommits(project.getOldTag(), newTag);
+            full.resolveAuthors();
+            full.resolveUnknownIssues();
+            full.resolvePullRequestCommits();
+            Path fullMarkdown = repoDir.resolve("full.md");
+            full.writeMarkdown(fullMarkdown);
+
+            Set<Integer> relevant = incremental.getRelevantPullRequests().stream().map(Issue::getNum).collect(Collectors.toSet());
+            assertEquals(project.getMainPullRequests().keySet(), relevant);
+            assertEquals(Files.readAllLines(fullMarkdown), Files.readAllLines(incrementalMarkdown));
+            assertEquals(toNiceNames(full.getAuthors()), toNiceNames(incremental.getAuthors()));
+        }
+    }
+
+    @Test
+    public void testIncrementalChangelogUnchangedViaGraphql() throws Exception
+    {
+        Path gitDir = repoDir.resolve("repo");
+        Path stateFile = repoDir.resolve("state.json");
+        SyntheticProject project = new SyntheticProject(gitDir, 1);
+        project.setCommits(100);
+        project.generate();
+
+        try (StubGitHubServer server = new StubGitHubServer())
+        {
+            server.addResources(project.getGitHubResources());
+            ChangelogTool first = newOfflineChangelog(gitDir, server, new Cache(repoDir.resolve("cache")));
+            first.setGraphqlBatchSize(IssueBatchFetcher.DEFAULT_BATCH_SIZE);
+            first.resolveCommits(project.getOldTag(), project.getNewTag());
+            first.resolveAuthors();
+            first.resolveUnknownIssues();
+            first.saveState(stateFile);
+            Path firstMarkdown = repoDir.resolve("first.md");
+            first.writeMarkdown(firstMarkdown);
+
+            // Every issue fetched again, none changed
+            Cache cache = new Cache(repoDir.resolve("cache"));
+            cache.setTimeToLive("graphql-issue", Duration.ZERO);
+            ChangelogTool rerun = newOfflineChangelog(gitDir, server, cache);
+            rerun.setGraphqlBatchSize(IssueBatchFetcher.DEFAULT_BATCH_SIZE);
+            assertTrue(rerun.loadState(stateFile));
+            rerun.resolveCommits(project.getOldTag(), project.getNewTag());
+            rerun.resolveAuthors();
+            rerun.resolveUnknownIssues();
+            Path rerunStateFile = repoDir.resolve("rerun-state.json");
+            rerun.saveState(rerunStateFile);
+            Path rerunMarkdown = repoDir.resolve("rerun.md");
+            rerun.writeMarkdown(rerunMarkdown);
+
+            Map<String, Long> requests = rerun.getMetrics().getRequestCounts();
+            assertTrue(requests.get("graphql") > 0, requests.toString());
+            assertFalse(requests.containsKey("issues"), requests.toString());
+            assertFalse(requests.containsKey("pulls"), requests.toString());
+            // No issue resolved again
+            assertEquals(ChangelogState.load(stateFile).getIssueResolvedAt(), ChangelogState.load(rerunStateFile).getIssueResolvedAt());
+            assertEquals(Files.readAllLines(firstMarkdown), Files.readAllLines(rerunMarkdown));
+        }
+    }
+
+    @Test
+    public void testIssueFailingToResolveIsLeftUnknown() throws Exception
+    {
+        Path gitDir = repoDir.resolve("repo");
+        SyntheticProject project = new SyntheticProject(gitDir, 1);
+        project.setCommits(100);
+        project.generate();
+
+        try (StubGitHubServer server = new StubGitHubServer())
+        {
+            server.addResources(project.getGitHubResources());
+            int failing = project.getMainPullRequests().keySet().iterator().next();
+            server.addServerError("/repos/" + SyntheticProject.OWNER + "/" + SyntheticProject.REPO_NAME + "/issues/" + failing);
+
+            ChangelogTool changelog = newOfflineChangelog(gitDir, server, new Cache(repoDir.resolve("cache")));
+            changelog.resolveCommits(project.getOldTag(), project.getNewTag());
+            changelog.resolveAuthors();
+            changelog.resolveUnknownIssues();
+
+            // Given up after a few waves, the other issues resolved
+            assertEquals(3, server.getResponseCount(500));
+            Set<Integer> expected = new HashSet<>(project.getMainPullRequests().keySet());
+            expected.remove(failing);
+            Set<Integer> relevant = changelog.getRelevantPullRequests().stream().map(Issue::getNum).collect(Collectors.toSet());
+            assertEquals(expected, relevant);
+        }
+    }
+
+    private static Set<String> toNiceNames(Authors authors)
+    {
+        Set<String> names = new HashSet<>();
+        authors.forEach((author) -> names.add(author.toNiceName()));
+        return names;
+    }
+
+    private static ChangelogTool newOfflineChangelog(Path gitDir, StubGitHubServer server, Cache cache) throws IOException
+    {
+        ChangelogTool changelog = new ChangelogTool(gitDir);
+        changelog.setGithubRepo(SyntheticProject.OWNER, SyntheticProject.REPO_NAME);
+        changelog.setGitHubApi(server.newGitHubApi(cache));
+        // The REST responses have an ETag, so that unchanged resources are revalidated with a 304
+        changelog.setGraphqlBatchSize(0);
+        changelog.setBranch("jetty-12.0.x");
+        changelog.setOnelineOutput(true);
+        changelog.addLogFilter(Predicate.not(GitCommit::isMerge));
+        changelog.addCommitPathExclusion(PathRule.contains("/src/test/"));
+        return changelog;
+    }
+
+    @Test
+    public void testCollectPathsInCommitsMatchesGitDiff() throws Exception
+    {
+        SyntheticRepository synthetic = new SyntheticRepository(repoDir, 1);
+        synthetic.init(5, 40);
+        for (int i = 0; i < 30; i++)
+        {
+            synthetic.commit(1 + (i % 7), "Issue #" + (1000 + i) + " change");
+        }
+        // All but the root commit
+        List<String> shas = synthetic.getCommits().stream().skip(1).map(ObjectId::getName).collect(Collectors.toList());
+
+        ChangelogTool changelog = new ChangelogTool(repoDir);
+        changelog.addCommitPathExclusionFilter((filename) -> filename.contains("/src/test/"));
+        changelog.addCommitPathExclusionFilter((filename) -> filename.endsWith(".md"));
+        changelog.setDiffConcurrency(4);
+
+        Map<String, Set<String>> actual = changelog.collectPathsInCommits(shas);
+        Map<String, Set<String>> expected = collectPathsViaGitDiff(synthetic.getRepository(), shas);
+
+        assertEquals(shas.size(), actual.size());
+        assertEquals(expected, actual);
+        assertFalse(actual.values().stream().allMatch(Set::isEmpty));
+    }
+
+    @Test
+    public void testPathRulesMatchPredicates() throws Exception
+    {
+        SyntheticRepository synthetic = new SyntheticRepository(repoDir, 4);
+        synthetic.init(5, 40);
+        for (int i = 0; i < 30; i++)
+        {
+            synthetic.commit(1 + (i % 11), "Change " + i);
+        }
+        List<String> shas = synthetic.getCommits().stream().map(ObjectId::getName).collect(Collectors.toList());
+
+        ChangelogTool withPredicates = new ChangelogTool(repoDir);
+        withPredicates.addCommitPathExclusionFilter((filename) -> filename.contains("/src/test/"));
+        withPredicates.addCommitPathExclusionFilter((filename) -> filename.startsWith("module-3/"));
+        withPredicates.addCommitPathExclusionFilter((filename) -> filename.endsWith(".md"));
+        withPredicates.addCommitPathExclusionFilter((filename) -> filename.endsWith(".properties"));
+
+        ChangelogTool withRules = new ChangelogTool(repoDir);
+        withRules.addCommitPathExclusion(PathRule.contains("/src/test/"));
+        withRules.addCommitPathExclusion(PathRule.prefix("module-3/"));
+        withRules.addCommitPathExclusion(PathRule.suffix(".md"));
+        withRules.addCommitPathExclusion(PathRule.glob("**/*.properties"));
+
+        Map<String, Set<String>> expected = withPredicates.collectPathsInCommits(shas);
+        Map<String, Set<String>> actual = withRules.collectPathsInCommits(shas);
+        assertEquals(expected, actual);
+        assertTrue(actual.values().stream().anyMatch(Set::isEmpty), "Some commits only touch excluded paths");
+    }
+
+    @Test
+    public void testCollectPathsInRootCommit() throws Exception
+    {
+        SyntheticRepository synthetic = new SyntheticRepository(repoDir, 3);
+        ObjectId root = synthetic.init(2, 10);
+        synthetic.commit(2, "Change");
+
+        ChangelogTool changelog = new ChangelogTool(repoDir);
+        changelog.addCommitPathExclusionFilter((filename) -> filename.endsWith(".md"));
+        try (CommitDiffer differ = changelog.newCommitDiffer();
+             TreeWalk treeWalk = new TreeWalk(synthetic.getRepository()))
+        {
+            RevCommit rootCommit = differ.parseCommit(root);
+            assertEquals(0, rootCommit.getParentCount());
+
+            // Diffed against the empty tree, so every (non excluded) file is added
+            Set<String> expected = new HashSet<>();
+            treeWalk.addTree(rootCommit.getTree());
+            treeWalk.setRecursive(true);
+            while (treeWalk.next())
+            {
+                if (!treeWalk.getPathString().endsWith(".md"))
+                    expected.add(treeWalk.getPathString());
+            }
+            assertEquals(expected, changelog.collectPathsInCommit(differ, rootCommit));
+        }
+    }
+
+    @Test
+    public void testBranchIndexMatchesBranchContains() throws Exception
+    {
+        SyntheticRepository synthetic = new SyntheticRepository(repoDir, 2);
+        synthetic.init(2, 5);
+        List<ObjectId> commits = synthetic.getCommits();
+        for (int i = 0; i < 30; i++)
+        {
+            synthetic.commit(1, "Change " + i);
+            if (i == 9)
+                synthetic.updateRef("refs/remotes/origin/jetty-9.4.x");
+            if (i == 19)
+                synthetic.updateRef("refs/remotes/origin/jetty-10.0.x");
+        }
+        synthetic.updateRef("refs/remotes/origin/jetty-11.0.x");
+        synthetic.updateRef("refs/heads/jetty-11.0.x");
+
+        // Fork some branches from earlier commits
+        synthetic.resetHead(commits.get(5));
+        synthetic.commit(1, "Old maintenance");
+        synthetic.updateRef("refs/remotes/origin/jetty-9.3.x");
+        synthetic.resetHead(commits.get(15));
+        synthetic.commit(1, "Feature");
+        synthetic.updateRef("refs/remotes/origin/jetty-10.0.x-feature");
+        synthetic.updateRef("refs/remotes/origin/feature.x");
+
+        ChangelogTool changelog = new ChangelogTool(repoDir);
+        ReachabilityIndex index = changelog.newBranchIndex(commits);
+        assertEquals(4, index.getBranches().size());
+
+        try (Git git = Git.open(repoDir.toFile()))
+        {
+            for (ObjectId commit : commits)
+            {
+                Set<String> expected = git.branchList()
+                    .setListMode(ListBranchCommand.ListMode.ALL)
+                    .setContains(commit.getName())
+                    .call()
+                    .stream()
+                    .map(Ref::getName)
+                    .filter((name) -> name.startsWith("refs/remotes/origin/jetty-"))
+                    .filter((name) -> name.endsWith(".x"))
+                    .collect(Collectors.toSet());
+                assertEquals(expected, index.getBranchesWithCommit(commit), commit.getName());
+            }
+        }
+        assertEquals(Set.of("refs/remotes/origin/jetty-9.3.x", "refs/remotes/origin/jetty-9.4.x", "refs/remotes/origin/jetty-10.0.x", "refs/remotes/origin/jetty-11.0.x"),
+            index.getBranchesWithCommit(commits.get(3)));
+        assertEquals(Set.of("refs/remotes/origin/jetty-11.0.x"), index.getBranchesWithCommit(commits.get(25)));
+        assertEquals(Set.of("refs/remotes/origin/jetty-9.3.x"), index.getBranchesWithCommit(commits.get(commits.size() - 2)));
+        assertEquals(Set.of(), index.getBranchesWithCommit(commits.get(commits.size() - 1)));
+    }
+
+    /**
+     * The reference result, one {@code git diff sha^ sha} at a time.
+     */
+    private static Map<String, Set<String>> collectPathsViaGitDiff(Repository repository, List<String> shas) throws Exception
+    {
+        Map<String, Set<String>> ret = new HashMap<>();
+        try (Git git = new Git(repository))
+        {
+            for (String sha : shas)
+            {
+                Set<String> paths = new HashSet<>();
+                for (DiffEntry diff : git.diff()
+                    .setOldTree(newTreeParser(repository, sha + "^"))
+                    .setNewTree(newTreeParser(repository, sha))
+                    .call())
+                {
+                    paths.add(diff.getOldPath());
+                    paths.add(diff.getNewPath());
+                }
+                paths.remove(DiffEntry.DEV_NULL);
+                paths.removeIf((path) -> path.contains("/src/test/") || path.endsWith(".md"));
+                ret.put(sha, paths);
+            }
+        }
+        return ret;
+    }
+
+    private static CanonicalTreeParser newTreeParser(Repository repository, String revision) throws IOException
+    {
+        try (ObjectReader reader = repository.newObjectReader();
+             RevWalk walk = new RevWalk(reader))
+        {
+            CanonicalTreeParser parser = new CanonicalTreeParser();
+            parser.reset(reader, walk.parseCommit(repository.resolve(revision)).getTree());
+            return parser;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.StreamSupport;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommitPipelineTest
+{
+    private SyntheticRepository synthetic;
+
+    @BeforeEach
+    public void createRepository(TestInfo testInfo) throws IOException
+    {
+        Path repoDir = MavenTestingUtils.getTargetTestingPath(CommitPipelineTest.class.getSimpleName() + "-" + testInfo.getTestMethod().get().getName());
+        FS.ensureEmpty(repoDir);
+        synthetic = new SyntheticRepository(repoDir, 7);
+        synthetic.init(2, 5);
+        for (int i = 0; i < 200; i++)
+        {
+            synthetic.commit(1, "Issue #" + i + " change");
+        }
+    }
+
+    @Test
+    public void testAggregatesInWalkOrder() throws Exception
+    {
+        List<ObjectId> expected = new ArrayList<>();
+        try (RevWalk walk = newWalk())
+        {
+            walk.forEach((commit) -> expected.add(commit.copy()));
+        }
+
+        List<ObjectId> actual = new ArrayList<>();
+        Set<Thread> workers = ConcurrentHashMap.newKeySet();
+        CommitPipeline<ObjectId> pipeline = new CommitPipeline<>(4, 7);
+        try (RevWalk walk = newWalk())
+        {
+            pipeline.run(walk, (commit) ->
+            {
+                workers.add(Thread.currentThread());
+                IssueScanner.scan(commit.getFullMessage());
+                return commit.copy();
+            }, actual::add);
+        }
+
+        assertEquals(expected, actual);
+        assertFalse(workers.contains(Thread.currentThread()));
+        for (CommitPipeline.Stage stage : pipeline.getStages())
+        {
+            assertEquals(expected.size(), stage.getItems(), stage.getName());
+        }
+    }
+
+    @Test
+    public void testSlowBatchHoldsBackWalk() throws Exception
+    {
+        int workers = 4;
+        int batchSize = 5;
+        ObjectId first;
+        try (RevWalk walk = newWalk())
+        {
+            first = walk.next().copy();
+        }
+
+        AtomicInteger walked = new AtomicInteger();
+        AtomicInteger walkedWhileSlow = new AtomicInteger();
+        CountDownLatch slowBatch = new CountDownLatch(1);
+        Thread release = new Thread(() ->
+        {
+            try
+            {
+                // The other workers are done with their batches long before
+                Thread.sleep(500);
+            }
+            catch (InterruptedException ignored)
+            {
+                // Released early
+            }
+            walkedWhileSlow.set(walked.get());
+            slowBatch.countDown();
+        });
+
+        List<RevCommit> aggregated = new ArrayList<>();
+        CommitPipeline<RevCommit> pipeline = new CommitPipeline<>(workers, batchSize);
+        try (RevWalk walk = newWalk())
+        {
+            Iterable<RevCommit> counted = () -> StreamSupport.stream(walk.spliterator(), false)
+                .peek((commit) -> walked.incrementAndGet())
+                .iterator();
+            release.start();
+            pipeline.run(counted, (commit) ->
+            {
+                if (commit.equals(first))
+                {
+                    try
+                    {
+                        slowBatch.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return commit;
+            }, aggregated::add);
+        }
+        release.join();
+
+        // At most the batches walked but not aggregated, and the batch being walked
+        assertThat(walkedWhileSlow.get(), lessThanOrEqualTo((2 * workers + 1) * batchSize));
+        assertEquals(synthetic.getCommits().size(), aggregated.size());
+    }
+
+    @Test
+    public void testFirstFailureIsThrown() throws Exception
+    {
+        IllegalStateException failure = new IllegalStateException("Bad commit");
+        List<RevCommit> aggregated = new ArrayList<>();
+        CommitPipeline<RevCommit> pipeline = new CommitPipeline<>(3, 5);
+        try (RevWalk walk = newWalk())
+        {
+            IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> pipeline.run(walk, (commit) ->
+            {
+                if (commit.getShortMessage().equals("Issue #100 change"))
+                    throw failure;
+                return commit;
+            }, aggregated::add));
+            assertSame(failure, thrown);
+        }
+        // Only the commits before the failed batch are aggregated
+        assertTrue(aggregated.size() < synthetic.getCommits().size());
+    }
+
+    private RevWalk newWalk() throws IOException
+    {
+        RevWalk walk = new RevWalk(synthetic.getRepository());
+        walk.markStart(walk.parseCommit(synthetic.getHead()));
+        return walk;
+    }
+}
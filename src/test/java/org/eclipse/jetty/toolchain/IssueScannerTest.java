@@ -3,6 +3,8 @@ package org.eclipse.jetty.toolchain;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
@@ -81,6 +83,30 @@ public class IssueScannerTest
         assertArrayEquals(expected, actual);
     }
 
+    @Test
+    public void testScanDigitLimits()
+    {
+        Set<Integer> hits = IssueScanner.scan("#123 is too short, #1234567 is cut to 6 digits, Issue 0042 has leading zeros");
+        int[] actual = toSortedArray(hits);
+        int[] expected = {42, 123456};
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void testScanSink()
+    {
+        List<Integer> hits = new ArrayList<>();
+        IssueScanner.scan("Issue #5555 - Fixes #5555 and Issue 6666", hits::add);
+        assertEquals(List.of(5555, 5555, 6666), hits);
+
+        hits.clear();
+        IssueScanner.scan("Bumps #5555 (@dependabot rebase)", hits::add);
+        assertEquals(List.of(), hits);
+
+        IssueScanner.scan(null, hits::add);
+        assertEquals(List.of(), hits);
+    }
+
     private int[] toSortedArray(Set<Integer> hits)
     {
         return hits.stream().mapToInt(Integer::intValue).sorted().toArray();
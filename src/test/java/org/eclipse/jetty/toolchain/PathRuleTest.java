@@ -0,0 +1,74 @@
+package org.eclipse.jetty.toolchain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PathRuleTest
+{
+    @Test
+    public void testPrefix()
+    {
+        PathRule rule = PathRule.prefix(".git");
+        assertTrue(rule.test(".gitignore"));
+        assertTrue(rule.test(".github/workflows/ci.yml"));
+        assertFalse(rule.test("jetty-server/.gitignore"));
+        assertTrue(rule.matchesAllUnder(".github"));
+        assertFalse(rule.matchesAllUnder("jetty-server"));
+
+        rule = PathRule.prefix("jetty-server/src/");
+        assertFalse(rule.matchesAllUnder("jetty-server"));
+        assertTrue(rule.matchesAllUnder("jetty-server/src"));
+    }
+
+    @Test
+    public void testSuffix()
+    {
+        PathRule rule = PathRule.suffix(".md");
+        assertTrue(rule.test("README.md"));
+        assertTrue(rule.test("jetty-server/README.md"));
+        assertFalse(rule.test("jetty-server/README.mdx"));
+        assertFalse(rule.matchesAllUnder("docs.md"));
+    }
+
+    @Test
+    public void testContains()
+    {
+        PathRule rule = PathRule.contains("/src/test/");
+        assertTrue(rule.test("jetty-server/src/test/java/Foo.java"));
+        assertFalse(rule.test("src/test/java/Foo.java"));
+        assertFalse(rule.test("jetty-server/src/main/java/Foo.java"));
+        assertTrue(rule.matchesAllUnder("jetty-server/src/test"));
+        assertTrue(rule.matchesAllUnder("jetty-server/src/test/java"));
+        assertFalse(rule.matchesAllUnder("jetty-server/src"));
+        assertFalse(rule.matchesAllUnder("jetty-server/src/tests"));
+    }
+
+    @Test
+    public void testGlob()
+    {
+        PathRule rule = PathRule.glob("**/src/test/**");
+        assertTrue(rule.test("jetty-server/src/test/java/Foo.java"));
+        assertTrue(rule.test("src/test/java/Foo.java"));
+        assertFalse(rule.test("jetty-server/src/main/java/Foo.java"));
+        assertTrue(rule.matchesAllUnder("src/test"));
+        assertTrue(rule.matchesAllUnder("jetty-server/src/test"));
+        assertFalse(rule.matchesAllUnder("jetty-server/src"));
+
+        rule = PathRule.glob("**/*.png");
+        assertTrue(rule.test("logo.png"));
+        assertTrue(rule.test("jetty-home/images/logo.png"));
+        assertFalse(rule.test("jetty-home/images/logo.png.txt"));
+        assertFalse(rule.matchesAllUnder("images.png"));
+
+        rule = PathRule.glob("jetty-?/*.xml");
+        assertTrue(rule.test("jetty-a/pom.xml"));
+        assertFalse(rule.test("jetty-ab/pom.xml"));
+        assertFalse(rule.test("jetty-a/etc/jetty.xml"));
+
+        // Regex characters are literal
+        assertTrue(PathRule.glob("a+b/(c).java").test("a+b/(c).java"));
+        assertFalse(PathRule.glob("a+b/(c).java").test("aab/c.java"));
+    }
+}
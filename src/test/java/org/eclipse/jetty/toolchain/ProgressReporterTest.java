@@ -0,0 +1,55 @@
+package org.eclipse.jetty.toolchain;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProgressReporterTest
+{
+    @Test
+    public void testPeriodicSummaries() throws Exception
+    {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        int items = 2000;
+        try (ProgressReporter progress = new ProgressReporter("task", 50, lines::add))
+        {
+            ProgressReporter.Stage stage = progress.stage("items", items);
+            for (int i = 0; i < items; i++)
+            {
+                stage.increment();
+                if (i % 100 == 0)
+                    Thread.sleep(10);
+            }
+            assertEquals(items, stage.getCount());
+        }
+
+        // A summary per interval, rather than a line per item
+        assertTrue(lines.size() > 1, lines.toString());
+        assertThat(lines.size(), lessThan(items / 10));
+        assertThat(lines.get(lines.size() - 1), startsWith("task items: 2,000 of 2,000 (100%, "));
+    }
+
+    @Test
+    public void testOnlyStagesWithProgressAreReported() throws Exception
+    {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        try (ProgressReporter progress = new ProgressReporter("task", 10, lines::add))
+        {
+            progress.stage("idle");
+            progress.stage("busy").add(3);
+            Thread.sleep(100);
+        }
+
+        // Once periodically, and once more on close
+        assertEquals(2, lines.size(), lines.toString());
+        assertThat(lines.get(0), startsWith("task busy: 3 ("));
+        assertThat(lines.get(1), startsWith("task busy: 3 ("));
+    }
+}
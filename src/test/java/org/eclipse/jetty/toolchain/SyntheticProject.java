@@ -0,0 +1,452 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Generate a Jetty-like project: a git history (via {@link SyntheticRepository}) along with
+ * the matching GitHub issues, pull requests and commits, as the JSON resources of the GitHub API.
+ * <p>
+ * The history is a main branch {@link #getBranch()}, tagged from {@link #getOldTag()} to {@link #getNewTag()},
+ * into which older release branches are regularly merged.
+ * Most commits are the squashed commits of pull requests ({@code Issue #NNNN - Summary (#NNNN)}),
+ * some issues reference other issues not referenced by any commit,
+ * and some references are to issues that do not exist.
+ * </p>
+ */
+public class SyntheticProject
+{
+    public static final String OWNER = "eclipse";
+    public static final String REPO_NAME = "jetty.project";
+    private static final String[] COMMITTERS = {
+        "Greg Wilkins:gregw@webtide.com",
+        "Jan Bartel:janb@webtide.com",
+        "Joakim Erdfelt:joakim@erdfelt.com",
+        "Simone Bordet:simone.bordet@gmail.com",
+        "Lachlan Roberts:lachlan@webtide.com"
+    };
+    private static final String[] WORDS = {
+        "fix", "improve", "update", "cleanup", "session", "websocket", "http2", "client", "server", "connector",
+        "handler", "deploy", "jndi", "osgi", "quic", "buffer", "pool", "timeout", "idle", "ssl"
+    };
+
+    private final SyntheticRepository repository;
+    private final Random random;
+    private final Map<String, String> resources = new HashMap<>();
+    private final Map<Integer, PullRequest> pullRequests = new LinkedHashMap<>();
+    private final Map<ObjectId, Integer> contributorCommits = new HashMap<>();
+    private int contributor = -1;
+    private int commits = 1000;
+    private int releaseBranches = 2;
+    private int tags = 3;
+    private int mergeEvery = 20;
+    private int commitsPerPullRequest = 2;
+    private int contributors = 20;
+    private int changesPerCommit = 3;
+    private int nextNumber = 10_000;
+    private final List<String> releases = new ArrayList<>();
+    private final Map<String, ObjectId> releaseHeads = new LinkedHashMap<>();
+    private ObjectId mainHead;
+    private PullRequest pullRequest;
+    private int generated;
+
+    public SyntheticProject(Path dir, long seed) throws IOException
+    {
+        this.repository = new SyntheticRepository(dir, seed);
+        this.random = new Random(seed);
+    }
+
+    /**
+     * The number of commits on the main branch between the old and new tags, including the merge commits.
+     */
+    public void setCommits(int commits)
+    {
+        this.commits = commits;
+    }
+
+    public void setReleaseBranches(int releaseBranches)
+    {
+        this.releaseBranches = releaseBranches;
+    }
+
+    /**
+     * The number of tags between the old and new tags.
+     */
+    public void setTags(int tags)
+    {
+        this.tags = tags;
+    }
+
+    /**
+     * Merge a commit of a release branch every {@code mergeEvery} commits, or never if 0.
+     */
+    public void setMergeEvery(int mergeEvery)
+    {
+        this.mergeEvery = mergeEvery;
+    }
+
+    public void setCommitsPerPullRequest(int commitsPerPullRequest)
+    {
+        this.commitsPerPullRequest = commitsPerPullRequest;
+    }
+
+    /**
+     * The number of distinct community authors (not in {@code authors.json}).
+     */
+    public void setContributors(int contributors)
+    {
+        this.contributors = contributors;
+    }
+
+    public void setChangesPerCommit(int changesPerCommit)
+    {
+        this.changesPerCommit = changesPerCommit;
+    }
+
+    public SyntheticRepository getRepository()
+    {
+        return repository;
+    }
+
+    public String getBranch()
+    {
+        return "jetty-12.0.x";
+    }
+
+    public String getOldTag()
+    {
+        return "jetty-12.0.0";
+    }
+
+    public String getNewTag()
+    {
+        return "jetty-12.0." + (tags + 1);
+    }
+
+    /**
+     * @return the GitHub API resources (eg: {@code /repos/eclipse/jetty.project/issues/10000}) and their JSON
+     */
+    public Map<String, String> getGitHubResources()
+    {
+        return resources;
+    }
+
+    /**
+     * @return the pull requests merged into {@link #getBranch()}, by number
+     */
+    public Map<Integer, String> getMainPullRequests()
+    {
+        Map<Integer, String> ret = new LinkedHashMap<>();
+        for (PullRequest pullRequest : pullRequests.values())
+        {
+            if (pullRequest.baseRef.equals(getBranch()))
+                ret.put(pullRequest.number, pullRequest.title);
+        }
+        return ret;
+    }
+
+    public void generate() throws IOException
+    {
+        for (int b = 0; b < releaseBranches; b++)
+        {
+            releases.add("jetty-" + (11 - b) + ".0.x");
+        }
+
+        repository.beginBatch();
+        repository.setAuthor("Synthetic Author", COMMITTERS[0].split(":")[1]);
+        mainHead = repository.init(10, 20);
+        Map<String, ObjectId> refs = new LinkedHashMap<>();
+        refs.put("refs/tags/" + getOldTag(), mainHead);
+        for (String release : releases)
+        {
+            releaseHeads.put(release, mainHead);
+        }
+
+        int tagEvery = commits / (tags + 1);
+        for (int i = 1; i <= commits; i++)
+        {
+            generateCommit();
+            if ((tagEvery > 0) && (i % tagEvery == 0) && (i / tagEvery <= tags))
+                refs.put("refs/tags/jetty-12.0." + (i / tagEvery), mainHead);
+        }
+        refs.put("refs/tags/" + getNewTag(), mainHead);
+        endGenerate(refs);
+    }
+
+    /**
+     * Generate more commits after {@link #generate()}, as landed on the branches since, tagged with a new tag.
+     * The pull request in progress gets more commits, changing its GitHub resources.
+     *
+     * @param moreCommits the number of commits to add on the main branch, including the merge commits
+     * @param newTag the tag of the last commit
+     */
+    public void generateMore(int moreCommits, String newTag) throws IOException
+    {
+        repository.beginBatch();
+        repository.resetHead(mainHead);
+        for (int i = 0; i < moreCommits; i++)
+        {
+            generateCommit();
+        }
+        Map<String, ObjectId> refs = new LinkedHashMap<>();
+        refs.put("refs/tags/" + newTag, mainHead);
+        endGenerate(refs);
+    }
+
+    private void generateCommit() throws IOException
+    {
+        int i = ++generated;
+        if ((mergeEvery > 0) && !releases.isEmpty() && (i % mergeEvery == 0))
+        {
+            // A commit on a release branch, merged forward
+            String release = releases.get((i / mergeEvery) % releases.size());
+            repository.resetHead(releaseHeads.get(release));
+            PullRequest releasePullRequest = newPullRequest(release);
+            releaseHeads.put(release, commit(releasePullRequest));
+            repository.resetHead(mainHead);
+            setAuthor();
+            mainHead = recordAuthor(repository.merge(releaseHeads.get(release), "Merge branch '" + release + "' into " + getBranch()));
+        }
+        else if (random.nextInt(10) == 0)
+        {
+            // A direct commit, without pull request
+            setAuthor();
+            mainHead = recordAuthor(repository.commit(changesPerCommit, "Updating to version 12.0." + i + "-SNAPSHOT"));
+        }
+        else
+        {
+            if ((pullRequest == null) || (pullRequest.commits.size() >= commitsPerPullRequest))
+                pullRequest = newPullRequest(getBranch());
+            mainHead = commit(pullRequest);
+        }
+    }
+
+    private void endGenerate(Map<String, ObjectId> refs) throws IOException
+    {
+        refs.put("refs/remotes/origin/" + getBranch(), mainHead);
+        for (Map.Entry<String, ObjectId> releaseHead : releaseHeads.entrySet())
+        {
+            refs.put("refs/remotes/origin/" + releaseHead.getKey(), releaseHead.getValue());
+        }
+        repository.endBatch();
+
+        for (Map.Entry<String, ObjectId> ref : refs.entrySet())
+        {
+            repository.resetHead(ref.getValue());
+            repository.updateRef(ref.getKey());
+        }
+        repository.resetHead(mainHead);
+
+        for (PullRequest pr : pullRequests.values())
+        {
+            addResources(pr);
+        }
+        // The authors not in authors.json are looked up on GitHub
+        for (Map.Entry<ObjectId, Integer> commit : contributorCommits.entrySet())
+        {
+            String sha = commit.getKey().getName();
+            resources.put("/repos/" + OWNER + "/" + REPO_NAME + "/commits/" + sha, toJson(commit(sha, commit.getValue())));
+        }
+    }
+
+    private void setAuthor()
+    {
+        String author;
+        if ((contributors > 0) && (random.nextInt(10) < 3))
+        {
+            contributor = random.nextInt(contributors);
+            author = "Contributor " + contributor + ":contributor" + contributor + "@example.org";
+        }
+        else
+        {
+            contributor = -1;
+            author = COMMITTERS[random.nextInt(COMMITTERS.length)];
+        }
+        String[] nameEmail = author.split(":");
+        repository.setAuthor(nameEmail[0], nameEmail[1]);
+    }
+
+    private ObjectId recordAuthor(ObjectId commit)
+    {
+        if (contributor >= 0)
+            contributorCommits.put(commit, contributor);
+        return commit;
+    }
+
+    private PullRequest newPullRequest(String baseRef)
+    {
+        PullRequest pullRequest = new PullRequest();
+        // Most pull requests fix an issue, with the issue number before the pull request number
+        if (random.nextInt(10) < 6)
+            pullRequest.issue = nextNumber++;
+        pullRequest.number = nextNumber++;
+        // Some issues reference another issue, only found when resolving that issue
+        if ((pullRequest.issue > 0) && (random.nextInt(10) == 0))
+            pullRequest.relatedIssue = nextNumber++;
+        pullRequest.baseRef = baseRef;
+        pullRequest.title = summary();
+        int label = random.nextInt(20);
+        if (label == 0)
+            pullRequest.label = "test";
+        else if (label == 1)
+            pullRequest.label = "documentation";
+        pullRequests.put(pullRequest.number, pullRequest);
+        return pullRequest;
+    }
+
+    private ObjectId commit(PullRequest pullRequest) throws IOException
+    {
+        setAuthor();
+        StringBuilder message = new StringBuilder();
+        if (pullRequest.issue > 0)
+            message.append("Issue #").append(pullRequest.issue).append(" - ");
+        message.append(pullRequest.title).append(" (#").append(pullRequest.number).append(")\n\n");
+        // Some references are to issues that do not exist (numbers below those generated)
+        if (random.nextInt(50) == 0)
+            message.append("Also see #").append(1000 + random.nextInt(9000)).append("\n\n");
+        message.append("Signed-off-by: Synthetic <synthetic@example.com>\n");
+        ObjectId commit = recordAuthor(repository.commit(changesPerCommit, message.toString()));
+        pullRequest.commits.add(commit);
+        return commit;
+    }
+
+    private String summary()
+    {
+        StringBuilder summary = new StringBuilder();
+        int words = 3 + random.nextInt(5);
+        for (int w = 0; w < words; w++)
+        {
+            if (w > 0)
+                summary.append(' ');
+            summary.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return summary.toString();
+    }
+
+    private void addResources(PullRequest pullRequest)
+    {
+        String repoPath = "/repos/" + OWNER + "/" + REPO_NAME;
+
+        JsonArray labels = new JsonArray();
+        if (pullRequest.label != null)
+            labels.add(label(pullRequest.label));
+
+        JsonObject prIssue = new JsonObject();
+        prIssue.addProperty("number", pullRequest.number);
+        prIssue.addProperty("title", pullRequest.title);
+        prIssue.addProperty("state", "closed");
+        prIssue.add("labels", labels);
+        JsonObject pullRequestRef = new JsonObject();
+        pullRequestRef.addProperty("url", "https://api.github.com" + repoPath + "/pulls/" + pullRequest.number);
+        prIssue.add("pull_request", pullRequestRef);
+        resources.put(repoPath + "/issues/" + pullRequest.number, toJson(prIssue));
+
+        JsonObject pull = new JsonObject();
+        pull.addProperty("number", pullRequest.number);
+        pull.addProperty("title", pullRequest.title);
+        pull.addProperty("body", (pullRequest.issue > 0) ? "Fixes #" + pullRequest.issue : "");
+        pull.addProperty("state", "closed");
+        pull.addProperty("merged", true);
+        pull.add("labels", labels);
+        JsonObject base = new JsonObject();
+        base.addProperty("ref", pullRequest.baseRef);
+        base.addProperty("label", OWNER + ":" + pullRequest.baseRef);
+        pull.add("base", base);
+        resources.put(repoPath + "/pulls/" + pullRequest.number, toJson(pull));
+
+        JsonArray pullCommits = new JsonArray();
+        for (ObjectId commit : pullRequest.commits)
+        {
+            JsonObject pullCommit = new JsonObject();
+            pullCommit.addProperty("sha", commit.getName());
+            pullCommits.add(pullCommit);
+        }
+        resources.put(repoPath + "/pulls/" + pullRequest.number + "/commits", toJson(pullCommits));
+
+        if (pullRequest.issue > 0)
+        {
+            JsonObject issue = new JsonObject();
+            issue.addProperty("number", pullRequest.issue);
+            issue.addProperty("title", pullRequest.title);
+            issue.addProperty("state", "closed");
+            issue.add("labels", new JsonArray());
+            if (pullRequest.relatedIssue > 0)
+            {
+                int related = pullRequest.relatedIssue;
+                issue.addProperty("body", "Related to #" + related);
+                JsonObject relatedIssue = new JsonObject();
+                relatedIssue.addProperty("number", related);
+                relatedIssue.addProperty("title", "Related " + pullRequest.title);
+                relatedIssue.addProperty("state", "open");
+                relatedIssue.add("labels", new JsonArray());
+                resources.put(repoPath + "/issues/" + related, toJson(relatedIssue));
+                resources.put(repoPath + "/issues/" + related + "/events", "[]");
+            }
+            else
+            {
+                issue.addProperty("body", "Something to " + pullRequest.title);
+            }
+            resources.put(repoPath + "/issues/" + pullRequest.issue, toJson(issue));
+
+            JsonArray events = new JsonArray();
+            for (ObjectId commit : pullRequest.commits)
+            {
+                JsonObject event = new JsonObject();
+                event.addProperty("event", "referenced");
+                event.addProperty("commit_id", commit.getName());
+                events.add(event);
+            }
+            JsonObject closed = new JsonObject();
+            closed.addProperty("event", "closed");
+            events.add(closed);
+            resources.put(repoPath + "/issues/" + pullRequest.issue + "/events", toJson(events));
+        }
+    }
+
+    private static JsonObject commit(String sha, int contributor)
+    {
+        JsonObject json = new JsonObject();
+        json.addProperty("sha", sha);
+        JsonObject details = new JsonObject();
+        details.addProperty("message", "Synthetic commit " + sha);
+        json.add("commit", details);
+        JsonObject author = new JsonObject();
+        author.addProperty("login", "contributor" + contributor);
+        json.add("author", author);
+        return json;
+    }
+
+    private static JsonObject label(String name)
+    {
+        JsonObject label = new JsonObject();
+        label.addProperty("name", name);
+        return label;
+    }
+
+    private static String toJson(Object json)
+    {
+        return new Gson().toJson(json);
+    }
+
+    private static class PullRequest
+    {
+        private int number;
+        private int issue;
+        private int relatedIssue;
+        private String baseRef;
+        private String title;
+        private String label;
+        private final List<ObjectId> commits = new ArrayList<>();
+    }
+}
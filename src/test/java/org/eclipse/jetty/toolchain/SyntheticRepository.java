@@ -0,0 +1,261 @@
+package org.eclipse.jetty.toolchain;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Generate a git repository of a maven-like multi module project, writing the objects directly
+ * (no working tree), so that large histories can be created quickly.
+ */
+public class SyntheticRepository
+{
+    private static final String[] SOURCE_DIRS = {
+        "src/main/java/org/eclipse/jetty/%s/",
+        "src/test/java/org/eclipse/jetty/%s/",
+        "src/main/resources/",
+        "src/main/webapp/"
+    };
+    private static final String[] SUFFIXES = {".java", ".java", ".java", ".properties", ".md", ".xml"};
+
+    private final Repository repository;
+    private final Random random;
+    private final Map<String, ObjectId> files = new TreeMap<>();
+    private final List<ObjectId> commits = new ArrayList<>();
+    private ObjectId head;
+    private int commitTime = 1_600_000_000;
+    private String authorName = "Synthetic Author";
+    private String authorEmail = "author@example.com";
+    private ObjectInserter batchInserter;
+
+    public SyntheticRepository(Path dir, long seed) throws IOException
+    {
+        try
+        {
+            this.repository = Git.init().setDirectory(dir.toFile()).setBare(true).call().getRepository();
+        }
+        catch (Exception e)
+        {
+            throw new IOException("Unable to init repository: " + dir, e);
+        }
+        this.random = new Random(seed);
+    }
+
+    public Repository getRepository()
+    {
+        return repository;
+    }
+
+    public List<ObjectId> getCommits()
+    {
+        return commits;
+    }
+
+    public ObjectId getHead()
+    {
+        return head;
+    }
+
+    /**
+     * The author (and committer) of the next commits.
+     */
+    public void setAuthor(String name, String email)
+    {
+        this.authorName = name;
+        this.authorEmail = email;
+    }
+
+    /**
+     * Write the objects of the next commits into a single pack, instead of as loose objects,
+     * until {@link #endBatch()}. Required for histories of more than a few thousand commits.
+     * <p>
+     * The refs must not be updated while in a batch, as the objects are not readable until the end of the batch.
+     * </p>
+     */
+    public void beginBatch()
+    {
+        if (batchInserter == null)
+            batchInserter = ((ObjectDirectory)repository.getObjectDatabase()).newPackInserter();
+    }
+
+    public void endBatch() throws IOException
+    {
+        if (batchInserter != null)
+        {
+            batchInserter.flush();
+            batchInserter.close();
+            batchInserter = null;
+            updateRef(Constants.R_HEADS + Constants.MASTER);
+        }
+    }
+
+    /**
+     * Point a ref (eg: {@code refs/remotes/origin/jetty-10.0.x}) at the current head commit.
+     */
+    public void updateRef(String refName) throws IOException
+    {
+        RefUpdate refUpdate = repository.updateRef(refName);
+        refUpdate.setNewObjectId(head);
+        refUpdate.setForceUpdate(true);
+        refUpdate.update();
+    }
+
+    /**
+     * Continue the history from an earlier commit, to fork a branch.
+     * Only the commit parent is changed, the files of later commits are kept.
+     */
+    public void resetHead(ObjectId commit)
+    {
+        head = commit;
+    }
+
+    /**
+     * Create the initial commit, of {@code modules} modules each with {@code filesPerModule} files.
+     */
+    public ObjectId init(int modules, int filesPerModule) throws IOException
+    {
+        try (ObjectInserter inserter = newInserter())
+        {
+            files.put("pom.xml", insertBlob(inserter, "<project/>"));
+            files.put("README.md", insertBlob(inserter, "# Synthetic"));
+            for (int m = 0; m < modules; m++)
+            {
+                String module = "module-" + m;
+                for (int f = 0; f < filesPerModule; f++)
+                {
+                    String path = newPath(module, f);
+                    files.put(path, insertBlob(inserter, path + "\n" + random.nextLong()));
+                }
+            }
+            return commit(inserter, "Initial import");
+        }
+    }
+
+    /**
+     * Create a commit that modifies {@code changes} random files, and adds and removes a file.
+     */
+    public ObjectId commit(int changes, String message) throws IOException
+    {
+        try (ObjectInserter inserter = newInserter())
+        {
+            List<String> paths = new ArrayList<>(files.keySet());
+            for (int i = 0; i < changes; i++)
+            {
+                String path = paths.get(random.nextInt(paths.size()));
+                files.put(path, insertBlob(inserter, path + "\n" + random.nextLong()));
+            }
+            String removed = paths.get(random.nextInt(paths.size()));
+            files.remove(removed);
+            String added = newPath("module-" + random.nextInt(10), 100_000 + commits.size());
+            files.put(added, insertBlob(inserter, added));
+            return commit(inserter, message);
+        }
+    }
+
+    /**
+     * Create a merge commit of the {@code other} commit into the head commit.
+     * The files are kept as they are, as if the merge had no conflicts.
+     */
+    public ObjectId merge(ObjectId other, String message) throws IOException
+    {
+        try (ObjectInserter inserter = newInserter())
+        {
+            return commit(inserter, message, other);
+        }
+    }
+
+    /**
+     * A new inserter, or the batch inserter (which must not be closed) if in a batch.
+     */
+    private ObjectInserter newInserter()
+    {
+        if (batchInserter == null)
+            return repository.newObjectInserter();
+        return new ObjectInserter.Filter()
+        {
+            @Override
+            protected ObjectInserter delegate()
+            {
+                return batchInserter;
+            }
+
+            @Override
+            public void flush()
+            {
+                // Flushed at the end of the batch
+            }
+
+            @Override
+            public void close()
+            {
+                // Closed at the end of the batch
+            }
+        };
+    }
+
+    private String newPath(String module, int index)
+    {
+        String dir = String.format(SOURCE_DIRS[index % SOURCE_DIRS.length], module.replace('-', '_'));
+        return module + "/" + dir + "File" + index + SUFFIXES[random.nextInt(SUFFIXES.length)];
+    }
+
+    private ObjectId insertBlob(ObjectInserter inserter, String content) throws IOException
+    {
+        return inserter.insert(Constants.OBJ_BLOB, content.getBytes(UTF_8));
+    }
+
+    private ObjectId commit(ObjectInserter inserter, String message, ObjectId... otherParents) throws IOException
+    {
+        DirCache dirCache = DirCache.newInCore();
+        DirCacheBuilder builder = dirCache.builder();
+        for (Map.Entry<String, ObjectId> file : files.entrySet())
+        {
+            DirCacheEntry entry = new DirCacheEntry(file.getKey());
+            entry.setFileMode(FileMode.REGULAR_FILE);
+            entry.setObjectId(file.getValue());
+            builder.add(entry);
+        }
+        builder.finish();
+        ObjectId tree = dirCache.writeTree(inserter);
+
+        PersonIdent ident = new PersonIdent(authorName, authorEmail, (commitTime++) * 1000L, 0);
+        CommitBuilder commit = new CommitBuilder();
+        commit.setTreeId(tree);
+        if (head != null)
+            commit.addParentId(head);
+        for (ObjectId parent : otherParents)
+        {
+            commit.addParentId(parent);
+        }
+        commit.setAuthor(ident);
+        commit.setCommitter(ident);
+        commit.setMessage(message);
+        head = inserter.insert(commit);
+        inserter.flush();
+        commits.add(head);
+
+        if (batchInserter == null)
+            updateRef(Constants.R_HEADS + Constants.MASTER);
+        return head;
+    }
+}
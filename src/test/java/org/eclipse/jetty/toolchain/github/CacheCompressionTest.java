@@ -0,0 +1,109 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CacheCompressionTest
+{
+    private static final String ISSUE_PATH = "/repos/eclipse/jetty.project/issues/5675";
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "issue-eclipse-jetty.project-5675.json",
+        "pull-request-5676.json",
+        "pull-request-5676-commits.json",
+        "issue-5675-events.json",
+        "commit.json"
+    })
+    public void testRoundTrip(String fixture) throws IOException
+    {
+        byte[] body = Files.readAllBytes(MavenTestingUtils.getTestResourcePathFile("github/" + fixture));
+        CacheCompression compression = CacheCompression.load();
+        byte[] compressed = compression.compress(body);
+        assertTrue(compressed.length < body.length / 3, "Compressed " + body.length + " to " + compressed.length);
+
+        try (InputStream in = compression.decompress(compressed))
+        {
+            assertArrayEquals(body, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testDictionaryIsStructural() throws IOException
+    {
+        String dictionary;
+        try (InputStream in = CacheCompressionTest.class.getClassLoader().getResourceAsStream("github-json.dict"))
+        {
+            dictionary = new String(in.readAllBytes(), UTF_8);
+        }
+        // No SHAs, repository or users of the recorded responses
+        assertFalse(Pattern.compile("[0-9a-f]{40}").matcher(dictionary).find());
+        assertFalse(dictionary.contains("jetty"));
+        assertFalse(dictionary.contains("/users/eclipse"));
+        assertFalse(dictionary.contains("janbartel"));
+    }
+
+    @Test
+    public void testEncodingIdentifiesDictionary() throws IOException
+    {
+        CacheCompression compression = CacheCompression.load();
+        assertTrue(compression.getEncoding().startsWith("deflate-dict-"));
+        assertEquals(compression.getEncoding(), CacheCompression.load().getEncoding());
+        CacheCompression other = new CacheCompression("{\"url\":\"".getBytes(UTF_8), 6);
+        assertNotEquals(compression.getEncoding(), other.getEncoding());
+    }
+
+    @Test
+    public void testCompressedCache(TestInfo testInfo) throws IOException
+    {
+        Path cacheDir = MavenTestingUtils.getTargetTestingPath(CacheCompressionTest.class.getSimpleName() + "-" + testInfo.getTestMethod().get().getName());
+        FS.ensureEmpty(cacheDir);
+        String body = Files.readString(MavenTestingUtils.getTestResourcePathFile("github/issue-eclipse-jetty.project-5675.json"), UTF_8);
+
+        Cache cache = new Cache(cacheDir);
+        cache.setCompression(CacheCompression.load());
+        cache.save(ISSUE_PATH, body, "W/\"1\"", null);
+        cache.saveNotFound("/repos/eclipse/jetty.project/issues/9999");
+
+        Path jsonFile = cacheDir.resolve("repos/eclipse/jetty.project/issues/5675.json");
+        assertTrue(Files.size(jsonFile) < body.length() / 3);
+
+        assertEquals(body, cache.getCached(ISSUE_PATH));
+        assertThrows(GitHubResourceNotFoundException.class, () -> cache.getCached("/repos/eclipse/jetty.project/issues/9999"));
+
+        Cache.Entry entry = cache.getEntry(ISSUE_PATH);
+        try (Reader reader = entry.newReader())
+        {
+            Issue issue = GitHubApi.newGson().fromJson(reader, Issue.class);
+            assertEquals(5675, issue.getNumber());
+        }
+
+        // Revalidation keeps the entry compressed
+        cache.saveNotModified(ISSUE_PATH, entry);
+        assertEquals(body, cache.getCached(ISSUE_PATH));
+
+        // Without the compression, compressed entries are not usable, and treated as not cached
+        Cache plainCache = new Cache(cacheDir);
+        assertNull(plainCache.getEntry(ISSUE_PATH));
+    }
+}
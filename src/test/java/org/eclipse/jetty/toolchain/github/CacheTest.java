@@ -0,0 +1,211 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CacheTest
+{
+    private static final String ISSUE_PATH = "/repos/eclipse/jetty.project/issues/5675";
+    private static final String ETAG = "W/\"e7f5a1b0c\"";
+
+    private final AtomicInteger issueRequests = new AtomicInteger();
+    private final AtomicReference<String> ifNoneMatch = new AtomicReference<>();
+    private Path cacheDir;
+    private HttpServer server;
+    private String issueBody;
+
+    @BeforeEach
+    public void setup(TestInfo testInfo) throws IOException
+    {
+        cacheDir = MavenTestingUtils.getTargetTestingPath(CacheTest.class.getSimpleName() + "-" + testInfo.getTestMethod().get().getName());
+        FS.ensureEmpty(cacheDir);
+
+        issueBody = Files.readString(MavenTestingUtils.getTestResourcePathFile("github/issue-eclipse-jetty.project-5675.json"), UTF_8);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/rate_limit", (exchange) ->
+        {
+            long reset = (System.currentTimeMillis() / 1000) + 3600;
+            String rate = String.format("{\"limit\":5000,\"used\":0,\"remaining\":5000,\"reset\":%d}", reset);
+            respond(exchange, 200, String.format("{\"resources\":{\"core\":%s},\"rate\":%s}", rate, rate));
+        });
+        server.createContext(ISSUE_PATH, (exchange) ->
+        {
+            issueRequests.incrementAndGet();
+            String condition = exchange.getRequestHeaders().getFirst("If-None-Match");
+            ifNoneMatch.set(condition);
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            if (ETAG.equals(condition))
+                respond(exchange, 304, "");
+            else
+                respond(exchange, 200, issueBody);
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer()
+    {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException
+    {
+        byte[] buf = body.getBytes(UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, buf.length == 0 ? -1 : buf.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(buf);
+        }
+    }
+
+    @Test
+    public void testToResourceType()
+    {
+        assertEquals("issues", Cache.toResourceType("/repos/eclipse/jetty.project/issues/5675"));
+        assertEquals("issue-events", Cache.toResourceType("/repos/eclipse/jetty.project/issues/5675/events"));
+        assertEquals("pulls", Cache.toResourceType("/repos/eclipse/jetty.project/pulls/5676"));
+        assertEquals("pull-commits", Cache.toResourceType("/repos/eclipse/jetty.project/pulls/5676/commits"));
+        assertEquals("commits", Cache.toResourceType("/repos/eclipse/jetty.project/commits/bdb4dd435e18336c61f67d270004e17696481bc3"));
+        assertEquals("releases", Cache.toResourceType("/repos/eclipse/jetty.project/releases?per_page=20&page=1"));
+        assertEquals("user", Cache.toResourceType("/user"));
+    }
+
+    @Test
+    public void testSaveLookup() throws IOException
+    {
+        Cache cache = new Cache(cacheDir);
+        assertNull(cache.lookup(ISSUE_PATH));
+
+        cache.save(ISSUE_PATH, "{}", ETAG, null);
+        Cache.Entry entry = cache.lookup(ISSUE_PATH);
+        assertEquals("{}", entry.getBody());
+        assertEquals(ETAG, entry.getETag());
+        assertFalse(entry.isExpired());
+
+        cache.setTimeToLive("issues", Duration.ZERO);
+        sleepPastMillis();
+        entry = cache.lookup(ISSUE_PATH);
+        assertTrue(entry.isExpired());
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getRevalidations());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testSaveSameBodyKeepsFetchedAt() throws IOException
+    {
+        Cache cache = new Cache(cacheDir);
+        cache.save(ISSUE_PATH, "{}", ETAG, null);
+        cache.saveNotFound(ISSUE_PATH + "/events");
+        long fetchedAt = cache.getEntry(ISSUE_PATH).getFetchedAt();
+        long notFoundAt = cache.getEntry(ISSUE_PATH + "/events").getFetchedAt();
+        sleepPastMillis();
+
+        // Fetched again, unchanged
+        cache.save(ISSUE_PATH, "{}", "W/\"other\"", null);
+        cache.saveNotFound(ISSUE_PATH + "/events");
+        Cache.Entry entry = cache.getEntry(ISSUE_PATH);
+        assertEquals(fetchedAt, entry.getFetchedAt());
+        assertTrue(entry.getValidatedAt() > fetchedAt);
+        assertEquals(notFoundAt, cache.getEntry(ISSUE_PATH + "/events").getFetchedAt());
+
+        // Fetched again, changed
+        cache.save(ISSUE_PATH, "{\"title\":\"changed\"}", ETAG, null);
+        assertTrue(cache.getEntry(ISSUE_PATH).getFetchedAt() > fetchedAt);
+    }
+
+    @Test
+    public void testRevalidateNotModified() throws IOException, InterruptedException
+    {
+        Cache cache = new Cache(cacheDir);
+        URI apiURI = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+        GitHubApi github = new GitHubApi(apiURI, "test-token", cache);
+
+        // Initial fetch
+        Issue issue = github.issue("eclipse", "jetty.project", 5675);
+        assertEquals(5675, issue.getNumber());
+        assertEquals(1, issueRequests.get());
+        assertNull(ifNoneMatch.get());
+        long fetchedAt = cache.getEntry(ISSUE_PATH).getFetchedAt();
+
+        // Not expired, served from cache
+        github.issue("eclipse", "jetty.project", 5675);
+        assertEquals(1, issueRequests.get());
+
+        // Expired, revalidated with the ETag
+        cache.setTimeToLive("issues", Duration.ZERO);
+        sleepPastMillis();
+        issue = github.issue("eclipse", "jetty.project", 5675);
+        assertEquals(5675, issue.getNumber());
+        assertEquals(2, issueRequests.get());
+        assertEquals(ETAG, ifNoneMatch.get());
+
+        Cache.Entry entry = cache.getEntry(ISSUE_PATH);
+        assertEquals(fetchedAt, entry.getFetchedAt());
+        assertTrue(entry.getValidatedAt() > fetchedAt);
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getRevalidations());
+        assertEquals(1, cache.getNotModified());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testStreamedResponseCached() throws IOException, InterruptedException
+    {
+        String paddedBody = issueBody + "\n\n";
+        server.createContext("/repos/eclipse/jetty.project/issues/5676", (exchange) -> respond(exchange, 200, paddedBody));
+        server.createContext("/repos/eclipse/jetty.project/issues/5677", (exchange) -> respond(exchange, 200, "{\"number\":"));
+
+        Cache cache = new Cache(cacheDir);
+        URI apiURI = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+        GitHubApi github = new GitHubApi(apiURI, "test-token", cache);
+
+        // Trailing bytes not consumed by the JSON parser are still cached
+        assertEquals(5675, github.issue("eclipse", "jetty.project", 5676).getNumber());
+        assertEquals(paddedBody, cache.getCached("/repos/eclipse/jetty.project/issues/5676"));
+
+        // A truncated body fails, and is not cached
+        assertThrows(JsonParseException.class, () -> github.issue("eclipse", "jetty.project", 5677));
+        assertFalse(cache.isCached("/repos/eclipse/jetty.project/issues/5677"));
+    }
+
+    private static void sleepPastMillis()
+    {
+        try
+        {
+            Thread.sleep(5);
+        }
+        catch (InterruptedException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+}
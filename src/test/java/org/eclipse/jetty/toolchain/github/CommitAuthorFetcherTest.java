@@ -0,0 +1,60 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommitAuthorFetcherTest
+{
+    private static final String REPO_PATH = "/repos/eclipse/jetty.project";
+    private static final String SHA1 = "0123456789abcdef0123456789abcdef01234567";
+    private static final String SHA2 = "fedcba9876543210fedcba9876543210fedcba98";
+    private static final String SHA3 = "1111111111111111111111111111111111111111";
+    private static final String UNKNOWN = "2222222222222222222222222222222222222222";
+
+    @Test
+    public void testFetchInBatches() throws Exception
+    {
+        Path cacheDir = MavenTestingUtils.getTargetTestingPath(CommitAuthorFetcherTest.class.getSimpleName());
+        FS.ensureEmpty(cacheDir);
+
+        try (StubGitHubServer server = new StubGitHubServer())
+        {
+            server.addResource(REPO_PATH + "/commits/" + SHA1, "{\"sha\":\"" + SHA1 + "\",\"author\":{\"login\":\"jdoe\"}}");
+            server.addResource(REPO_PATH + "/commits/" + SHA2, "{\"sha\":\"" + SHA2 + "\",\"author\":{\"login\":\"someone\"}}");
+            // The email of the commit is not one of a GitHub user
+            server.addResource(REPO_PATH + "/commits/" + SHA3, "{\"sha\":\"" + SHA3 + "\",\"author\":null}");
+            GitHubApi github = server.newGitHubApi(new Cache(cacheDir));
+
+            CommitAuthorFetcher fetcher = new CommitAuthorFetcher(github, "eclipse", "jetty.project", 2);
+            assertThat(fetcher.toQuery(List.of(SHA1)), containsString("c" + SHA1 + ": object(oid: \"" + SHA1 + "\")"));
+
+            Map<String, String> logins = fetcher.get(List.of(SHA1, SHA2, SHA3, UNKNOWN));
+            assertEquals(Map.of(SHA1, "jdoe", SHA2, "someone"), logins);
+            assertEquals(2, server.getRequestCount());
+
+            // From the cache, but for the unknown commit, which may only not be pushed yet
+            assertEquals(logins, fetcher.get(List.of(SHA1, SHA2, SHA3, UNKNOWN)));
+            assertEquals(3, server.getRequestCount());
+            Cache cache = github.getCache();
+            assertTrue(cache.isCached("/graphql/commit-author/eclipse/jetty.project/" + SHA3));
+            assertFalse(cache.isCached("/graphql/commit-author/eclipse/jetty.project/" + UNKNOWN));
+
+            // The logins never stand in for the REST commits
+            assertFalse(cache.isCached(REPO_PATH + "/commits/" + SHA2));
+            Commit commit = github.commit("eclipse", "jetty.project", SHA2);
+            assertEquals("someone", commit.getAuthor().getLogin());
+            assertEquals(4, server.getRequestCount());
+        }
+    }
+}
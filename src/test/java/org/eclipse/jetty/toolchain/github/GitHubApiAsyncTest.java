@@ -0,0 +1,145 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GitHubApiAsyncTest
+{
+    private static final int REQUEST_COUNT = 64;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger issueRequests = new AtomicInteger();
+    private ExecutorService serverExecutor;
+    private HttpServer server;
+    private Cache cache;
+
+    @BeforeEach
+    public void startServer(TestInfo testInfo) throws IOException
+    {
+        Path cacheDir = MavenTestingUtils.getTargetTestingPath(GitHubApiAsyncTest.class.getSimpleName() + "-" + testInfo.getTestMethod().get().getName());
+        FS.ensureEmpty(cacheDir);
+        cache = new Cache(cacheDir);
+
+        String issueBody = Files.readString(MavenTestingUtils.getTestResourcePathFile("github/issue-eclipse-jetty.project-5675.json"), UTF_8);
+
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/rate_limit", (exchange) ->
+        {
+            long reset = (System.currentTimeMillis() / 1000) + 3600;
+            String rate = String.format("{\"limit\":5000,\"used\":0,\"remaining\":5000,\"reset\":%d}", reset);
+            respond(exchange, 200, String.format("{\"resources\":{\"core\":%s},\"rate\":%s}", rate, rate));
+        });
+        server.createContext("/repos/eclipse/jetty.project/issues/", (exchange) ->
+        {
+            issueRequests.incrementAndGet();
+            int active = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(active, Math::max);
+            try
+            {
+                // Hold the request long enough for the client to pile up other requests
+                Thread.sleep(250);
+                respond(exchange, 200, issueBody);
+            }
+            catch (InterruptedException e)
+            {
+                respond(exchange, 500, "");
+            }
+            finally
+            {
+                inFlight.decrementAndGet();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer()
+    {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException
+    {
+        byte[] buf = body.getBytes(UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, buf.length == 0 ? -1 : buf.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(buf);
+        }
+    }
+
+    private GitHubApi newGitHubApi()
+    {
+        URI apiURI = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+        return new GitHubApi(apiURI, "test-token", cache);
+    }
+
+    @Test
+    public void testIssueAsyncConcurrentInFlight() throws Exception
+    {
+        GitHubApi github = newGitHubApi();
+
+        List<CompletableFuture<Issue>> futures = new ArrayList<>();
+        for (int i = 0; i < REQUEST_COUNT; i++)
+        {
+            futures.add(github.issueAsync("eclipse", "jetty.project", 1000 + i));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        for (CompletableFuture<Issue> future : futures)
+        {
+            Issue issue = future.get();
+            assertEquals(5675, issue.getNumber());
+            assertEquals("janbartel", issue.getUser().getLogin());
+        }
+
+        assertEquals(REQUEST_COUNT, issueRequests.get());
+        assertTrue(maxInFlight.get() > 8, "Expected many concurrent in-flight requests, but was " + maxInFlight.get());
+    }
+
+    @Test
+    public void testIssueAsyncUsesCache() throws Exception
+    {
+        GitHubApi github = newGitHubApi();
+
+        Issue issue = github.issueAsync("eclipse", "jetty.project", 5675).get(30, TimeUnit.SECONDS);
+        assertEquals(5675, issue.getNumber());
+        assertEquals(1, issueRequests.get());
+
+        // The second request, async or blocking, should be served from the shared cache
+        issue = github.issueAsync("eclipse", "jetty.project", 5675).get(30, TimeUnit.SECONDS);
+        assertEquals(5675, issue.getNumber());
+        issue = github.issue("eclipse", "jetty.project", 5675);
+        assertEquals(5675, issue.getNumber());
+        assertEquals(1, issueRequests.get());
+    }
+}
@@ -0,0 +1,155 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IssueBatchFetcherTest
+{
+    private final AtomicInteger graphqlRequests = new AtomicInteger();
+    private final AtomicInteger restRequests = new AtomicInteger();
+    private final AtomicReference<String> lastQuery = new AtomicReference<>();
+    private HttpServer server;
+    private GitHubApi github;
+
+    @BeforeEach
+    public void startServer(TestInfo testInfo) throws IOException
+    {
+        Path cacheDir = MavenTestingUtils.getTargetTestingPath(IssueBatchFetcherTest.class.getSimpleName() + "-" + testInfo.getTestMethod().get().getName());
+        FS.ensureEmpty(cacheDir);
+
+        String graphqlResponse = Files.readString(MavenTestingUtils.getTestResourcePathFile("github/graphql-issues-5675-5676-9999.json"), UTF_8);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/graphql", (exchange) ->
+        {
+            graphqlRequests.incrementAndGet();
+            try (InputStream in = exchange.getRequestBody())
+            {
+                lastQuery.set(new String(in.readAllBytes(), UTF_8));
+            }
+            respond(exchange, 200, graphqlResponse);
+        });
+        server.createContext("/", (exchange) ->
+        {
+            // Everything else should have been served from the cache
+            restRequests.incrementAndGet();
+            respond(exchange, 500, "");
+        });
+        server.start();
+
+        URI apiURI = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+        github = new GitHubApi(apiURI, "test-token", new Cache(cacheDir));
+    }
+
+    @AfterEach
+    public void stopServer()
+    {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException
+    {
+        byte[] buf = body.getBytes(UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, buf.length == 0 ? -1 : buf.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(buf);
+        }
+    }
+
+    @Test
+    public void testToQuery()
+    {
+        IssueBatchFetcher fetcher = new IssueBatchFetcher(github, "eclipse", "jetty.project");
+        String query = fetcher.toQuery(List.of(5675, 5676));
+        assertThat(query, containsString("repository(owner: \"eclipse\", name: \"jetty.project\")"));
+        assertThat(query, containsString("i5675: issueOrPullRequest(number: 5675) { ...issueFields }"));
+        assertThat(query, containsString("i5676: issueOrPullRequest(number: 5676) { ...issueFields }"));
+        assertThat(query, containsString("fragment issueFields on IssueOrPullRequest"));
+    }
+
+    @Test
+    public void testFetch() throws IOException, InterruptedException
+    {
+        IssueBatchFetcher fetcher = new IssueBatchFetcher(github, "eclipse", "jetty.project");
+        Map<Integer, IssueBatchFetcher.Result> results = fetcher.fetch(List.of(5675, 5676, 9999));
+
+        assertEquals(1, graphqlRequests.get());
+        assertThat(lastQuery.get(), containsString("i9999: issueOrPullRequest(number: 9999)"));
+        assertEquals(2, results.size());
+
+        IssueBatchFetcher.Result issue = results.get(5675);
+        assertFalse(issue.isPullRequest());
+        assertEquals("Update osgi test dependencies", issue.getTitle());
+        assertNull(issue.getBaseRef());
+        assertEquals(4, issue.getCommits().size());
+
+        IssueBatchFetcher.Result pullRequest = results.get(5676);
+        assertTrue(pullRequest.isPullRequest());
+        assertEquals("jetty-9.4.x", pullRequest.getBaseRef());
+        assertEquals(List.of("Test"), pullRequest.getLabels());
+        assertEquals(8, pullRequest.getCommits().size());
+    }
+
+    @Test
+    public void testGetServedFromGraphqlCache() throws IOException, InterruptedException
+    {
+        IssueBatchFetcher fetcher = new IssueBatchFetcher(github, "eclipse", "jetty.project");
+        Map<Integer, IssueBatchFetcher.Result> results = fetcher.get(List.of(5675, 5676, 9999));
+        assertEquals(1, graphqlRequests.get());
+        assertEquals(List.of(5675, 5676), List.copyOf(results.keySet()));
+        assertTrue(results.get(5675).isComplete());
+        assertTrue(results.get(5676).isComplete());
+
+        // The partial GraphQL nodes never stand in for the REST responses
+        Cache cache = github.getCache();
+        assertTrue(cache.isCached("/graphql/issue/eclipse/jetty.project/5676"));
+        assertEquals("graphql-issue", Cache.toResourceType("/graphql/issue/eclipse/jetty.project/5676"));
+        for (String path : List.of("issues/5675", "issues/5675/events", "issues/5676", "pulls/5676", "pulls/5676/commits", "issues/9999"))
+        {
+            assertFalse(cache.isCached("/repos/eclipse/jetty.project/" + path), path);
+        }
+
+        // Already cached, nothing left to fetch
+        Map<Integer, IssueBatchFetcher.Result> cached = fetcher.get(List.of(5675, 5676, 9999));
+        assertEquals(1, graphqlRequests.get());
+        assertEquals(results.keySet(), cached.keySet());
+        assertEquals("jetty-9.4.x", cached.get(5676).getBaseRef());
+        assertEquals(results.get(5675).getCommits(), cached.get(5675).getCommits());
+
+        // Expired, including the not found, fetched again
+        cache.setTimeToLive("graphql-issue", Duration.ZERO);
+        Thread.sleep(5);
+        fetcher.get(List.of(5675, 9999));
+        assertEquals(2, graphqlRequests.get());
+        assertEquals(0, restRequests.get());
+    }
+}
@@ -0,0 +1,200 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PackCacheStoreTest
+{
+    private static final String ISSUE_PATH = "/repos/eclipse/jetty.project/issues/5675";
+    private static final String PR_PATH = "/repos/eclipse/jetty.project/pulls/5676";
+
+    private Path testDir;
+
+    @BeforeEach
+    public void setup(TestInfo testInfo)
+    {
+        testDir = MavenTestingUtils.getTargetTestingPath(PackCacheStoreTest.class.getSimpleName() + "-" + testInfo.getTestMethod().get().getName());
+        FS.ensureEmpty(testDir);
+    }
+
+    private static CacheStore.Record newRecord(String body, String etag)
+    {
+        return new CacheStore.Record(body.getBytes(UTF_8), Map.of("etag", etag, "fetched", "1000"));
+    }
+
+    @Test
+    public void testPutGet() throws IOException
+    {
+        try (PackCacheStore store = new PackCacheStore(testDir.resolve("cache.pack")))
+        {
+            assertNull(store.get(ISSUE_PATH));
+            assertFalse(store.contains(ISSUE_PATH));
+
+            store.put(ISSUE_PATH, newRecord("{\"number\":5675}", "W/\"1\""));
+            store.put(PR_PATH, newRecord("{\"number\":5676}", "W/\"2\""));
+
+            assertTrue(store.contains(ISSUE_PATH));
+            CacheStore.Record record = store.get(ISSUE_PATH);
+            assertEquals("{\"number\":5675}", new String(record.getBody(), UTF_8));
+            assertEquals("W/\"1\"", record.getMeta().get("etag"));
+            assertEquals("1000", record.getMeta().get("fetched"));
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    public void testReopenAndReplace() throws IOException
+    {
+        Path packFile = testDir.resolve("cache.pack");
+        try (PackCacheStore store = new PackCacheStore(packFile))
+        {
+            store.put(ISSUE_PATH, newRecord("{\"old\":true}", "W/\"1\""));
+            store.put(PR_PATH, newRecord("{\"number\":5676}", "W/\"2\""));
+            store.put(ISSUE_PATH, newRecord("{\"new\":true}", "W/\"3\""));
+            assertTrue(store.getWastedBytes() > 0);
+        }
+
+        try (PackCacheStore store = new PackCacheStore(packFile))
+        {
+            assertEquals(2, store.size());
+            assertEquals("{\"new\":true}", new String(store.get(ISSUE_PATH).getBody(), UTF_8));
+            assertEquals("W/\"3\"", store.get(ISSUE_PATH).getMeta().get("etag"));
+
+            long sizeBefore = store.getFileSize();
+            store.compact();
+            assertEquals(0, store.getWastedBytes());
+            assertTrue(store.getFileSize() < sizeBefore);
+            assertEquals("{\"new\":true}", new String(store.get(ISSUE_PATH).getBody(), UTF_8));
+            assertEquals("{\"number\":5676}", new String(store.get(PR_PATH).getBody(), UTF_8));
+        }
+    }
+
+    @Test
+    public void testTornRecordTruncated() throws IOException
+    {
+        Path packFile = testDir.resolve("cache.pack");
+        long goodSize;
+        try (PackCacheStore store = new PackCacheStore(packFile))
+        {
+            store.put(ISSUE_PATH, newRecord("{\"number\":5675}", "W/\"1\""));
+            goodSize = store.getFileSize();
+            store.put(PR_PATH, newRecord("{\"number\":5676}", "W/\"2\""));
+        }
+
+        // Simulate a crash part way through writing the last record
+        try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.WRITE))
+        {
+            channel.truncate(Files.size(packFile) - 3);
+        }
+
+        try (PackCacheStore store = new PackCacheStore(packFile))
+        {
+            assertEquals(1, store.size());
+            assertTrue(store.contains(ISSUE_PATH));
+            assertFalse(store.contains(PR_PATH));
+            assertEquals(goodSize, Files.size(packFile));
+
+            // Still appendable after recovery
+            store.put(PR_PATH, newRecord("{\"number\":5676}", "W/\"2\""));
+            assertTrue(store.contains(PR_PATH));
+        }
+    }
+
+    @Test
+    public void testNotAPackFile() throws IOException
+    {
+        Path packFile = testDir.resolve("bogus.pack");
+        Files.writeString(packFile, "{\"not\":\"a pack\"}", UTF_8);
+        assertThrows(IOException.class, () -> new PackCacheStore(packFile));
+    }
+
+    @Test
+    public void testReadWhileCompacting() throws Exception
+    {
+        int records = 2000;
+        try (PackCacheStore store = new PackCacheStore(testDir.resolve("cache.pack")))
+        {
+            for (int i = 0; i < records; i++)
+            {
+                store.put(ISSUE_PATH + i, newRecord("{\"number\":0}", "W/\"0\""));
+                store.put(ISSUE_PATH + i, newRecord("{\"number\":" + i + "}", "W/\"" + i + "\""));
+            }
+
+            AtomicBoolean compacting = new AtomicBoolean(true);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread reader = new Thread(() ->
+            {
+                try
+                {
+                    while (compacting.get())
+                    {
+                        for (int i = 0; i < records; i++)
+                        {
+                            CacheStore.Record record = store.get(ISSUE_PATH + i);
+                            assertEquals("{\"number\":" + i + "}", new String(record.getBody(), UTF_8));
+                        }
+                    }
+                }
+                catch (Throwable x)
+                {
+                    failure.set(x);
+                }
+            });
+            reader.start();
+            for (int i = 0; i < 20; i++)
+            {
+                store.compact();
+            }
+            compacting.set(false);
+            reader.join();
+
+            assertNull(failure.get());
+            assertEquals(0, store.getWastedBytes());
+        }
+    }
+
+    @Test
+    public void testImportExportDirectory() throws IOException
+    {
+        DirectoryCacheStore directory = new DirectoryCacheStore(testDir.resolve("dir"));
+        Cache dirCache = new Cache(directory);
+        dirCache.save(ISSUE_PATH, "{\"number\":5675}", "W/\"1\"", null);
+        dirCache.save(PR_PATH + "/commits", "[]", null, "Tue, 01 Dec 2020 00:00:00 GMT");
+        dirCache.saveNotFound("/repos/eclipse/jetty.project/issues/9999");
+
+        try (PackCacheStore pack = new PackCacheStore(testDir.resolve("cache.pack")))
+        {
+            assertEquals(3, CacheStore.copy(directory, pack));
+
+            Cache packCache = new Cache(pack);
+            assertEquals("{\"number\":5675}", packCache.getCached(ISSUE_PATH));
+            assertEquals("W/\"1\"", packCache.getEntry(ISSUE_PATH).getETag());
+            assertEquals("Tue, 01 Dec 2020 00:00:00 GMT", packCache.getEntry(PR_PATH + "/commits").getLastModified());
+            assertThrows(GitHubResourceNotFoundException.class, () -> packCache.getCached("/repos/eclipse/jetty.project/issues/9999"));
+
+            DirectoryCacheStore exported = new DirectoryCacheStore(testDir.resolve("exported"));
+            assertEquals(3, CacheStore.copy(pack, exported));
+            assertEquals("{\"number\":5675}", Files.readString(testDir.resolve("exported/repos/eclipse/jetty.project/issues/5675.json"), UTF_8));
+            assertEquals("W/\"1\"", new Cache(exported).getEntry(ISSUE_PATH).getETag());
+        }
+    }
+}
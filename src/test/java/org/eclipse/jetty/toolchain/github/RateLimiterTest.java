@@ -0,0 +1,142 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.net.http.HttpHeaders;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimiterTest
+{
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(NOW);
+    private final RateLimiter limiter = new RateLimiter(clock::get);
+
+    private static HttpHeaders headers(String... namesAndValues)
+    {
+        Map<String, List<String>> map = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2)
+        {
+            map.put(namesAndValues[i], List.of(namesAndValues[i + 1]));
+        }
+        return HttpHeaders.of(map, (name, value) -> true);
+    }
+
+    private static HttpHeaders rateHeaders(int limit, int remaining, long resetMillis)
+    {
+        return headers("X-RateLimit-Limit", String.valueOf(limit),
+            "X-RateLimit-Remaining", String.valueOf(remaining),
+            "X-RateLimit-Used", String.valueOf(limit - remaining),
+            "X-RateLimit-Reset", String.valueOf(resetMillis / 1000),
+            "X-RateLimit-Resource", "core");
+    }
+
+    @Test
+    public void testUnknownIsNotLimited()
+    {
+        assertEquals(-1, limiter.getRemaining("core"));
+        assertEquals(0, limiter.reserve("core"));
+        // Responses without rate limit headers are ignored
+        limiter.update(headers("Content-Type", "application/json"));
+        assertEquals(-1, limiter.getRemaining("core"));
+    }
+
+    @Test
+    public void testPlentyLeftIsNotPaced()
+    {
+        limiter.update(rateHeaders(5000, 4000, NOW + 3_600_000));
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals(0, limiter.reserve("core"));
+        }
+        assertEquals(3900, limiter.getRemaining("core"));
+    }
+
+    @Test
+    public void testPacedUntilReset()
+    {
+        // 5 usable requests above the reserve of 10, over 10 seconds
+        limiter.update(rateHeaders(100, 15, NOW + 10_000));
+        assertEquals(0, limiter.reserve("core"));
+        assertEquals(2_000, limiter.reserve("core"));
+        assertEquals(4_000, limiter.reserve("core"));
+        assertEquals(6_000, limiter.reserve("core"));
+        assertEquals(8_000, limiter.reserve("core"));
+
+        // The reserve is kept for after the reset (and its margin)
+        assertEquals(11_000, limiter.reserve("core"));
+        assertEquals(11_000, limiter.reserve("core"));
+        assertEquals(98, limiter.getRemaining("core"));
+
+        assertEquals(6, limiter.getDelayedRequests());
+        assertEquals(2_000 + 4_000 + 6_000 + 8_000 + 11_000 + 11_000, limiter.getDelayedMillis());
+    }
+
+    @Test
+    public void testUsedHeader()
+    {
+        limiter.update(headers("X-RateLimit-Limit", "5000",
+            "X-RateLimit-Used", "4990",
+            "X-RateLimit-Reset", String.valueOf((NOW + 60_000) / 1000)));
+        assertEquals(10, limiter.getRemaining("core"));
+        assertEquals(61_000, limiter.reserve("core"));
+    }
+
+    @Test
+    public void testOutOfOrderResponses()
+    {
+        long reset = NOW + 3_600_000;
+        limiter.update(rateHeaders(5000, 4000, reset));
+        // An earlier response of the same window does not give back requests
+        limiter.update(rateHeaders(5000, 4500, reset));
+        assertEquals(4000, limiter.getRemaining("core"));
+        // A response of an earlier window is ignored
+        limiter.update(rateHeaders(5000, 10, reset - 3_600_000));
+        assertEquals(4000, limiter.getRemaining("core"));
+        // A later window starts over
+        limiter.update(rateHeaders(5000, 4999, reset + 3_600_000));
+        assertEquals(4999, limiter.getRemaining("core"));
+    }
+
+    @Test
+    public void testWindowPassed()
+    {
+        limiter.update(rateHeaders(5000, 20, NOW + 60_000));
+        clock.addAndGet(61_000);
+        assertEquals(5000, limiter.getRemaining("core"));
+        assertEquals(0, limiter.reserve("core"));
+    }
+
+    @Test
+    public void testRetryAfter()
+    {
+        limiter.update(rateHeaders(5000, 4000, NOW + 3_600_000));
+        assertFalse(limiter.onRejected("core", 404, headers()));
+        // Forbidden, but not by a rate limit
+        assertFalse(limiter.onRejected("core", 403, rateHeaders(5000, 3999, NOW + 3_600_000)));
+        assertEquals(0, limiter.reserve("core"));
+
+        assertTrue(limiter.onRejected("core", 429, headers("Retry-After", "30")));
+        assertEquals(30_000, limiter.reserve("core"));
+        clock.addAndGet(10_000);
+        assertEquals(20_000, limiter.reserve("core"));
+        // Other resources are not held back
+        assertEquals(0, limiter.reserve("graphql"));
+    }
+
+    @Test
+    public void testRateLimitExceeded()
+    {
+        HttpHeaders exceeded = rateHeaders(5000, 0, NOW + 60_000);
+        limiter.update(exceeded);
+        assertTrue(limiter.onRejected("core", 403, exceeded));
+        assertEquals(61_000, limiter.reserve("core"));
+    }
+}
@@ -0,0 +1,41 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RequestStatsTest
+{
+    @Test
+    public void testHistogram()
+    {
+        RequestStats stats = new RequestStats();
+        for (int i = 0; i < 90; i++)
+        {
+            stats.record("issues", TimeUnit.MILLISECONDS.toNanos(20), false);
+        }
+        for (int i = 0; i < 9; i++)
+        {
+            stats.record("issues", TimeUnit.MILLISECONDS.toNanos(300), false);
+        }
+        stats.record("issues", TimeUnit.MILLISECONDS.toNanos(12_000), true);
+        stats.record("graphql", TimeUnit.MILLISECONDS.toNanos(700), false);
+
+        RequestStats.Endpoint issues = stats.getEndpoints().get("issues");
+        assertEquals(100, issues.getRequests());
+        assertEquals(1, issues.getFailures());
+        assertArrayEquals(new long[]{0, 90, 0, 0, 0, 9, 0, 0, 0, 0, 1}, issues.getHistogram());
+        assertEquals(25, issues.getPercentileMillis(50));
+        assertEquals(25, issues.getPercentileMillis(90));
+        assertEquals(500, issues.getPercentileMillis(99));
+        // Beyond the last bound
+        assertEquals(12_000, issues.getPercentileMillis(100));
+        assertEquals(12_000, issues.getMaxMillis());
+
+        assertEquals(101, stats.getRequests());
+        assertEquals(1, stats.getEndpoints().get("graphql").getRequests());
+    }
+}
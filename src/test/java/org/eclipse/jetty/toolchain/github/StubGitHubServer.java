@@ -0,0 +1,502 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A local GitHub API, serving canned JSON resources by path (eg: {@code /repos/eclipse/jetty.project/issues/5675}),
+ * and {@code 404 Not Found} for any other path.
+ * <p>
+ * The {@code /graphql} batches of {@link IssueBatchFetcher} are answered from the same issue, pull request,
+ * issue events and pull request commits resources, and those of {@link CommitAuthorFetcher} from the commit resources.
+ * </p>
+ * <p>
+ * Like GitHub, every response has the {@code X-RateLimit-*} headers of a {@link #setRateLimit(int, Duration) rate limit}
+ * (exceeding it is a {@code 403}), and too many concurrent requests are rejected by a
+ * {@link #setSecondaryRateLimit(int, int) secondary rate limit} (a {@code 403} with a {@code Retry-After}).
+ * The resources have an {@code ETag}, so that unchanged resources are revalidated with a {@code 304}.
+ * </p>
+ */
+public class StubGitHubServer implements AutoCloseable
+{
+    static
+    {
+        // Otherwise Nagle's algorithm adds ~40 ms to every response (headers and body are written separately)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final Pattern GRAPHQL_ISSUE = Pattern.compile("(\\w+): issueOrPullRequest\\(number: (\\d+)\\)");
+    private static final Pattern GRAPHQL_COMMIT = Pattern.compile("(\\w+): object\\(oid: \"([0-9a-f]+)\"\\)");
+    private static final Pattern GRAPHQL_REPOSITORY = Pattern.compile("repository\\(owner: \"([^\"]+)\", name: \"([^\"]+)\"\\)");
+
+    private final Map<String, String> resources = new ConcurrentHashMap<>();
+    private final Set<String> notFound = ConcurrentHashMap.newKeySet();
+    private final Set<String> serverErrors = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, AtomicInteger> responses = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Gson gson = new Gson();
+    private final String basePath;
+    private final ExecutorService executor;
+    private final HttpServer server;
+    private volatile Duration latency = Duration.ZERO;
+    private int rateLimit = 5000;
+    private long rateWindowMillis = Duration.ofHours(1).toMillis();
+    private long rateReset;
+    private int rateUsed;
+    private volatile int maxConcurrentRequests = Integer.MAX_VALUE;
+    private volatile int retryAfterSeconds = 60;
+
+    public StubGitHubServer() throws IOException
+    {
+        this("");
+    }
+
+    /**
+     * @param basePath the path of the API on the server, eg: {@code /api/v3} as with GitHub Enterprise
+     */
+    public StubGitHubServer(String basePath) throws IOException
+    {
+        this.basePath = basePath;
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public void addResource(String path, String json)
+    {
+        resources.put(path, json);
+    }
+
+    public void addResources(Map<String, String> resources)
+    {
+        this.resources.putAll(resources);
+    }
+
+    /**
+     * Respond {@code 404 Not Found} for the path, even if it has a resource.
+     */
+    public void addNotFound(String path)
+    {
+        notFound.add(path);
+    }
+
+    /**
+     * Respond {@code 500 Internal Server Error} for the path, even if it has a resource.
+     */
+    public void addServerError(String path)
+    {
+        serverErrors.add(path);
+    }
+
+    /**
+     * The time to wait before each response.
+     */
+    public void setLatency(Duration latency)
+    {
+        this.latency = latency;
+    }
+
+    /**
+     * The number of requests allowed per window, starting from the first request.
+     * {@code /rate_limit} requests are free, as on GitHub.
+     */
+    public synchronized void setRateLimit(int limit, Duration window)
+    {
+        this.rateLimit = limit;
+        this.rateWindowMillis = window.toMillis();
+        this.rateReset = 0;
+        this.rateUsed = 0;
+    }
+
+    /**
+     * Reject the requests over {@code maxConcurrentRequests} in flight with a {@code 403}
+     * and a {@code Retry-After} header of {@code retryAfterSeconds}.
+     */
+    public void setSecondaryRateLimit(int maxConcurrentRequests, int retryAfterSeconds)
+    {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public URI getURI()
+    {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + basePath + "/");
+    }
+
+    /**
+     * @return the number of requests handled, including the {@code /rate_limit} ones
+     */
+    public int getRequestCount()
+    {
+        return requests.get();
+    }
+
+    /**
+     * @return the number of responses with the status
+     */
+    public int getResponseCount(int status)
+    {
+        AtomicInteger count = responses.get(status);
+        return (count == null) ? 0 : count.get();
+    }
+
+    /**
+     * @return the maximum number of requests that were in flight at the same time
+     */
+    public int getMaxInFlight()
+    {
+        return maxInFlight.get();
+    }
+
+    public GitHubApi newGitHubApi(Cache cache)
+    {
+        return new GitHubApi(getURI(), "stub-token", cache);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        requests.incrementAndGet();
+        int active = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(active, Math::max);
+        try
+        {
+            if (!latency.isZero())
+                Thread.sleep(latency.toMillis());
+
+            URI uri = exchange.getRequestURI();
+            String path = uri.getRawPath();
+            if (!path.startsWith(basePath))
+            {
+                respond(exchange, 404, "{\"message\":\"Not Found\"}");
+                return;
+            }
+            path = path.substring(basePath.length());
+            if ("/rate_limit".equals(path))
+            {
+                respond(exchange, 200, toRateLimits());
+                return;
+            }
+
+            if (active > maxConcurrentRequests)
+            {
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
+                respond(exchange, 403, "{\"message\":\"You have exceeded a secondary rate limit. Please wait a few minutes before you try again.\"}");
+                return;
+            }
+
+            if (!acquireRate(exchange))
+            {
+                respond(exchange, 403, "{\"message\":\"API rate limit exceeded\"}");
+                return;
+            }
+
+            if ("/graphql".equals(path))
+            {
+                try (InputStream in = exchange.getRequestBody())
+                {
+                    JsonObject request = gson.fromJson(new String(in.readAllBytes(), UTF_8), JsonObject.class);
+                    respond(exchange, 200, toGraphqlResponse(request.get("query").getAsString()));
+                }
+                return;
+            }
+
+            if (uri.getRawQuery() != null)
+                path = path + "?" + uri.getRawQuery();
+            String json = notFound.contains(path) ? null : resources.get(path);
+            if (serverErrors.contains(path))
+            {
+                respond(exchange, 500, "{\"message\":\"Server Error\"}");
+            }
+            else if (json == null)
+            {
+                respond(exchange, 404, "{\"message\":\"Not Found\"}");
+            }
+            else
+            {
+                // Like GitHub, the revalidation of an unchanged resource is a 304
+                String etag = "\"" + Integer.toHexString(json.hashCode()) + "\"";
+                exchange.getResponseHeaders().add("ETag", etag);
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+                    respond(exchange, 304, null);
+                else
+                    respond(exchange, 200, json);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            respond(exchange, 500, "{\"message\":\"Interrupted\"}");
+        }
+        finally
+        {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Count the request against the rate limit, adding the rate limit headers to the response.
+     *
+     * @return false if the rate limit was already exceeded
+     */
+    private synchronized boolean acquireRate(HttpExchange exchange)
+    {
+        long now = System.currentTimeMillis();
+        if (now >= rateReset)
+        {
+            rateReset = now + rateWindowMillis;
+            rateUsed = 0;
+        }
+        boolean allowed = rateUsed < rateLimit;
+        if (allowed)
+            rateUsed++;
+        exchange.getResponseHeaders().add("X-RateLimit-Limit", String.valueOf(rateLimit));
+        exchange.getResponseHeaders().add("X-RateLimit-Remaining", String.valueOf(rateLimit - rateUsed));
+        exchange.getResponseHeaders().add("X-RateLimit-Used", String.valueOf(rateUsed));
+        // Epoch seconds, rounded up so that the limit is never reset before the stated time
+        exchange.getResponseHeaders().add("X-RateLimit-Reset", String.valueOf((rateReset + 999) / 1000));
+        exchange.getResponseHeaders().add("X-RateLimit-Resource", "core");
+        return allowed;
+    }
+
+    private synchronized String toRateLimits()
+    {
+        long now = System.currentTimeMillis();
+        int used = (now >= rateReset) ? 0 : rateUsed;
+        long reset = (now >= rateReset) ? now + rateWindowMillis : rateReset;
+        String rate = String.format("{\"limit\":%d,\"used\":%d,\"remaining\":%d,\"reset\":%d}", rateLimit, used, rateLimit - used, (reset + 999) / 1000);
+        return String.format("{\"resources\":{\"core\":%s,\"graphql\":%s},\"rate\":%s}", rate, rate, rate);
+    }
+
+    /**
+     * Answer the {@link IssueBatchFetcher} and {@link CommitAuthorFetcher} queries from the REST resources.
+     */
+    private String toGraphqlResponse(String query)
+    {
+        Matcher repository = GRAPHQL_REPOSITORY.matcher(query);
+        if (!repository.find())
+            return "{\"errors\":[{\"message\":\"Unsupported query\"}]}";
+        String repoPath = "/repos/" + repository.group(1) + "/" + repository.group(2);
+
+        JsonObject repo = new JsonObject();
+        JsonArray errors = new JsonArray();
+        Matcher issue = GRAPHQL_ISSUE.matcher(query);
+        while (issue.find())
+        {
+            String alias = issue.group(1);
+            String num = issue.group(2);
+            JsonObject node = toGraphqlNode(repoPath, num);
+            if (node == null)
+            {
+                repo.add(alias, JsonNull.INSTANCE);
+                JsonObject error = new JsonObject();
+                error.addProperty("type", "NOT_FOUND");
+                JsonArray path = new JsonArray();
+                path.add("repository");
+                path.add(alias);
+                error.add("path", path);
+                error.addProperty("message", "Could not resolve to an issue or pull request with the number of " + num + ".");
+                errors.add(error);
+            }
+            else
+            {
+                repo.add(alias, node);
+            }
+        }
+
+        Matcher commit = GRAPHQL_COMMIT.matcher(query);
+        while (commit.find())
+        {
+            // Like GitHub, an unknown object is null without an error
+            JsonObject resource = getResource(repoPath + "/commits/" + commit.group(2));
+            if (resource == null)
+            {
+                repo.add(commit.group(1), JsonNull.INSTANCE);
+                continue;
+            }
+            JsonObject author = new JsonObject();
+            JsonElement user = resource.get("author");
+            if ((user == null) || user.isJsonNull())
+            {
+                author.add("user", JsonNull.INSTANCE);
+            }
+            else
+            {
+                JsonObject login = new JsonObject();
+                login.add("login", user.getAsJsonObject().get("login"));
+                author.add("user", login);
+            }
+            JsonObject node = new JsonObject();
+            node.add("author", author);
+            repo.add(commit.group(1), node);
+        }
+
+        JsonObject data = new JsonObject();
+        data.add("repository", repo);
+        JsonObject response = new JsonObject();
+        response.add("data", data);
+        if (errors.size() > 0)
+            response.add("errors", errors);
+        return gson.toJson(response);
+    }
+
+    private JsonObject toGraphqlNode(String repoPath, String num)
+    {
+        JsonObject issue = getResource(repoPath + "/issues/" + num);
+        if (issue == null)
+            return null;
+
+        JsonObject node = new JsonObject();
+        boolean pullRequest = issue.has("pull_request") && !issue.get("pull_request").isJsonNull();
+        JsonObject source = pullRequest ? getResource(repoPath + "/pulls/" + num) : issue;
+        if (source == null)
+            return null;
+        node.addProperty("__typename", pullRequest ? "PullRequest" : "Issue");
+        node.add("number", source.get("number"));
+        node.add("title", source.get("title"));
+        node.add("body", source.get("body"));
+        String state = getString(source, "state");
+        if (pullRequest && source.has("merged") && source.get("merged").getAsBoolean())
+            node.addProperty("state", "MERGED");
+        else
+            node.addProperty("state", "open".equals(state) ? "OPEN" : "CLOSED");
+
+        JsonArray labels = new JsonArray();
+        if (source.has("labels"))
+        {
+            for (JsonElement label : source.getAsJsonArray("labels"))
+            {
+                JsonObject name = new JsonObject();
+                name.add("name", label.getAsJsonObject().get("name"));
+                labels.add(name);
+            }
+        }
+        node.add("labels", toConnection(labels));
+
+        JsonArray nodes = new JsonArray();
+        if (pullRequest)
+        {
+            node.add("baseRefName", source.getAsJsonObject("base").get("ref"));
+            JsonArray commits = getResourceArray(repoPath + "/pulls/" + num + "/commits");
+            for (JsonElement commit : commits)
+            {
+                JsonObject oid = new JsonObject();
+                oid.add("oid", commit.getAsJsonObject().get("sha"));
+                JsonObject commitNode = new JsonObject();
+                commitNode.add("commit", oid);
+                nodes.add(commitNode);
+            }
+            node.add("commits", toConnection(nodes));
+        }
+        else
+        {
+            JsonArray events = getResourceArray(repoPath + "/issues/" + num + "/events");
+            for (JsonElement event : events)
+            {
+                JsonObject eventObj = event.getAsJsonObject();
+                String commitId = getString(eventObj, "commit_id");
+                if (commitId == null)
+                    continue;
+                JsonObject oid = new JsonObject();
+                oid.addProperty("oid", commitId);
+                JsonObject eventNode = new JsonObject();
+                if ("closed".equals(getString(eventObj, "event")))
+                {
+                    oid.addProperty("__typename", "Commit");
+                    eventNode.addProperty("__typename", "ClosedEvent");
+                    eventNode.add("closer", oid);
+                }
+                else
+                {
+                    eventNode.addProperty("__typename", "ReferencedEvent");
+                    eventNode.add("commit", oid);
+                }
+                nodes.add(eventNode);
+            }
+            node.add("timelineItems", toConnection(nodes));
+        }
+        return node;
+    }
+
+    private JsonObject getResource(String path)
+    {
+        String json = notFound.contains(path) ? null : resources.get(path);
+        return (json == null) ? null : gson.fromJson(json, JsonObject.class);
+    }
+
+    private JsonArray getResourceArray(String path)
+    {
+        String json = notFound.contains(path) ? null : resources.get(path);
+        return (json == null) ? new JsonArray() : gson.fromJson(json, JsonArray.class);
+    }
+
+    private static JsonObject toConnection(JsonArray nodes)
+    {
+        JsonObject pageInfo = new JsonObject();
+        pageInfo.addProperty("hasNextPage", false);
+        JsonObject connection = new JsonObject();
+        connection.add("pageInfo", pageInfo);
+        connection.add("nodes", nodes);
+        return connection;
+    }
+
+    private static String getString(JsonObject obj, String name)
+    {
+        JsonElement element = obj.get(name);
+        if ((element == null) || element.isJsonNull())
+            return null;
+        return element.getAsString();
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException
+    {
+        responses.computeIfAbsent(status, (s) -> new AtomicInteger()).incrementAndGet();
+        if (body == null)
+        {
+            // Without a body the exchange completes with the headers: the request must be consumed
+            // before, or the connection is closed rather than kept alive
+            exchange.getRequestBody().close();
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        byte[] buf = body.getBytes(UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, buf.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(buf);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,158 @@
+package org.eclipse.jetty.toolchain.github;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test {@link GitHubApi} against the {@link StubGitHubServer}, served under a base path as with GitHub Enterprise.
+ */
+public class StubGitHubServerTest
+{
+    private static final String REPO_PATH = "/repos/eclipse/jetty.project";
+
+    private StubGitHubServer server;
+    private GitHubApi github;
+
+    @BeforeEach
+    public void startServer(TestInfo testInfo) throws IOException
+    {
+        Path cacheDir = MavenTestingUtils.getTargetTestingPath(StubGitHubServerTest.class.getSimpleName() + "-" + testInfo.getTestMethod().get().getName());
+        FS.ensureEmpty(cacheDir);
+
+        server = new StubGitHubServer("/api/v3");
+        server.addResource(REPO_PATH + "/issues/5675", readFixture("issue-eclipse-jetty.project-5675.json"));
+        server.addResource(REPO_PATH + "/issues/5675/events", readFixture("issue-5675-events.json"));
+        server.addResource(REPO_PATH + "/issues/5676", readFixture("issue-eclipse-jetty.project-5676.json"));
+        server.addResource(REPO_PATH + "/pulls/5676", readFixture("pull-request-5676.json"));
+        server.addResource(REPO_PATH + "/pulls/5676/commits", readFixture("pull-request-5676-commits.json"));
+        github = server.newGitHubApi(new Cache(cacheDir));
+    }
+
+    @AfterEach
+    public void stopServer()
+    {
+        server.close();
+    }
+
+    private static String readFixture(String name) throws IOException
+    {
+        return Files.readString(MavenTestingUtils.getTestResourcePathFile("github/" + name), UTF_8);
+    }
+
+    @Test
+    public void testBasePath() throws Exception
+    {
+        assertThat(github.getApiURI().toString(), containsString("/api/v3"));
+        Issue issue = github.issue("eclipse", "jetty.project", 5675);
+        assertEquals(5675, issue.getNumber());
+        // The issue request counts against the rate limit
+        assertEquals(4999, github.getRateRemaining("core"));
+    }
+
+    @Test
+    public void testNotFound()
+    {
+        server.addNotFound(REPO_PATH + "/issues/5675");
+        assertThrows(GitHubResourceNotFoundException.class, () -> github.issue("eclipse", "jetty.project", 5675));
+        assertThrows(GitHubResourceNotFoundException.class, () -> github.issue("eclipse", "jetty.project", 1234));
+        assertEquals(2, server.getResponseCount(404));
+    }
+
+    @Test
+    public void testSecondaryRateLimit()
+    {
+        server.setSecondaryRateLimit(0, 1);
+        long start = System.nanoTime();
+        GitHubApiException failure = assertThrows(GitHubApiException.class, () -> github.issue("eclipse", "jetty.project", 5675));
+        assertThat(failure.getMessage(), containsString("403"));
+        // Retried after each Retry-After, then given up
+        assertEquals(3, server.getResponseCount(403));
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), greaterThanOrEqualTo(2000L));
+    }
+
+    @Test
+    public void testRateLimitPacing() throws Exception
+    {
+        String issue = readFixture("issue-eclipse-jetty.project-5675.json");
+        int requests = 45;
+        for (int i = 1; i <= requests; i++)
+        {
+            server.addResource(REPO_PATH + "/issues/" + i, issue);
+        }
+        server.setRateLimit(20, Duration.ofSeconds(2));
+        github.getRateLimiter().setReserve(2);
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= requests; i++)
+        {
+            github.issue("eclipse", "jetty.project", i);
+        }
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // Never over the limit, at most 18 requests per window, without waiting past the third window
+        assertEquals(0, server.getResponseCount(403));
+        assertEquals(requests, server.getResponseCount(200));
+        assertThat(elapsed, greaterThanOrEqualTo(4000L));
+        assertThat(elapsed, lessThan(10000L));
+    }
+
+    @Test
+    public void testLatency() throws Exception
+    {
+        server.setLatency(Duration.ofMillis(200));
+        long start = System.nanoTime();
+        github.issue("eclipse", "jetty.project", 5675);
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), greaterThanOrEqualTo(200L));
+    }
+
+    @Test
+    public void testGraphqlFromResources() throws Exception
+    {
+        IssueBatchFetcher fetcher = new IssueBatchFetcher(github, "eclipse", "jetty.project");
+        Map<Integer, IssueBatchFetcher.Result> results = fetcher.fetch(List.of(5675, 5676, 9999));
+        assertEquals(2, results.size());
+
+        // Same as the recorded GraphQL response of IssueBatchFetcherTest
+        IssueBatchFetcher.Result issue = results.get(5675);
+        assertFalse(issue.isPullRequest());
+        assertEquals(List.of("bdb4dd435e18336c61f67d270004e17696481bc3",
+                "f911dbcd5d65bc9cae745b29a37bb38c6d77284c",
+                "e45ab8a61b63ac0ea57babdb6e2a3a19b4cfe022",
+                "f0a2ab4fedef6bc062e833128abf2479ac9d927a"),
+            issue.getCommits());
+
+        IssueBatchFetcher.Result pullRequest = results.get(5676);
+        assertTrue(pullRequest.isPullRequest());
+        assertEquals("jetty-9.4.x", pullRequest.getBaseRef());
+        assertEquals(List.of("Test"), pullRequest.getLabels());
+        assertEquals(8, pullRequest.getCommits().size());
+
+        // Served from the cache populated by the GraphQL batch
+        int requests = server.getRequestCount();
+        Map<Integer, IssueBatchFetcher.Result> cached = fetcher.get(List.of(5675, 5676, 9999));
+        assertEquals(results.keySet(), cached.keySet());
+        assertEquals(8, cached.get(5676).getCommits().size());
+        assertEquals(requests, server.getRequestCount());
+    }
+}
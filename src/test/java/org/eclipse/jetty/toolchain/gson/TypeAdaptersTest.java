@@ -0,0 +1,153 @@
+package org.eclipse.jetty.toolchain.gson;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import org.eclipse.jetty.toolchain.Author;
+import org.eclipse.jetty.toolchain.GitCommit;
+import org.eclipse.jetty.toolchain.Issue;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TypeAdaptersTest
+{
+    private static GitCommit newCommit(String sha, int issueRef)
+    {
+        GitCommit commit = new GitCommit(ObjectId.fromString(sha));
+        commit.setAuthor(new Author("Jane Doe").github("jdoe").email("jane@example.com"));
+        commit.setTitle("Issue #" + issueRef + " - fix <html> & \"quotes\"");
+        commit.setBody("Body\nwith lines");
+        commit.setCommitTime(ZonedDateTime.parse("2021-03-04T05:06:07+01:00"));
+        commit.setFiles(List.of("jetty-server/src/main/java/Foo.java", "pom.xml"));
+        commit.setBranches(List.of("origin/jetty-11.0.x"));
+        commit.addIssueRef(issueRef);
+        commit.addPullRequestRef(issueRef + 1);
+        return commit;
+    }
+
+    @Test
+    public void testGitCommitFormat()
+    {
+        // The format previously written by reflection, with a String sha field
+        GitCommit commit = newCommit("0123456789abcdef0123456789abcdef01234567", 5675);
+        String json = new GitCommitTypeAdapter().toJson(commit);
+        assertEquals(JsonParser.parseString("{\"sha\":\"0123456789abcdef0123456789abcdef01234567\"," +
+            "\"author\":{\"github\":\"jdoe\",\"name\":\"Jane Doe\",\"emails\":[\"jane@example.com\"],\"committer\":false}," +
+            "\"title\":\"Issue #5675 - fix <html> & \\\"quotes\\\"\",\"body\":\"Body\\nwith lines\"," +
+            "\"commit_time\":\"2021-03-04T05:06:07+01:00\",\"is_merge\":false,\"is_skipped\":false," +
+            "\"files\":[\"jetty-server/src/main/java/Foo.java\",\"pom.xml\"],\"branches\":[\"origin/jetty-11.0.x\"]," +
+            "\"issue_refs\":[5675],\"pull_request_refs\":[5676]}"), JsonParser.parseString(json));
+
+        // Without files, branches and references
+        GitCommit bare = new GitCommit(ObjectId.fromString("0123456789abcdef0123456789abcdef01234567"));
+        assertEquals(JsonParser.parseString("{\"sha\":\"0123456789abcdef0123456789abcdef01234567\",\"is_merge\":false,\"is_skipped\":false}"),
+            JsonParser.parseString(new GitCommitTypeAdapter().toJson(bare)));
+    }
+
+    @Test
+    public void testGitCommitRoundTrip() throws IOException
+    {
+        GitCommitTypeAdapter adapter = new GitCommitTypeAdapter();
+        GitCommit commit = newCommit("0123456789abcdef0123456789abcdef01234567", 5675);
+        String json = adapter.toJson(commit);
+        GitCommit read = adapter.fromJson(json);
+        assertEquals(json, adapter.toJson(read));
+        assertEquals(commit.getCommitTime().toInstant(), read.getCommitTime().toInstant());
+        assertEquals(Set.of(5675), read.getIssueRefs());
+        assertEquals("jdoe", read.getAuthor().github());
+    }
+
+    @Test
+    public void testIssueFormat()
+    {
+        Issue issue = new Issue(5676);
+        issue.setTitle("Fix the thing");
+        issue.setType(Issue.Type.PULL_REQUEST);
+        issue.setBaseRef("jetty-11.0.x");
+        issue.addLabels(List.of("Bug"));
+        issue.addReferencedIssues(List.of(5675));
+        issue.addCommit("0123456789ABCDEF0123456789ABCDEF01234567");
+        // The format previously written by reflection, with the lowercase commits
+        assertEquals(JsonParser.parseString("{\"num\":5676,\"title\":\"Fix the thing\",\"base_ref\":\"jetty-11.0.x\"," +
+                "\"type\":\"PULL_REQUEST\",\"skip\":false,\"referenced_issues\":[5675]," +
+                "\"commits\":[\"0123456789abcdef0123456789abcdef01234567\"],\"labels\":[\"Bug\"]}"),
+            JsonParser.parseString(new IssueTypeAdapter().toJson(issue)));
+    }
+
+    @Test
+    public void testIssueRoundTrip() throws IOException
+    {
+        IssueTypeAdapter adapter = new IssueTypeAdapter();
+        Issue issue = new Issue(5676);
+        issue.setTitle("Fix the thing");
+        issue.setSkip(true);
+        issue.addLabels(List.of("Bug", "test"));
+        issue.addReferencedIssues(List.of(5675, 12, 10000));
+        issue.addCommit("fedcba9876543210fedcba9876543210fedcba98");
+        issue.addCommit("0123456789abcdef0123456789abcdef01234567");
+        issue.addCommit(ObjectId.fromString("0123456789abcdef0123456789abcdef01234567"));
+        String json = adapter.toJson(issue);
+        assertTrue(json.contains("\"referenced_issues\":[12,5675,10000]"), json);
+        assertTrue(json.contains("\"commits\":[\"0123456789abcdef0123456789abcdef01234567\",\"fedcba9876543210fedcba9876543210fedcba98\"]"), json);
+
+        Issue read = adapter.fromJson(json);
+        assertEquals(json, adapter.toJson(read));
+        assertEquals(5676, read.getNum());
+        assertTrue(read.isSkipped());
+        // The labels are still case insensitive
+        assertTrue(read.hasLabel("BUG"));
+    }
+
+    @Test
+    public void testEntriesWriter() throws IOException
+    {
+        GitCommitTypeAdapter adapter = new GitCommitTypeAdapter();
+        List<GitCommit> commits = List.of(newCommit("0123456789abcdef0123456789abcdef01234567", 1),
+            newCommit("fedcba9876543210fedcba9876543210fedcba98", 2));
+
+        StringWriter array = new StringWriter();
+        try (EntriesWriter<GitCommit> writer = new EntriesWriter<>(array, adapter, false))
+        {
+            commits.forEach((commit) -> write(writer, commit));
+        }
+        JsonArray entries = JsonParser.parseString(array.toString()).getAsJsonArray();
+        assertEquals(2, entries.size());
+
+        StringWriter ndjson = new StringWriter();
+        try (EntriesWriter<GitCommit> writer = new EntriesWriter<>(ndjson, adapter, true))
+        {
+            commits.forEach((commit) -> write(writer, commit));
+            assertEquals(2, writer.getCount());
+        }
+        String[] lines = ndjson.toString().split("\n");
+        assertEquals(2, lines.length);
+        for (int i = 0; i < lines.length; i++)
+        {
+            assertEquals(entries.get(i), JsonParser.parseString(lines[i]));
+        }
+
+        StringWriter empty = new StringWriter();
+        new EntriesWriter<>(empty, adapter, true).close();
+        assertEquals("", empty.toString());
+    }
+
+    private static void write(EntriesWriter<GitCommit> writer, GitCommit commit)
+    {
+        try
+        {
+            writer.write(commit);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+}